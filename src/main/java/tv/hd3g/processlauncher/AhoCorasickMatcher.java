@@ -0,0 +1,157 @@
+/*
+ * This file is part of processlauncher.
+ *
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation; either version 3 of the License, or
+ * any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU Lesser General Public License for more details.
+ *
+ * Copyright (C) hdsdi3g for hd3g.tv 2019
+ *
+ */
+package tv.hd3g.processlauncher;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+
+/**
+ * Aho-Corasick automaton: search a set of literals in a text with a single pass, whatever the literals count.
+ * Transitions for ASCII chars are precomputed in a dense table (no fail link to follow).
+ * Immutable and thread safe after creation.
+ */
+final class AhoCorasickMatcher {
+
+	private static final int ASCII_SIZE = 128;
+
+	private final int[] asciiDelta;
+	private final int[] fail;
+	private final int[] output;
+	private final Map<Long, Integer> nonAsciiGoto;
+
+	/**
+	 * @param literals can't contain empty values
+	 */
+	AhoCorasickMatcher(final List<String> literals) {
+		Objects.requireNonNull(literals, "\"literals\" can't to be null");
+
+		final var children = new ArrayList<Map<Character, Integer>>();
+		final var outputs = new ArrayList<Integer>();
+		children.add(new HashMap<>());
+		outputs.add(-1);
+
+		nonAsciiGoto = new HashMap<>();
+		for (var pos = 0; pos < literals.size(); pos++) {
+			final var literal = literals.get(pos);
+			if (literal == null || literal.isEmpty()) {
+				throw new IllegalArgumentException("Invalid empty literal, index " + pos);
+			}
+			var node = 0;
+			for (var i = 0; i < literal.length(); i++) {
+				final var c = literal.charAt(i);
+				final var next = children.get(node).get(c);
+				if (next != null) {
+					node = next;
+				} else {
+					final var created = children.size();
+					children.add(new HashMap<>());
+					outputs.add(-1);
+					children.get(node).put(c, created);
+					if (c >= ASCII_SIZE) {
+						nonAsciiGoto.put(gotoKey(node, c), created);
+					}
+					node = created;
+				}
+			}
+			if (outputs.get(node) == -1) {
+				outputs.set(node, pos);
+			}
+		}
+
+		final var size = children.size();
+		fail = new int[size];
+		output = new int[size];
+		asciiDelta = new int[size * ASCII_SIZE];
+		for (var node = 0; node < size; node++) {
+			output[node] = outputs.get(node);
+		}
+
+		// Breadth-first: a fail node is always less deep than its node, so it's already computed.
+		final var queue = new ArrayDeque<Integer>();
+		queue.add(0);
+		while (queue.isEmpty() == false) {
+			final int node = queue.poll();
+			final var nodeChildren = children.get(node);
+			for (final var entry : nodeChildren.entrySet()) {
+				final char c = entry.getKey();
+				final int child = entry.getValue();
+				if (node > 0) {
+					fail[child] = next(fail[node], c);
+				}
+				final var failOutput = output[fail[child]];
+				if (failOutput > -1 && (output[child] == -1 || failOutput < output[child])) {
+					output[child] = failOutput;
+				}
+				queue.add(child);
+			}
+			for (var c = 0; c < ASCII_SIZE; c++) {
+				final var child = nodeChildren.get((char) c);
+				if (child != null) {
+					asciiDelta[node * ASCII_SIZE + c] = child;
+				} else if (node > 0) {
+					asciiDelta[node * ASCII_SIZE + c] = asciiDelta[fail[node] * ASCII_SIZE + c];
+				}
+			}
+		}
+	}
+
+	private static long gotoKey(final int node, final char c) {
+		return (long) node << 16 | c;
+	}
+
+	private int next(final int fromNode, final char c) {
+		if (c < ASCII_SIZE) {
+			return asciiDelta[fromNode * ASCII_SIZE + c];
+		} else if (nonAsciiGoto.isEmpty()) {
+			return 0;
+		}
+		var node = fromNode;
+		while (true) {
+			final var child = nonAsciiGoto.get(gotoKey(node, c));
+			if (child != null) {
+				return child;
+			} else if (node == 0) {
+				return 0;
+			}
+			node = fail[node];
+		}
+	}
+
+	/**
+	 * @return the index of the literal found first in text (the first ending in text, and the first added for a tie),
+	 *         else -1
+	 */
+	int indexOf(final CharSequence text) {
+		var node = 0;
+		for (var i = 0; i < text.length(); i++) {
+			node = next(node, text.charAt(i));
+			if (output[node] > -1) {
+				return output[node];
+			}
+		}
+		return -1;
+	}
+
+	int getNodesCount() {
+		return fail.length;
+	}
+
+}
@@ -17,19 +17,22 @@
 package tv.hd3g.processlauncher;
 
 import java.io.InputStream;
+import java.util.concurrent.CompletableFuture;
 
 public interface CaptureStandardOutput {
 
 	/**
 	 * Called one time juste after process starts.
-	 * @return the watcher thread
+	 * @return never null, completed when the stream is closed and all its content is pushed, whatever runs the
+	 *         watcher (a dedicated thread, an Executor or a StreamReaderPool). Already completed if not captured.
 	 */
-	Thread stdOutStreamConsumer(InputStream processInputStream, ProcesslauncherLifecycle source);
+	CompletableFuture<Void> stdOutStreamConsumer(InputStream processInputStream, ProcesslauncherLifecycle source);
 
 	/**
 	 * Called one time juste after process starts.
-	 * @return the watcher thread
+	 * @return never null, completed when the stream is closed and all its content is pushed, whatever runs the
+	 *         watcher (a dedicated thread, an Executor or a StreamReaderPool). Already completed if not captured.
 	 */
-	Thread stdErrStreamConsumer(InputStream processInputStream, ProcesslauncherLifecycle source);
+	CompletableFuture<Void> stdErrStreamConsumer(InputStream processInputStream, ProcesslauncherLifecycle source);
 
 }
@@ -0,0 +1,240 @@
+/*
+ * This file is part of processlauncher.
+ *
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation; either version 3 of the License, or
+ * any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU Lesser General Public License for more details.
+ *
+ * Copyright (C) hdsdi3g for hd3g.tv 2019
+ *
+ */
+package tv.hd3g.processlauncher;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.WritableByteChannel;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Objects;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+/**
+ * Raw capture, without any text decoding: for binary outputs.
+ */
+public class CaptureStandardOutputBytes implements CaptureStandardOutput {
+	private static Logger log = LogManager.getLogger();
+
+	private static final AtomicLong CREATED_THREAD_COUNTER = new AtomicLong(-1);
+	public static final int DEFAULT_CHUNK_SIZE = 0xFFFF;
+
+	private final CapturedStreams captureOutStreamsBehavior;
+	private final int chunkSize;
+	private final List<CapturedStdOutErrBytes> observers;
+	private final List<WritableByteChannel> stdOutSinks;
+	private final List<WritableByteChannel> stdErrSinks;
+	private CompletableFuture<Void> watchStdout;
+	private CompletableFuture<Void> watchStderr;
+
+	/**
+	 * @param chunkSize max size of each chunk passed to observers and sinks
+	 */
+	public CaptureStandardOutputBytes(final CapturedStreams captureOutStreamsBehavior, final int chunkSize) {
+		this.captureOutStreamsBehavior = Objects.requireNonNull(captureOutStreamsBehavior,
+		        "\"captureOutStreamsBehavior\" can't to be null");
+		if (chunkSize < 1) {
+			throw new IllegalArgumentException("Invalid chunkSize value: " + chunkSize);
+		}
+		this.chunkSize = chunkSize;
+		observers = new ArrayList<>();
+		stdOutSinks = new ArrayList<>();
+		stdErrSinks = new ArrayList<>();
+	}
+
+	/**
+	 * With DEFAULT_CHUNK_SIZE
+	 */
+	public CaptureStandardOutputBytes(final CapturedStreams captureOutStreamsBehavior) {
+		this(captureOutStreamsBehavior, DEFAULT_CHUNK_SIZE);
+	}
+
+	/**
+	 * Never add observer AFTER call stdOut/ErrStreamConsumer()
+	 */
+	public CaptureStandardOutputBytes addObserver(final CapturedStdOutErrBytes observer) {
+		Objects.requireNonNull(observer, "\"observer\" can't to be null");
+		synchronized (observers) {
+			observers.add(observer);
+		}
+		return this;
+	}
+
+	/**
+	 * Write all stdout bytes as is to this channel, like a FileChannel. It will never be closed here.
+	 * Never add sink AFTER call stdOutStreamConsumer()
+	 */
+	public CaptureStandardOutputBytes addStdOutSink(final WritableByteChannel sink) {
+		Objects.requireNonNull(sink, "\"sink\" can't to be null");
+		synchronized (stdOutSinks) {
+			stdOutSinks.add(sink);
+		}
+		return this;
+	}
+
+	/**
+	 * Write all stderr bytes as is to this channel, like a FileChannel. It will never be closed here.
+	 * Never add sink AFTER call stdErrStreamConsumer()
+	 */
+	public CaptureStandardOutputBytes addStdErrSink(final WritableByteChannel sink) {
+		Objects.requireNonNull(sink, "\"sink\" can't to be null");
+		synchronized (stdErrSinks) {
+			stdErrSinks.add(sink);
+		}
+		return this;
+	}
+
+	@Override
+	public CompletableFuture<Void> stdOutStreamConsumer(final InputStream processInputStream,
+	                                                    final ProcesslauncherLifecycle source) {
+		if (captureOutStreamsBehavior.canCaptureStdout()) {
+			watchStdout = startReader(processInputStream, source, false, stdOutSinks);
+			return watchStdout.copy();
+		}
+		return CompletableFuture.completedFuture(null);
+	}
+
+	@Override
+	public CompletableFuture<Void> stdErrStreamConsumer(final InputStream processInputStream,
+	                                                    final ProcesslauncherLifecycle source) {
+		if (captureOutStreamsBehavior.canCaptureStderr()) {
+			watchStderr = startReader(processInputStream, source, true, stdErrSinks);
+			return watchStderr.copy();
+		}
+		return CompletableFuture.completedFuture(null);
+	}
+
+	/**
+	 * Blocking, until the last started streams are closed.
+	 */
+	public void waitForClosedStreams() {
+		if (watchStdout != null) {
+			watchStdout.join();
+		}
+		if (watchStderr != null) {
+			watchStderr.join();
+		}
+	}
+
+	/**
+	 * @return completed when the stream is closed
+	 */
+	private CompletableFuture<Void> startReader(final InputStream processStream,
+	                           final ProcesslauncherLifecycle source,
+	                           final boolean isStdErr,
+	                           final List<WritableByteChannel> sinks) {
+		final List<CapturedStdOutErrBytes> actualObservers;
+		synchronized (observers) {
+			actualObservers = List.copyOf(observers);
+		}
+		final List<WritableByteChannel> actualSinks;
+		synchronized (sinks) {
+			actualSinks = List.copyOf(sinks);
+		}
+
+		final var closed = new CompletableFuture<Void>();
+		source.addCapturedStream(closed);
+		final var t = new Thread(() -> {
+			try {
+				read(processStream, source, isStdErr, actualObservers, actualSinks);
+			} finally {
+				closed.complete(null);
+			}
+		});
+		t.setDaemon(true);
+		t.setPriority(Thread.MAX_PRIORITY);
+		final var execName = source.getLauncher().getExecutableName();
+		if (isStdErr) {
+			t.setName("Executable syserr bytes watcher for " + execName + " TId#"
+			          + CREATED_THREAD_COUNTER.incrementAndGet());
+		} else {
+			t.setName("Executable sysout bytes watcher for " + execName + " TId#"
+			          + CREATED_THREAD_COUNTER.incrementAndGet());
+		}
+		t.start();
+		return closed;
+	}
+
+	private void read(final InputStream processStream,
+	                  final ProcesslauncherLifecycle source,
+	                  final boolean isStdErr,
+	                  final List<CapturedStdOutErrBytes> observers,
+	                  final List<WritableByteChannel> sinks) {
+		final var buffer = new byte[chunkSize];
+		final var chunk = ByteBuffer.wrap(buffer);
+		final var readOnlyChunk = chunk.asReadOnlyBuffer();
+		/**
+		 * After a write error, a sink is no longer used (no gaps in its content), but the stream is still read.
+		 */
+		final var failedSinks = new boolean[sinks.size()];
+		var sequence = 0L;
+
+		try (processStream) {
+			int size;
+			while ((size = processStream.read(buffer)) != -1) {
+				if (size == 0) {
+					continue;
+				}
+				for (var pos = 0; pos < failedSinks.length; pos++) {
+					if (failedSinks[pos]) {
+						continue;
+					}
+					final var sink = sinks.get(pos);
+					chunk.clear().limit(size);
+					try {
+						while (chunk.hasRemaining()) {
+							sink.write(chunk);
+						}
+					} catch (final IOException e) {
+						failedSinks[pos] = true;
+						log.error("Can't write process bytes to sink {}, stop to write to it", sink, e);
+					}
+				}
+				for (final var observer : observers) {
+					readOnlyChunk.clear().limit(size);
+					try {
+						observer.onBytes(source, isStdErr, sequence, readOnlyChunk);
+					} catch (final RuntimeException e) {
+						log.error("Can't callback process bytes event ", e);
+					}
+				}
+				sequence++;
+			}
+		} catch (final IOException ioe) {
+			if ("Stream closed".equalsIgnoreCase(ioe.getMessage())
+			    || "Bad file descriptor".equalsIgnoreCase(ioe.getMessage())) {
+				log.trace("Stream closed, {}", Thread.currentThread().getName());
+			} else {
+				log.error("Trouble during process {}", source, ioe);
+			}
+		} finally {
+			observers.forEach(observer -> {
+				try {
+					observer.onClosedStream(source, isStdErr);
+				} catch (final RuntimeException e) {
+					log.error("Can't callback process bytes event ", e);
+				}
+			});
+		}
+	}
+
+}
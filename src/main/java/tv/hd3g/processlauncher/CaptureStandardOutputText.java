@@ -16,12 +16,16 @@
  */
 package tv.hd3g.processlauncher;
 
-import java.io.BufferedReader;
 import java.io.IOException;
 import java.io.InputStream;
-import java.io.InputStreamReader;
+import java.nio.charset.Charset;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executor;
+import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicLong;
 
 import org.apache.logging.log4j.LogManager;
@@ -31,9 +35,12 @@ public class CaptureStandardOutputText implements CaptureStandardOutput {
 	private static Logger log = LogManager.getLogger();
 
 	private static final AtomicLong CREATED_THREAD_COUNTER = new AtomicLong(-1);
+	private static final int READ_BUFFER_SIZE = 8192;
 
 	private final CapturedStreams captureOutStreamsBehavior;
 	private final List<CapturedStdOutErrText> observers;
+	private Optional<Executor> streamParserExecutor;
+	private Optional<StreamReaderPool> streamReaderPool;
 
 	/**
 	 * @param executorConsumer each stream parser will be executed in separate thread, ensure the capacity is sufficient for 2 threads by process.
@@ -41,6 +48,8 @@ public class CaptureStandardOutputText implements CaptureStandardOutput {
 	CaptureStandardOutputText(final CapturedStreams captureOutStreamsBehavior) {
 		this.captureOutStreamsBehavior = captureOutStreamsBehavior;
 		observers = new ArrayList<>();
+		streamParserExecutor = Optional.empty();
+		streamReaderPool = Optional.empty();
 	}
 
 	/**
@@ -59,39 +68,138 @@ public class CaptureStandardOutputText implements CaptureStandardOutput {
 		}
 	}
 
+	/**
+	 * Add an observer behind a bounded queue, pushed by its own thread, so it can't slow down the stream parsers.
+	 * Never add observer AFTER call stdOut/ErrStreamConsumer()
+	 * @return the added CapturedStdOutErrTextAsync, for get lag and dropped lines counters.
+	 */
+	public CapturedStdOutErrTextAsync addAsyncObserver(final CapturedStdOutErrText observer,
+	                                                   final int queueSize,
+	                                                   final ObserverOverflowPolicy overflowPolicy) {
+		final var async = new CapturedStdOutErrTextAsync(observer, queueSize, overflowPolicy);
+		addObserver(async);
+		return async;
+	}
+
+	/**
+	 * Add a reactive publisher for the captured lines of the next started process. Its subscriber demand blocks the
+	 * stream parsers: a slow subscriber pauses the stream reading (and so the process), and nothing is buffered.
+	 * Never add AFTER call stdOut/ErrStreamConsumer(). Don't use it with a StreamReaderPool.
+	 * @return the added publisher, to subscribe before or just after the process start.
+	 */
+	public CapturedStdOutErrTextPublisher addPublisher() {
+		var streamsCount = 0;
+		if (captureOutStreamsBehavior.canCaptureStdout()) {
+			streamsCount++;
+		}
+		if (captureOutStreamsBehavior.canCaptureStderr()) {
+			streamsCount++;
+		}
+		final var publisher = new CapturedStdOutErrTextPublisher(this, streamsCount);
+		addObserver(publisher);
+		return publisher;
+	}
+
+	/**
+	 * Used by a terminated publisher. The already started stream parsers keep it.
+	 */
+	void removeObserver(final CapturedStdOutErrText observer) {
+		synchronized (observers) {
+			observers.remove(observer);
+		}
+	}
+
+	/**
+	 * Run the stream parsers on this executor, instead of starting a new platform thread by stream.
+	 * Ensure the capacity is sufficient for 2 parallel tasks by process.
+	 * Never set AFTER call stdOut/ErrStreamConsumer(). Cancel a previous setStreamReaderPool.
+	 * @param streamParserExecutor null for back to the default behavior.
+	 */
+	public CaptureStandardOutputText setStreamParserExecutor(final Executor streamParserExecutor) {
+		this.streamParserExecutor = Optional.ofNullable(streamParserExecutor);
+		streamReaderPool = Optional.empty();
+		return this;
+	}
+
+	public Optional<Executor> getStreamParserExecutor() {
+		return streamParserExecutor;
+	}
+
+	/**
+	 * Run the stream parsers on virtual threads (Java 21+), or on a shared daemon cached thread pool with older JVMs.
+	 * Never set AFTER call stdOut/ErrStreamConsumer()
+	 */
+	public CaptureStandardOutputText setVirtualThreadStreamParser() {
+		return setStreamParserExecutor(ProcesslauncherExecutors.getVirtualThreadExecutor());
+	}
+
+	/**
+	 * Let a shared StreamReaderPool read the streams, instead of a blocked reader by stream.
+	 * Never set AFTER call stdOut/ErrStreamConsumer(). Cancel a previous setStreamParserExecutor.
+	 * @param streamReaderPool null for back to the default behavior.
+	 */
+	public CaptureStandardOutputText setStreamReaderPool(final StreamReaderPool streamReaderPool) {
+		this.streamReaderPool = Optional.ofNullable(streamReaderPool);
+		streamParserExecutor = Optional.empty();
+		return this;
+	}
+
+	public Optional<StreamReaderPool> getStreamReaderPool() {
+		return streamReaderPool;
+	}
+
+	/**
+	 * @return completed after the last line is pushed to the observers, and the stream closed.
+	 */
 	@Override
-	public StreamParser stdOutStreamConsumer(final InputStream processInputStream,
-	                                         final ProcesslauncherLifecycle source) {
+	public CompletableFuture<Void> stdOutStreamConsumer(final InputStream processInputStream,
+	                                                    final ProcesslauncherLifecycle source) {
 		if (captureOutStreamsBehavior.canCaptureStdout()) {
-			final var t = new StreamParser(processInputStream, false, source);
-			t.start();
+			final var parser = new StreamParser(processInputStream, false, source);
 			synchronized (observers) {
-				observers.forEach(o -> o.setWatchThreadStdout(t));
+				observers.forEach(o -> o.setWatchThreadStdout(parser));
 			}
-			return t;
+			parser.start();
+			return parser.closedFuture.copy();
 		}
-		return null;
+		return CompletableFuture.completedFuture(null);
 	}
 
+	/**
+	 * @return completed after the last line is pushed to the observers, and the stream closed.
+	 */
 	@Override
-	public StreamParser stdErrStreamConsumer(final InputStream processInputStream,
-	                                         final ProcesslauncherLifecycle source) {
+	public CompletableFuture<Void> stdErrStreamConsumer(final InputStream processInputStream,
+	                                                    final ProcesslauncherLifecycle source) {
 		if (captureOutStreamsBehavior.canCaptureStderr()) {
-			final var t = new StreamParser(processInputStream, true, source);
-			t.start();
+			final var parser = new StreamParser(processInputStream, true, source);
 			synchronized (observers) {
-				observers.forEach(o -> o.setWatchThreadStderr(t));
+				observers.forEach(o -> o.setWatchThreadStderr(parser));
 			}
-			return t;
+			parser.start();
+			return parser.closedFuture.copy();
 		}
-		return null;
+		return CompletableFuture.completedFuture(null);
 	}
 
-	public class StreamParser extends Thread {
+	/**
+	 * Run by a dedicated thread, a streamParserExecutor or a streamReaderPool. Not a Thread: isAlive() and join() only
+	 * follow the stream parsing.
+	 */
+	public class StreamParser implements Runnable {
 
 		private final InputStream processStream;
 		private final boolean isStdErr;
 		private final ProcesslauncherLifecycle source;
+		private final String name;
+		private final CountDownLatch closed;
+		private final CompletableFuture<Void> closedFuture;
+		private final StreamLineDecoder lineDecoder;
+		private final LineTimestampMode lineTimestampMode;
+		private final List<CapturedStdOutErrText> lineObservers;
+		private final List<PendingBatch> pendingBatches;
+		private Throwable readError;
+		private CompletableFuture<Integer> pendingEndRead;
 
 		private StreamParser(final InputStream processStream,
 		                     final boolean isStdErr,
@@ -99,59 +207,231 @@ public class CaptureStandardOutputText implements CaptureStandardOutput {
 			this.processStream = processStream;
 			this.isStdErr = isStdErr;
 			this.source = source;
-			setDaemon(true);
-			setPriority(MAX_PRIORITY);
+			closed = new CountDownLatch(1);
+			closedFuture = new CompletableFuture<>();
+			source.addCapturedStream(closedFuture);
+			lineDecoder = new StreamLineDecoder(source.getLauncher().getOutputCharset()
+			        .orElseGet(Charset::defaultCharset), this::onLine);
+			lineTimestampMode = source.getLauncher().getLineTimestampMode().orElse(LineTimestampMode.WALL_CLOCK);
+			lineObservers = new ArrayList<>();
+			pendingBatches = new ArrayList<>();
+			synchronized (observers) {
+				observers.forEach(observer -> {
+					if (observer instanceof CapturedStdOutErrTextPublisher
+					    && ((CapturedStdOutErrTextPublisher) observer).bind(source) == false) {
+						return;
+					}
+					if (observer instanceof CapturedStdOutErrTextBatch) {
+						pendingBatches.add(new PendingBatch((CapturedStdOutErrTextBatch) observer));
+					} else {
+						lineObservers.add(observer);
+					}
+				});
+			}
 
 			final var execName = source.getLauncher().getExecutableName();
 			if (isStdErr) {
-				setName("Executable syserr watcher for " + execName + " TId#"
-				        + CREATED_THREAD_COUNTER.incrementAndGet());
+				name = "Executable syserr watcher for " + execName + " TId#"
+				       + CREATED_THREAD_COUNTER.incrementAndGet();
 			} else {
-				setName("Executable sysout watcher for " + execName + " TId#"
-				        + CREATED_THREAD_COUNTER.incrementAndGet());
+				name = "Executable sysout watcher for " + execName + " TId#"
+				       + CREATED_THREAD_COUNTER.incrementAndGet();
 			}
 		}
 
+		/**
+		 * In a new thread, or by the streamParserExecutor or the streamReaderPool
+		 */
+		private void start() {
+			if (streamReaderPool.isPresent()) {
+				streamReaderPool.get().register(this);
+				return;
+			} else if (streamParserExecutor.isPresent()) {
+				streamParserExecutor.get().execute(this);
+				return;
+			}
+			final var t = new Thread(this);
+			t.setDaemon(true);
+			t.setPriority(Thread.MAX_PRIORITY);
+			t.setName(name);
+			t.start();
+		}
+
 		@Override
 		public void run() {
-			try {
-				final var reader = new BufferedReader(new InputStreamReader(processStream));
-				subRun(reader);
+			try (processStream) {
+				final var buffer = new byte[READ_BUFFER_SIZE];
+				int size;
+				while ((size = processStream.read(buffer)) != -1) {
+					lineDecoder.decode(buffer, 0, size);
+					flushPendingBatches(isIdleStream());
+				}
+				lineDecoder.endOfStream();
 			} catch (final IOException ioe) {
-				log.error("Trouble opening process streams: {}", this, ioe);
+				if (isClosedStream(ioe) == false) {
+					log.error("Trouble opening process streams: {}", this, ioe);
+					readError = ioe;
+				}
+			} catch (final Exception e) {
+				log.error("Trouble during process {}", this, e);
+				readError = e;
+			} finally {
+				flushPendingBatches(true);
+				notifyStreamClosed();
+				closed.countDown();
+				closedFuture.complete(null);
+			}
+		}
+
+		private void notifyStreamClosed() {
+			for (var pos = 0; pos < lineObservers.size(); pos++) {
+				try {
+					lineObservers.get(pos).onStreamClosed(isStdErr, readError);
+				} catch (final RuntimeException e) {
+					log.error("Can't callback process stream closed event ", e);
+				}
+			}
+			for (var pos = 0; pos < pendingBatches.size(); pos++) {
+				try {
+					pendingBatches.get(pos).observer.onStreamClosed(isStdErr, readError);
+				} catch (final RuntimeException e) {
+					log.error("Can't callback process stream closed event ", e);
+				}
+			}
+		}
+
+		private void onLine(final String line) {
+			final var lineEntry = lineTimestampMode.createLineEntry(line, isStdErr, source);
+			for (var pos = 0; pos < lineObservers.size(); pos++) {
+				try {
+					lineObservers.get(pos).onText(lineEntry);
+				} catch (final RuntimeException e) {
+					log.error("Can't callback process text event ", e);
+				}
+			}
+			for (var pos = 0; pos < pendingBatches.size(); pos++) {
+				pendingBatches.get(pos).add(lineEntry);
+			}
+		}
+
+		/**
+		 * @return true if nothing more can be read right now, and no unterminated line is pending. With a pending
+		 *         line, the stream can be about to end: endOfStream will add this line to the last batch.
+		 */
+		private boolean isIdleStream() throws IOException {
+			return lineDecoder.hasPendingLine() == false && processStream.available() == 0;
+		}
+
+		/**
+		 * @param all push all non-empty batches, else only the too old ones.
+		 */
+		private void flushPendingBatches(final boolean all) {
+			if (pendingBatches.isEmpty()) {
+				return;
+			}
+			final var now = System.nanoTime();
+			for (var pos = 0; pos < pendingBatches.size(); pos++) {
+				final var batch = pendingBatches.get(pos);
+				if (batch.lines.isEmpty() == false
+				    && (all || now - batch.firstLineNanos >= batch.observer.getMaxBatchDelayNanos())) {
+					batch.flush();
+				}
 			}
 		}
 
-		private void subRun(final BufferedReader reader) throws IOException {
+		private boolean isClosedStream(final IOException ioe) {
+			if ("Bad file descriptor".equalsIgnoreCase(ioe.getMessage())) {
+				if (log.isTraceEnabled()) {
+					log.trace("Bad file descriptor, {}", this);
+				}
+				return true;
+			} else if ("Stream closed".equalsIgnoreCase(ioe.getMessage())) {
+				if (log.isTraceEnabled()) {
+					log.trace("Stream closed, {}", this);
+				}
+				return true;
+			}
+			return false;
+		}
+
+		/**
+		 * Non-blocking read, used by StreamReaderPool: only read the available bytes, then split and push lines.
+		 * When the process is done, a child process can still keep the stream open, so the last reads can block: they
+		 * are done by endReader, and this parser is polled until they are done.
+		 * @return read bytes count, or -1 if the stream is closed or on error: endOfStream must be called next.
+		 */
+		int readAvailable(final byte[] buffer, final Executor endReader) {
+			if (pendingEndRead != null) {
+				if (pendingEndRead.isDone() == false) {
+					return 0;
+				}
+				final int size = pendingEndRead.join();
+				pendingEndRead = null;
+				return size;
+			}
 			try {
-				var line = "";
-				while ((line = reader.readLine()) != null) {
-					final var lineEntry = new LineEntry(System.currentTimeMillis(), line, isStdErr,
-					        source);
-					observers.forEach(observer -> {
-						try {
-							observer.onText(lineEntry);
-						} catch (final RuntimeException e) {
-							log.error("Can't callback process text event ", e);
-						}
-					});
+				final var available = processStream.available();
+				if (available > 0) {
+					return readAndDecode(buffer, Math.min(available, buffer.length));
+				} else if (Boolean.TRUE.equals(source.isRunning())) {
+					return 0;
 				}
+				final var endReadBuffer = new byte[buffer.length];
+				pendingEndRead = CompletableFuture.supplyAsync(
+				        () -> readAndDecode(endReadBuffer, endReadBuffer.length), endReader);
+				return 0;
 			} catch (final IOException ioe) {
-				if (ioe.getMessage().equalsIgnoreCase("Bad file descriptor")) {
-					if (log.isTraceEnabled()) {
-						log.trace("Bad file descriptor, {}", this);
-					}
-				} else if (ioe.getMessage().equalsIgnoreCase("Stream closed")) {
-					if (log.isTraceEnabled()) {
-						log.trace("Stream closed, {}", this);
-					}
-				} else {
-					throw ioe;
+				onReadError(ioe);
+			} catch (final RuntimeException e) {
+				log.error("Trouble during process {}", this, e);
+				readError = e;
+			}
+			return -1;
+		}
+
+		/**
+		 * Blocking if nothing is available.
+		 * @return read bytes count, or -1 if the stream is closed or on error.
+		 */
+		private int readAndDecode(final byte[] buffer, final int len) {
+			try {
+				final var size = processStream.read(buffer, 0, len);
+				if (size == -1) {
+					return -1;
 				}
-			} catch (final Exception e) {
+				lineDecoder.decode(buffer, 0, size);
+				flushPendingBatches(isIdleStream());
+				return size;
+			} catch (final IOException ioe) {
+				onReadError(ioe);
+			} catch (final RuntimeException e) {
 				log.error("Trouble during process {}", this, e);
+				readError = e;
+			}
+			return -1;
+		}
+
+		private void onReadError(final IOException ioe) {
+			if (isClosedStream(ioe) == false) {
+				log.error("Trouble reading process streams: {}", this, ioe);
+				readError = ioe;
+			}
+		}
+
+		/**
+		 * Push the last line and close the stream. Called by StreamReaderPool after readAvailable returns -1.
+		 */
+		void endOfStream() {
+			try {
+				lineDecoder.endOfStream();
+				processStream.close();
+			} catch (final IOException ioe) {
+				log.debug("Can't close process stream {}", this, ioe);
 			} finally {
-				reader.close();
+				flushPendingBatches(true);
+				notifyStreamClosed();
+				closed.countDown();
+				closedFuture.complete(null);
 			}
 		}
 
@@ -162,6 +442,70 @@ public class CaptureStandardOutputText implements CaptureStandardOutput {
 		public boolean isStdErr() {
 			return isStdErr;
 		}
+
+		/**
+		 * @return true until the stream is closed, including if the parser still waits to be run by an executor.
+		 */
+		public boolean isAlive() {
+			return closed.getCount() > 0;
+		}
+
+		/**
+		 * Blocking, until the stream is closed.
+		 */
+		public void join() throws InterruptedException {
+			closed.await();
+		}
+
+		/**
+		 * Blocking, until the stream is closed or millis is expired.
+		 */
+		public void join(final long millis) throws InterruptedException {
+			closed.await(millis, TimeUnit.MILLISECONDS);
+		}
+
+		@Override
+		public String toString() {
+			return name;
+		}
+	}
+
+	/**
+	 * Lines waiting to be pushed to a CapturedStdOutErrTextBatch, by a StreamParser.
+	 */
+	private static class PendingBatch {
+		private final CapturedStdOutErrTextBatch observer;
+		private List<LineEntry> lines;
+		private long firstLineNanos;
+
+		private PendingBatch(final CapturedStdOutErrTextBatch observer) {
+			this.observer = observer;
+			lines = newLines();
+		}
+
+		private List<LineEntry> newLines() {
+			return new ArrayList<>(Math.min(observer.getMaxBatchSize(), CapturedStdOutErrTextBatch.DEFAULT_MAX_BATCH_SIZE));
+		}
+
+		private void add(final LineEntry lineEntry) {
+			if (lines.isEmpty()) {
+				firstLineNanos = System.nanoTime();
+			}
+			lines.add(lineEntry);
+			if (lines.size() >= observer.getMaxBatchSize()) {
+				flush();
+			}
+		}
+
+		private void flush() {
+			final var batch = lines;
+			lines = newLines();
+			try {
+				observer.onTextBatch(batch);
+			} catch (final RuntimeException e) {
+				log.error("Can't callback process text batch event ", e);
+			}
+		}
 	}
 
 }
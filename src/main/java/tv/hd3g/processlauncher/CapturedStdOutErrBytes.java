@@ -0,0 +1,40 @@
+/*
+ * This file is part of processlauncher.
+ *
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation; either version 3 of the License, or
+ * any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU Lesser General Public License for more details.
+ *
+ * Copyright (C) hdsdi3g for hd3g.tv 2019
+ *
+ */
+package tv.hd3g.processlauncher;
+
+import java.nio.ByteBuffer;
+
+/**
+ * Observer for CaptureStandardOutputBytes
+ */
+@FunctionalInterface
+public interface CapturedStdOutErrBytes {
+
+	/**
+	 * Called by the stream reader thread, for each readed chunk.
+	 * @param sequence chunk number for this stream, starts at 0
+	 * @param chunk read only, and reused for the next chunk: never keep a reference to it after this call.
+	 */
+	void onBytes(ProcesslauncherLifecycle source, boolean stdErr, long sequence, ByteBuffer chunk);
+
+	/**
+	 * Called by the stream reader thread, after the last chunk.
+	 */
+	default void onClosedStream(final ProcesslauncherLifecycle source, final boolean stdErr) {
+	}
+
+}
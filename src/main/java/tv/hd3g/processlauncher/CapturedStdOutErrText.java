@@ -34,8 +34,8 @@ public abstract class CapturedStdOutErrText {
 	}
 
 	public boolean isStreamsWatchIsStillAlive() {
-		return Optional.ofNullable(watchThreadStdout).map(Thread::isAlive).orElse(false) ||
-		       Optional.ofNullable(watchThreadStderr).map(Thread::isAlive).orElse(false);
+		return Optional.ofNullable(watchThreadStdout).map(StreamParser::isAlive).orElse(false) ||
+		       Optional.ofNullable(watchThreadStderr).map(StreamParser::isAlive).orElse(false);
 	}
 
 	/**
@@ -72,4 +72,11 @@ public abstract class CapturedStdOutErrText {
 
 	abstract void onText(LineEntry lineEntry);
 
+	/**
+	 * Called by a stream parser, after the last line of its stream.
+	 * @param error the read failure, or null if the stream is normally closed.
+	 */
+	void onStreamClosed(final boolean isStdErr, final Throwable error) {
+	}
+
 }
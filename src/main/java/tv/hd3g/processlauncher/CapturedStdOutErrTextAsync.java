@@ -0,0 +1,310 @@
+/*
+ * This file is part of processlauncher.
+ *
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation; either version 3 of the License, or
+ * any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU Lesser General Public License for more details.
+ *
+ * Copyright (C) hdsdi3g for hd3g.tv 2019
+ *
+ */
+package tv.hd3g.processlauncher;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Objects;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import tv.hd3g.processlauncher.CaptureStandardOutputText.StreamParser;
+
+/**
+ * Put captured lines in a bounded queue, and let a dedicated daemon thread push them to the observer.
+ * So, a slow observer can't slow down the stream parsers, and the process.
+ * Use waitForClosedStreams from this, not from the observer, for wait the end of the queue.
+ */
+public class CapturedStdOutErrTextAsync extends CapturedStdOutErrText {
+	private static Logger log = LogManager.getLogger();
+
+	private static final AtomicLong CREATED_THREAD_COUNTER = new AtomicLong(-1);
+	private static final long POLL_INTERVAL_MS = 10;
+
+	private final CapturedStdOutErrText observer;
+	private final ObserverOverflowPolicy overflowPolicy;
+	private final ArrayBlockingQueue<LineEntry> queue;
+	private final ConcurrentLinkedQueue<StreamClosed> closedStreams;
+	private final AtomicLong droppedLines;
+	private final AtomicLong overflows;
+	private volatile int sampleRate;
+	private volatile CountDownLatch consumerEnd;
+	private Thread consumer;
+
+	public CapturedStdOutErrTextAsync(final CapturedStdOutErrText observer,
+	                                  final int queueSize,
+	                                  final ObserverOverflowPolicy overflowPolicy) {
+		this.observer = Objects.requireNonNull(observer, "\"observer\" can't to be null");
+		this.overflowPolicy = Objects.requireNonNull(overflowPolicy, "\"overflowPolicy\" can't to be null");
+		if (queueSize < 1) {
+			throw new IllegalArgumentException("Invalid queueSize: " + queueSize);
+		}
+		queue = new ArrayBlockingQueue<>(queueSize);
+		closedStreams = new ConcurrentLinkedQueue<>();
+		droppedLines = new AtomicLong();
+		overflows = new AtomicLong();
+		sampleRate = 10;
+	}
+
+	/**
+	 * Only used with ObserverOverflowPolicy.SAMPLE, 10 by default.
+	 * @return this
+	 */
+	public CapturedStdOutErrTextAsync setSampleRate(final int sampleRate) {
+		if (sampleRate < 1) {
+			throw new IllegalArgumentException("Invalid sampleRate: " + sampleRate);
+		}
+		this.sampleRate = sampleRate;
+		return this;
+	}
+
+	@Override
+	void setWatchThreadStdout(final StreamParser watchThreadStdout) {
+		super.setWatchThreadStdout(watchThreadStdout);
+		observer.setWatchThreadStdout(watchThreadStdout);
+		startConsumer();
+	}
+
+	@Override
+	void setWatchThreadStderr(final StreamParser watchThreadStderr) {
+		super.setWatchThreadStderr(watchThreadStderr);
+		observer.setWatchThreadStderr(watchThreadStderr);
+		startConsumer();
+	}
+
+	/**
+	 * Restart the consumer if it has already ended (if the first stream was closed before the second was watched).
+	 */
+	private synchronized void startConsumer() {
+		if (consumer != null && consumerEnd.getCount() > 0) {
+			return;
+		}
+		final var end = new CountDownLatch(1);
+		consumerEnd = end;
+		consumer = new Thread(() -> consume(end));
+		consumer.setDaemon(true);
+		consumer.setName("Async observer TId#" + CREATED_THREAD_COUNTER.incrementAndGet());
+		consumer.start();
+	}
+
+	@Override
+	void onText(final LineEntry lineEntry) {
+		if (queue.offer(lineEntry)) {
+			return;
+		}
+		switch (overflowPolicy) {
+		case BLOCK:
+			try {
+				queue.put(lineEntry);
+			} catch (final InterruptedException e) {// NOSONAR
+				log.warn("Interrupted, drop line");
+				droppedLines.incrementAndGet();
+			}
+			break;
+		case DROP_OLDEST:
+			replaceOldest(lineEntry);
+			break;
+		case SAMPLE:
+			if (overflows.getAndIncrement() % sampleRate == 0) {
+				replaceOldest(lineEntry);
+			} else {
+				droppedLines.incrementAndGet();
+			}
+			break;
+		case DROP_NEWEST:
+		default:
+			droppedLines.incrementAndGet();
+			break;
+		}
+	}
+
+	private static class StreamClosed {
+		private final boolean isStdErr;
+		private final Throwable error;
+
+		private StreamClosed(final boolean isStdErr, final Throwable error) {
+			this.isStdErr = isStdErr;
+			this.error = error;
+		}
+	}
+
+	/**
+	 * Forwarded to the observer by the consumer, after the queued lines.
+	 */
+	@Override
+	void onStreamClosed(final boolean isStdErr, final Throwable error) {
+		closedStreams.add(new StreamClosed(isStdErr, error));
+		synchronized (this) {
+			if (consumer != null) {
+				return;
+			}
+		}
+		pushClosedStreams();
+	}
+
+	/**
+	 * The closed streams can't add lines, so if the queue is empty after they are closed, all their lines are pushed.
+	 */
+	private void pushClosedStreams() {
+		while (closedStreams.peek() != null && queue.isEmpty()) {
+			final var closed = closedStreams.poll();
+			if (closed == null) {
+				return;
+			}
+			try {
+				observer.onStreamClosed(closed.isStdErr, closed.error);
+			} catch (final RuntimeException e) {
+				log.error("Can't callback process stream closed event ", e);
+			}
+		}
+	}
+
+	private void replaceOldest(final LineEntry lineEntry) {
+		while (queue.offer(lineEntry) == false) {
+			if (queue.poll() != null) {
+				droppedLines.incrementAndGet();
+			}
+		}
+	}
+
+	private void consume(final CountDownLatch end) {
+		final var batch = new ArrayList<LineEntry>();
+		try {
+			while (true) {
+				pushClosedStreams();
+				final var first = queue.poll(POLL_INTERVAL_MS, TimeUnit.MILLISECONDS);
+				if (first == null) {
+					if (isStreamsWatchIsStillAlive() == false && queue.isEmpty()) {
+						pushClosedStreams();
+						return;
+					}
+					continue;
+				}
+				if (observer instanceof CapturedStdOutErrTextBatch) {
+					batch.add(first);
+					queue.drainTo(batch, ((CapturedStdOutErrTextBatch) observer).getMaxBatchSize() - 1);
+					pushBatch(batch);
+					batch.clear();
+				} else {
+					push(first);
+				}
+			}
+		} catch (final InterruptedException e) {// NOSONAR
+			log.warn("Async observer is interrupted, {} lines are not pushed", queue.size());
+		} finally {
+			end.countDown();
+		}
+	}
+
+	private void push(final LineEntry lineEntry) {
+		try {
+			observer.onText(lineEntry);
+		} catch (final RuntimeException e) {
+			log.error("Can't callback process text event ", e);
+		}
+	}
+
+	/**
+	 * Split batch by stream, like the stream parsers do.
+	 */
+	private void pushBatch(final List<LineEntry> batch) {
+		final var batchObserver = (CapturedStdOutErrTextBatch) observer;
+		var start = 0;
+		for (var pos = 1; pos <= batch.size(); pos++) {
+			if (pos == batch.size() || batch.get(pos).isStdErr() != batch.get(start).isStdErr()) {
+				try {
+					batchObserver.onTextBatch(new ArrayList<>(batch.subList(start, pos)));
+				} catch (final RuntimeException e) {
+					log.error("Can't callback process text batch event ", e);
+				}
+				start = pos;
+			}
+		}
+	}
+
+	/**
+	 * Blocking, until streams are closed, and all queued lines are pushed to the observer.
+	 */
+	@Override
+	public void waitForClosedStreams() {
+		super.waitForClosedStreams();
+		try {
+			if (consumerEnd != null) {
+				consumerEnd.await();
+			}
+		} catch (final InterruptedException e) {// NOSONAR
+			throw new IllegalStateException("Can't wait for async observer", e);
+		}
+	}
+
+	/**
+	 * Blocking, until streams are closed and all queued lines are pushed to the observer, or millis is expired.
+	 */
+	@Override
+	public void waitForClosedStreams(final long millis) {
+		final var start = System.currentTimeMillis();
+		super.waitForClosedStreams(millis);
+		try {
+			if (consumerEnd != null) {
+				consumerEnd.await(Math.max(0, millis - (System.currentTimeMillis() - start)),
+				        TimeUnit.MILLISECONDS);
+			}
+		} catch (final InterruptedException e) {// NOSONAR
+			throw new IllegalStateException("Can't wait for async observer", e);
+		}
+	}
+
+	public CapturedStdOutErrText getObserver() {
+		return observer;
+	}
+
+	public ObserverOverflowPolicy getOverflowPolicy() {
+		return overflowPolicy;
+	}
+
+	/**
+	 * @return the actual queued lines count, not yet pushed to the observer.
+	 */
+	public int getLag() {
+		return queue.size();
+	}
+
+	/**
+	 * @return the age of the older queued line, in milliseconds, or 0 if the queue is empty.
+	 */
+	public long getLagMillis() {
+		final var older = queue.peek();
+		if (older == null) {
+			return 0;
+		}
+		return Math.max(0, System.currentTimeMillis() - older.getDate());
+	}
+
+	/**
+	 * @return the lines count never pushed to the observer, due to the overflow policy.
+	 */
+	public long getDroppedLinesCount() {
+		return droppedLines.get();
+	}
+
+}
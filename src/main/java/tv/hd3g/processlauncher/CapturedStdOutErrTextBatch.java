@@ -0,0 +1,78 @@
+/*
+ * This file is part of processlauncher.
+ *
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation; either version 3 of the License, or
+ * any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU Lesser General Public License for more details.
+ *
+ * Copyright (C) hdsdi3g for hd3g.tv 2019
+ *
+ */
+package tv.hd3g.processlauncher;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Objects;
+
+/**
+ * Get captured lines by batches, instead of one call by line.
+ * A batch is pushed when it contains maxBatchSize lines, when its first line is older than maxBatchDelay, or when the
+ * stream has no more bytes to read right now (so a silent process never keeps lines in a pending batch), and no
+ * unterminated line is pending (the last line without line terminator is added to the last batch, at the stream end).
+ * Stdout and stderr lines are never mixed in a batch, and they can be pushed in parallel, by each stream parser.
+ */
+public abstract class CapturedStdOutErrTextBatch extends CapturedStdOutErrText {
+
+	public static final int DEFAULT_MAX_BATCH_SIZE = 256;
+	public static final Duration DEFAULT_MAX_BATCH_DELAY = Duration.ofMillis(5);
+
+	private final int maxBatchSize;
+	private final long maxBatchDelayNanos;
+
+	protected CapturedStdOutErrTextBatch(final int maxBatchSize, final Duration maxBatchDelay) {
+		if (maxBatchSize < 1) {
+			throw new IllegalArgumentException("Invalid maxBatchSize: " + maxBatchSize);
+		}
+		Objects.requireNonNull(maxBatchDelay, "\"maxBatchDelay\" can't to be null");
+		if (maxBatchDelay.isNegative()) {
+			throw new IllegalArgumentException("Invalid maxBatchDelay: " + maxBatchDelay);
+		}
+		this.maxBatchSize = maxBatchSize;
+		maxBatchDelayNanos = maxBatchDelay.toNanos();
+	}
+
+	/**
+	 * With DEFAULT_MAX_BATCH_SIZE and DEFAULT_MAX_BATCH_DELAY
+	 */
+	protected CapturedStdOutErrTextBatch() {
+		this(DEFAULT_MAX_BATCH_SIZE, DEFAULT_MAX_BATCH_DELAY);
+	}
+
+	/**
+	 * @param lineEntries never empty, in capture order, from the same stream. This list is not reused after the call.
+	 */
+	public abstract void onTextBatch(List<LineEntry> lineEntries);
+
+	/**
+	 * Not used by stream parsers, only for direct calls.
+	 */
+	@Override
+	void onText(final LineEntry lineEntry) {
+		onTextBatch(List.of(lineEntry));
+	}
+
+	public int getMaxBatchSize() {
+		return maxBatchSize;
+	}
+
+	long getMaxBatchDelayNanos() {
+		return maxBatchDelayNanos;
+	}
+
+}
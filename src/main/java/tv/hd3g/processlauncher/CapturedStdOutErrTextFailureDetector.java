@@ -0,0 +1,198 @@
+/*
+ * This file is part of processlauncher.
+ *
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation; either version 3 of the License, or
+ * any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU Lesser General Public License for more details.
+ *
+ * Copyright (C) hdsdi3g for hd3g.tv 2019
+ *
+ */
+package tv.hd3g.processlauncher;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.regex.Pattern;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+/**
+ * Search fatal messages (like "No space left on device") in captured lines, and kill the process as soon as one is found,
+ * or just record it.
+ * All the literals are searched in a single pass by line (Aho-Corasick), before the regex, tested one by one.
+ * Only the first match by rule is recorded.
+ */
+public class CapturedStdOutErrTextFailureDetector extends CapturedStdOutErrText {
+	private static Logger log = LogManager.getLogger();
+
+	private final CapturedStreams streams;
+	private final boolean killOnMatch;
+	private final List<Rule> literalRules;
+	private final List<Rule> regexRules;
+	private final List<FailurePatternMatch> matches;
+	private final Set<Rule> firedRules;
+	private volatile AhoCorasickMatcher literalsMatcher;
+
+	private static class Rule {
+		final String name;
+		final String pattern;
+		final Pattern regex;
+
+		Rule(final String name, final String pattern, final Pattern regex) {
+			this.name = name;
+			this.pattern = pattern;
+			this.regex = regex;
+		}
+	}
+
+	/**
+	 * @param killOnMatch if true, kill the process (and its tree) on the first match, else just record the matches.
+	 */
+	public CapturedStdOutErrTextFailureDetector(final CapturedStreams streams, final boolean killOnMatch) {
+		this.streams = Objects.requireNonNull(streams, "\"streams\" can't to be null");
+		this.killOnMatch = killOnMatch;
+		literalRules = new CopyOnWriteArrayList<>();
+		regexRules = new CopyOnWriteArrayList<>();
+		matches = new ArrayList<>();
+		firedRules = new HashSet<>();
+	}
+
+	/**
+	 * Kill on match, only for stderr.
+	 */
+	public CapturedStdOutErrTextFailureDetector() {
+		this(CapturedStreams.ONLY_STDERR, true);
+	}
+
+	/**
+	 * @param literal case sensitive, searched anywhere in the line
+	 */
+	public synchronized CapturedStdOutErrTextFailureDetector addLiteral(final String ruleName, final String literal) {
+		Objects.requireNonNull(ruleName, "\"ruleName\" can't to be null");
+		Objects.requireNonNull(literal, "\"literal\" can't to be null");
+		if (literal.isEmpty()) {
+			throw new IllegalArgumentException("Invalid empty literal for " + ruleName);
+		}
+		literalRules.add(new Rule(ruleName, literal, null));
+		literalsMatcher = null;
+		return this;
+	}
+
+	/**
+	 * @param regex searched anywhere in the line (Matcher.find)
+	 */
+	public synchronized CapturedStdOutErrTextFailureDetector addRegex(final String ruleName, final Pattern regex) {
+		Objects.requireNonNull(ruleName, "\"ruleName\" can't to be null");
+		Objects.requireNonNull(regex, "\"regex\" can't to be null");
+		regexRules.add(new Rule(ruleName, regex.pattern(), regex));
+		return this;
+	}
+
+	/**
+	 * @param regex searched anywhere in the line (Matcher.find)
+	 */
+	public CapturedStdOutErrTextFailureDetector addRegex(final String ruleName, final String regex) {
+		Objects.requireNonNull(regex, "\"regex\" can't to be null");
+		return addRegex(ruleName, Pattern.compile(regex));
+	}
+
+	public boolean isKillOnMatch() {
+		return killOnMatch;
+	}
+
+	/**
+	 * @return the first match by rule, in match order
+	 */
+	public synchronized List<FailurePatternMatch> getMatches() {
+		return List.copyOf(matches);
+	}
+
+	public synchronized Optional<FailurePatternMatch> getFirstMatch() {
+		return matches.stream().findFirst();
+	}
+
+	public synchronized boolean hasMatch() {
+		return matches.isEmpty() == false;
+	}
+
+	private synchronized AhoCorasickMatcher getLiteralsMatcher() {
+		if (literalsMatcher == null && literalRules.isEmpty() == false) {
+			final var literals = new ArrayList<String>(literalRules.size());
+			literalRules.forEach(r -> literals.add(r.pattern));
+			literalsMatcher = new AhoCorasickMatcher(literals);
+		}
+		return literalsMatcher;
+	}
+
+	/**
+	 * @return the first rule found in line, else null
+	 */
+	private Rule search(final String line) {
+		var matcher = literalsMatcher;
+		if (matcher == null) {
+			matcher = getLiteralsMatcher();
+		}
+		if (matcher != null) {
+			final var index = matcher.indexOf(line);
+			if (index > -1) {
+				return literalRules.get(index);
+			}
+		}
+		for (final var rule : regexRules) {
+			if (rule.regex.matcher(line).find()) {
+				return rule;
+			}
+		}
+		return null;
+	}
+
+	@Override
+	void onText(final LineEntry lineEntry) {
+		if (lineEntry.canUseThis(streams) == false) {
+			return;
+		}
+		final var rule = search(lineEntry.getLine());
+		if (rule == null) {
+			return;
+		}
+
+		final var match = new FailurePatternMatch(rule.name, rule.pattern, rule.regex != null, lineEntry);
+		synchronized (this) {
+			if (firedRules.add(rule)) {
+				matches.add(match);
+			}
+		}
+
+		final var source = lineEntry.getSource();
+		if (killOnMatch && source != null && killOnce(source)) {
+			log.warn("Failure pattern found {}, kill {}", match, source);
+		} else {
+			log.debug("Failure pattern found {}", match);
+		}
+	}
+
+	/**
+	 * Only the first match starts a kill: the next lines of a killed process are just recorded.
+	 * @return false if the process is not running or is already killed
+	 */
+	private synchronized boolean killOnce(final ProcesslauncherLifecycle source) {
+		if (source.isKilled() || Boolean.TRUE.equals(source.isRunning()) == false) {
+			return false;
+		}
+		source.kill();
+		return true;
+	}
+
+}
@@ -0,0 +1,119 @@
+/*
+ * This file is part of processlauncher.
+ *
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation; either version 3 of the License, or
+ * any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU Lesser General Public License for more details.
+ *
+ * Copyright (C) hdsdi3g for hd3g.tv 2019
+ *
+ */
+package tv.hd3g.processlauncher;
+
+import java.util.Arrays;
+import java.util.Objects;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+
+import org.apache.logging.log4j.Level;
+import org.apache.logging.log4j.Logger;
+
+/**
+ * Send captured lines to a Log4j Logger, like "execName ✅ line" for stdout and "execName ❌ line" for stderr.
+ * Lines are sent as parameters of a constant message, without intermediate String (garbage-free with the Log4j
+ * reusable messages), and never formatted if their level is disabled.
+ * Enabled levels are cached for 1 second, so a Log4j reconfiguration is applied with this delay.
+ */
+public class CapturedStdOutErrTextLogger extends CapturedStdOutErrText {
+
+	private static final String STDOUT_MESSAGE = "{} ✅ {}";
+	private static final String STDERR_MESSAGE = "{} ❌ {}";
+	private static final long ENABLED_LEVELS_CACHE_TTL_NANOS = TimeUnit.SECONDS.toNanos(1);
+
+	private final Logger log;
+	private final Function<LineEntry, Level> levelMapper;
+	private volatile EnabledLevels enabledLevels;
+
+	/**
+	 * Immutable, replaced on each new level, and on expiration.
+	 */
+	private static class EnabledLevels {
+		final Level[] levels;
+		final boolean[] enabled;
+		final long expiration;
+
+		EnabledLevels(final Level[] levels, final boolean[] enabled, final long expiration) {
+			this.levels = levels;
+			this.enabled = enabled;
+			this.expiration = expiration;
+		}
+	}
+
+	/**
+	 * @param levelMapper return the Level to log the line, or null for discard it.
+	 */
+	public CapturedStdOutErrTextLogger(final Logger log, final Function<LineEntry, Level> levelMapper) {
+		this.log = Objects.requireNonNull(log, "\"log\" can't to be null");
+		this.levelMapper = Objects.requireNonNull(levelMapper, "\"levelMapper\" can't to be null");
+		enabledLevels = new EnabledLevels(new Level[0], new boolean[0], System.nanoTime());
+	}
+
+	public Logger getLogger() {
+		return log;
+	}
+
+	boolean isEnabled(final Level level) {
+		final var cache = enabledLevels;
+		if (System.nanoTime() - cache.expiration < 0) {
+			for (var pos = 0; pos < cache.levels.length; pos++) {
+				if (cache.levels[pos] == level) {
+					return cache.enabled[pos];
+				}
+			}
+		}
+		return updateEnabledLevels(level);
+	}
+
+	private synchronized boolean updateEnabledLevels(final Level level) {
+		var cache = enabledLevels;
+		final var now = System.nanoTime();
+		if (now - cache.expiration >= 0) {
+			cache = new EnabledLevels(new Level[0], new boolean[0], now + ENABLED_LEVELS_CACHE_TTL_NANOS);
+		}
+		for (var pos = 0; pos < cache.levels.length; pos++) {
+			if (cache.levels[pos] == level) {
+				enabledLevels = cache;
+				return cache.enabled[pos];
+			}
+		}
+
+		final var size = cache.levels.length;
+		final var levels = Arrays.copyOf(cache.levels, size + 1);
+		final var enabled = Arrays.copyOf(cache.enabled, size + 1);
+		levels[size] = level;
+		enabled[size] = log.isEnabled(level);
+		enabledLevels = new EnabledLevels(levels, enabled, cache.expiration);
+		return enabled[size];
+	}
+
+	@Override
+	void onText(final LineEntry lineEntry) {
+		final var level = levelMapper.apply(lineEntry);
+		if (level == null || isEnabled(level) == false) {
+			return;
+		}
+		final var execName = lineEntry.getSource().getLauncher().getExecutableName();
+		if (lineEntry.isStdErr()) {
+			log.log(level, STDERR_MESSAGE, execName, lineEntry.getLine());
+		} else {
+			log.log(level, STDOUT_MESSAGE, execName, lineEntry.getLine());
+		}
+	}
+
+}
@@ -0,0 +1,218 @@
+/*
+ * This file is part of processlauncher.
+ *
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation; either version 3 of the License, or
+ * any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU Lesser General Public License for more details.
+ *
+ * Copyright (C) hdsdi3g for hd3g.tv 2019
+ *
+ */
+package tv.hd3g.processlauncher;
+
+import java.time.Duration;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.function.Consumer;
+
+import tv.hd3g.processlauncher.KeyValueTokenizer.TokenHandler;
+
+/**
+ * Read progress values from "key=value" and "key: value" lines, like ffmpeg "-progress pipe:1" outputs and
+ * ffmpeg stats, without regex. Known keys: frame, fps, out_time_us, out_time, time, speed, percent, progress
+ * ("end", "continue", or a percent) and Duration (the media duration, for compute the percent).
+ * A snapshot is produced on a "progress" key (the end of an ffmpeg -progress block), on a line with a "percent" key,
+ * or on a line with two or more known keys, like ffmpeg stats. Snapshots are throttled, except the end one.
+ */
+public class CapturedStdOutErrTextProgress extends CapturedStdOutErrText {
+
+	public static final Duration DEFAULT_MIN_INTERVAL = Duration.ofMillis(500);
+
+	private final CapturedStreams streams;
+	private final long minIntervalNanos;
+	private final Consumer<ProgressSnapshot> onProgress;
+	private final TokenHandler tokenHandler;
+
+	private long frame;
+	private double fps;
+	private long outTimeNanos;
+	private double speed;
+	private double percent;
+	private long mediaDurationNanos;
+	private boolean end;
+
+	private int lineKnownKeys;
+	private boolean lineTriggers;
+	private boolean emitted;
+	private long lastEmitNanos;
+	private volatile ProgressSnapshot lastSnapshot;
+
+	/**
+	 * @param minInterval between two snapshots. Duration.ZERO for not throttle.
+	 */
+	public CapturedStdOutErrTextProgress(final CapturedStreams streams,
+	                                     final Duration minInterval,
+	                                     final Consumer<ProgressSnapshot> onProgress) {
+		this.streams = Objects.requireNonNull(streams, "\"streams\" can't to be null");
+		Objects.requireNonNull(minInterval, "\"minInterval\" can't to be null");
+		this.onProgress = Objects.requireNonNull(onProgress, "\"onProgress\" can't to be null");
+		if (minInterval.isNegative()) {
+			throw new IllegalArgumentException("Invalid minInterval: " + minInterval);
+		}
+		minIntervalNanos = minInterval.toNanos();
+		tokenHandler = this::onToken;
+		frame = -1;
+		fps = Double.NaN;
+		outTimeNanos = Long.MIN_VALUE;
+		speed = Double.NaN;
+		percent = Double.NaN;
+	}
+
+	/**
+	 * Both stdout and stderr, with DEFAULT_MIN_INTERVAL
+	 */
+	public CapturedStdOutErrTextProgress(final Consumer<ProgressSnapshot> onProgress) {
+		this(CapturedStreams.BOTH_STDOUT_STDERR, DEFAULT_MIN_INTERVAL, onProgress);
+	}
+
+	/**
+	 * @param mediaDuration for compute the percent from the out time, if the process don't display a "Duration: "
+	 */
+	public synchronized CapturedStdOutErrTextProgress setMediaDuration(final Duration mediaDuration) {
+		mediaDurationNanos = Objects.requireNonNull(mediaDuration, "\"mediaDuration\" can't to be null").toNanos();
+		return this;
+	}
+
+	/**
+	 * @return the last produced snapshot
+	 */
+	public Optional<ProgressSnapshot> getLastSnapshot() {
+		return Optional.ofNullable(lastSnapshot);
+	}
+
+	private void onToken(final String line,
+	                     final int keyStart,
+	                     final int keyEnd,
+	                     final int valueStart,
+	                     final int valueEnd) {
+		switch (keyEnd - keyStart) {
+		case 3:
+			if (KeyValueTokenizer.keyIs(line, keyStart, keyEnd, "fps")) {
+				final var value = KeyValueTokenizer.parseDecimal(line, valueStart, valueEnd);
+				if (Double.isNaN(value) == false) {
+					fps = value;
+				}
+				lineKnownKeys++;
+			}
+			break;
+		case 4:
+			if (KeyValueTokenizer.keyIs(line, keyStart, keyEnd, "time")) {
+				setOutTime(KeyValueTokenizer.parseTimeNanos(line, valueStart, valueEnd));
+			}
+			break;
+		case 5:
+			if (KeyValueTokenizer.keyIs(line, keyStart, keyEnd, "frame")) {
+				final var value = KeyValueTokenizer.parsePositiveLong(line, valueStart, valueEnd);
+				if (value > -1) {
+					frame = value;
+				}
+				lineKnownKeys++;
+			} else if (KeyValueTokenizer.keyIs(line, keyStart, keyEnd, "speed")) {
+				final var value = KeyValueTokenizer.parseDecimal(line, valueStart, valueEnd);
+				if (Double.isNaN(value) == false) {
+					speed = value;
+				}
+				lineKnownKeys++;
+			}
+			break;
+		case 7:
+			if (KeyValueTokenizer.keyIs(line, keyStart, keyEnd, "percent")) {
+				setPercent(KeyValueTokenizer.parseDecimal(line, valueStart, valueEnd));
+			}
+			break;
+		case 8:
+			if (KeyValueTokenizer.keyIs(line, keyStart, keyEnd, "out_time")) {
+				setOutTime(KeyValueTokenizer.parseTimeNanos(line, valueStart, valueEnd));
+			} else if (KeyValueTokenizer.keyIs(line, keyStart, keyEnd, "progress")) {
+				onProgressKey(line, valueStart, valueEnd);
+			} else if (KeyValueTokenizer.keyIs(line, keyStart, keyEnd, "Duration")) {
+				final var value = KeyValueTokenizer.parseTimeNanos(line, valueStart, valueEnd);
+				if (value > 0) {
+					mediaDurationNanos = value;
+				}
+			}
+			break;
+		case 11:
+			if (KeyValueTokenizer.keyIs(line, keyStart, keyEnd, "out_time_us")) {
+				final var value = KeyValueTokenizer.parsePositiveLong(line, valueStart, valueEnd);
+				setOutTime(value > -1 ? value * 1000L : Long.MIN_VALUE);
+			}
+			break;
+		default:
+			break;
+		}
+	}
+
+	private void setOutTime(final long nanos) {
+		if (nanos >= 0) {
+			outTimeNanos = nanos;
+		}
+		lineKnownKeys++;
+	}
+
+	private void setPercent(final double value) {
+		if (Double.isNaN(value) == false) {
+			percent = value;
+		}
+		lineKnownKeys++;
+		lineTriggers = true;
+	}
+
+	private void onProgressKey(final String line, final int valueStart, final int valueEnd) {
+		if (KeyValueTokenizer.keyIs(line, valueStart, valueEnd, "end")) {
+			end = true;
+		} else if (KeyValueTokenizer.keyIs(line, valueStart, valueEnd, "continue") == false) {
+			setPercent(KeyValueTokenizer.parseDecimal(line, valueStart, valueEnd));
+			return;
+		}
+		lineKnownKeys++;
+		lineTriggers = true;
+	}
+
+	/**
+	 * onProgress is called by the stream parser thread.
+	 */
+	@Override
+	synchronized void onText(final LineEntry lineEntry) {
+		if (lineEntry.canUseThis(streams) == false) {
+			return;
+		}
+		lineKnownKeys = 0;
+		lineTriggers = false;
+		KeyValueTokenizer.tokenize(lineEntry.getLine(), tokenHandler);
+		if (lineTriggers == false && lineKnownKeys < 2) {
+			return;
+		}
+
+		final var now = System.nanoTime();
+		if (end == false && emitted && now - lastEmitNanos < minIntervalNanos) {
+			return;
+		}
+		emitted = true;
+		lastEmitNanos = now;
+
+		var actualPercent = percent;
+		if (Double.isNaN(actualPercent) && outTimeNanos >= 0 && mediaDurationNanos > 0) {
+			actualPercent = Math.min(100d, outTimeNanos * 100d / mediaDurationNanos);
+		}
+		lastSnapshot = new ProgressSnapshot(frame, fps, outTimeNanos, speed, actualPercent, end, lineEntry);
+		onProgress.accept(lastSnapshot);
+	}
+
+}
@@ -0,0 +1,273 @@
+/*
+ * This file is part of processlauncher.
+ *
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation; either version 3 of the License, or
+ * any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU Lesser General Public License for more details.
+ *
+ * Copyright (C) hdsdi3g for hd3g.tv 2019
+ *
+ */
+package tv.hd3g.processlauncher;
+
+import java.util.Objects;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.concurrent.Flow;
+import java.util.concurrent.Flow.Subscriber;
+import java.util.concurrent.Flow.Subscription;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import tv.hd3g.processlauncher.CaptureStandardOutputText.StreamParser;
+
+/**
+ * Publish the captured lines of one process to one subscriber, without queue: until the subscriber requests more lines,
+ * the stream parser waits, so the process is paused when its output pipe is full.
+ * onComplete is called when all captured streams are closed, onError if a stream can't be read.
+ * Create it with CaptureStandardOutputText.addPublisher(), before each process start: it's bound to the first started
+ * process, ignored by the next ones, and removed from its CaptureStandardOutputText when terminated or canceled.
+ * A canceled subscription unblocks the stream parsers, and the next lines are dropped.
+ */
+public class CapturedStdOutErrTextPublisher extends CapturedStdOutErrText implements Flow.Publisher<LineEntry> {
+	private static Logger log = LogManager.getLogger();
+
+	private int openedStreams;
+	private Throwable error;
+	private boolean done;
+	private volatile ProcesslauncherLifecycle source;
+	private final CaptureStandardOutputText owner;
+
+	private Subscriber<? super LineEntry> subscriber;
+	private long demand;
+	private boolean cancelled;
+	private boolean terminated;
+
+	/**
+	 * @param owner to remove this publisher from it when terminated, can be null.
+	 * @param streamsCount captured streams count (1 or 2), for know when call onComplete.
+	 */
+	CapturedStdOutErrTextPublisher(final CaptureStandardOutputText owner, final int streamsCount) {
+		if (streamsCount < 1 || streamsCount > 2) {
+			throw new IllegalArgumentException("Invalid streamsCount: " + streamsCount);
+		}
+		this.owner = owner;
+		openedStreams = streamsCount;
+	}
+
+	/**
+	 * @param streamsCount captured streams count (1 or 2), for know when call onComplete.
+	 */
+	CapturedStdOutErrTextPublisher(final int streamsCount) {
+		this(null, streamsCount);
+	}
+
+	/**
+	 * Called by a StreamParser before it starts.
+	 * @return false if this publisher is already bound to another process, or is terminated: the parser must ignore it.
+	 */
+	synchronized boolean bind(final ProcesslauncherLifecycle source) {
+		if (this.source == null && done == false && cancelled == false) {
+			this.source = source;
+			source.setLinePublisher(this);
+		}
+		return this.source == source;
+	}
+
+	@Override
+	void setWatchThreadStdout(final StreamParser watchThreadStdout) {
+		if (watchThreadStdout == null || watchThreadStdout.getSource() == source) {
+			super.setWatchThreadStdout(watchThreadStdout);
+		}
+	}
+
+	@Override
+	void setWatchThreadStderr(final StreamParser watchThreadStderr) {
+		if (watchThreadStderr == null || watchThreadStderr.getSource() == source) {
+			super.setWatchThreadStderr(watchThreadStderr);
+		}
+	}
+
+	/**
+	 * @return the published process, or null if it's not yet started.
+	 */
+	ProcesslauncherLifecycle getSource() {
+		return source;
+	}
+
+	/**
+	 * Only one subscriber is accepted: the others get an onError(IllegalStateException).
+	 */
+	@Override
+	public void subscribe(final Subscriber<? super LineEntry> subscriber) {
+		Objects.requireNonNull(subscriber, "\"subscriber\" can't to be null");
+		synchronized (this) {
+			if (this.subscriber == null) {
+				this.subscriber = subscriber;
+				subscriber.onSubscribe(new LineSubscription());
+				if (done) {
+					terminate();
+				}
+				return;
+			}
+		}
+		subscriber.onSubscribe(new Subscription() {
+
+			@Override
+			public void request(final long n) {
+				// Nothing to publish
+			}
+
+			@Override
+			public void cancel() {
+				// Nothing to cancel
+			}
+		});
+		subscriber.onError(new IllegalStateException("This publisher accepts only one subscriber"));
+	}
+
+	/**
+	 * Subscribe a blocking iterator.
+	 * @param bufferSize max lines count waiting in the iterator
+	 */
+	public LineEntryIterator iterator(final int bufferSize) {
+		return new LineEntryIterator(this, bufferSize);
+	}
+
+	/**
+	 * Subscribe a blocking iterator, with LineEntryIterator.DEFAULT_BUFFER_SIZE
+	 */
+	public LineEntryIterator iterator() {
+		return iterator(LineEntryIterator.DEFAULT_BUFFER_SIZE);
+	}
+
+	/**
+	 * Subscribe a blocking and sequential stream, ended when all captured streams are closed.
+	 * Close it (like with a try-with-resources) if it's not read to the end, else the process will be stuck.
+	 */
+	public Stream<LineEntry> stream() {
+		final var iterator = iterator();
+		return StreamSupport.stream(Spliterators.spliteratorUnknownSize(iterator,
+		        Spliterator.ORDERED | Spliterator.NONNULL), false).onClose(iterator::close);
+	}
+
+	private class LineSubscription implements Subscription {
+
+		@Override
+		public void request(final long n) {
+			synchronized (CapturedStdOutErrTextPublisher.this) {
+				if (cancelled || terminated) {
+					return;
+				}
+				if (n < 1) {
+					cancelled = true;
+					terminated = true;
+					CapturedStdOutErrTextPublisher.this.notifyAll();
+					subscriber.onError(new IllegalArgumentException("Invalid request: " + n));
+					return;
+				}
+				demand += n;
+				if (demand < 0) {
+					demand = Long.MAX_VALUE;
+				}
+				CapturedStdOutErrTextPublisher.this.notifyAll();
+			}
+		}
+
+		@Override
+		public void cancel() {
+			synchronized (CapturedStdOutErrTextPublisher.this) {
+				cancelled = true;
+				CapturedStdOutErrTextPublisher.this.notifyAll();
+			}
+			unregister();
+		}
+	}
+
+	private boolean isClosed() {
+		return cancelled || terminated || done;
+	}
+
+	/**
+	 * Blocking, until the subscriber requests a line, or cancels.
+	 * The lines of another process than the bound one are ignored.
+	 */
+	@Override
+	synchronized void onText(final LineEntry lineEntry) {
+		if (source != null && lineEntry.getSource() != source) {
+			return;
+		}
+		try {
+			while (demand == 0 && isClosed() == false) {
+				wait();
+			}
+		} catch (final InterruptedException e) {// NOSONAR
+			log.warn("Interrupted, drop line");
+			return;
+		}
+		if (isClosed()) {
+			return;
+		}
+		demand--;
+		try {
+			subscriber.onNext(lineEntry);
+		} catch (final RuntimeException e) {
+			log.error("Subscriber has failed, cancel its subscription", e);
+			cancelled = true;
+		}
+	}
+
+	@Override
+	void onStreamClosed(final boolean isStdErr, final Throwable error) {
+		synchronized (this) {
+			if (done) {
+				return;
+			}
+			if (error != null && this.error == null) {
+				this.error = error;
+			}
+			openedStreams--;
+			if (openedStreams > 0) {
+				return;
+			}
+			done = true;
+			notifyAll();
+			if (subscriber != null) {
+				terminate();
+			}
+		}
+		unregister();
+	}
+
+	private void unregister() {
+		if (owner != null) {
+			owner.removeObserver(this);
+		}
+	}
+
+	private void terminate() {
+		if (cancelled || terminated) {
+			return;
+		}
+		terminated = true;
+		try {
+			if (error != null) {
+				subscriber.onError(error);
+			} else {
+				subscriber.onComplete();
+			}
+		} catch (final RuntimeException e) {
+			log.error("Can't callback subscriber end", e);
+		}
+	}
+
+}
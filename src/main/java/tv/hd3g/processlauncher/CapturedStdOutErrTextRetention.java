@@ -16,19 +16,60 @@
  */
 package tv.hd3g.processlauncher;
 
+import java.io.File;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
 import java.util.Objects;
-import java.util.concurrent.LinkedBlockingQueue;
-import java.util.stream.Collectors;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.function.Supplier;
 import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
 
+import tv.hd3g.processlauncher.LineEntryStore.SequencedLineEntry;
+
+/**
+ * Stdout and stderr lines are kept separately, so reading one of them don't walk on the other.
+ * Joined texts are cached until the next line is added.
+ */
 public class CapturedStdOutErrTextRetention extends CapturedStdOutErrText {
 
 	private final CapturedStreams streamToKeep;
-	private final LinkedBlockingQueue<LineEntry> lineEntries;
+	private final LineEntryStore stdoutLines;
+	private final LineEntryStore stderrLines;
+	private final JoinedTextCache stdoutCache;
+	private final JoinedTextCache stderrCache;
+	private final JoinedTextCache stdouterrCache;
+	private long sequence;
+
+	/**
+	 * @param limits by stream: when reached, lines are dropped (see getDroppedLinesCount)
+	 */
+	public CapturedStdOutErrTextRetention(final CapturedStreams streamToKeep, final LineRetentionLimits limits) {
+		this(streamToKeep, new LineEntryRingBuffer(limits), new LineEntryRingBuffer(limits));
+	}
+
+	/**
+	 * Keep all lines, but only the last inHeapLines by stream in memory: the older lines are spilled to append-only
+	 * temp files, and read back lazily from memory mapped files by the get* methods. Temp files are deleted when this
+	 * retention is garbage collected.
+	 * @param spillDirectory where to create temp files, or null for the default temp directory
+	 */
+	public CapturedStdOutErrTextRetention(final CapturedStreams streamToKeep,
+	                                      final int inHeapLines,
+	                                      final File spillDirectory) {
+		this(streamToKeep,
+		        new SpillToDiskLineEntryStore(inHeapLines, spillDirectory,
+		                SpillToDiskLineEntryStore.DEFAULT_SEGMENT_SIZE),
+		        new SpillToDiskLineEntryStore(inHeapLines, spillDirectory,
+		                SpillToDiskLineEntryStore.DEFAULT_SEGMENT_SIZE));
+	}
 
+	/**
+	 * With LineRetentionLimits.UNLIMITED
+	 */
 	public CapturedStdOutErrTextRetention(final CapturedStreams streamToKeep) {
-		this.streamToKeep = Objects.requireNonNull(streamToKeep, "\"streamToKeep\" can't to be null");
-		lineEntries = new LinkedBlockingQueue<>();
+		this(streamToKeep, LineRetentionLimits.UNLIMITED);
 	}
 
 	/**
@@ -38,50 +79,163 @@ public class CapturedStdOutErrTextRetention extends CapturedStdOutErrText {
 		this(CapturedStreams.BOTH_STDOUT_STDERR);
 	}
 
+	private CapturedStdOutErrTextRetention(final CapturedStreams streamToKeep,
+	                                       final LineEntryStore stdoutLines,
+	                                       final LineEntryStore stderrLines) {
+		this.streamToKeep = Objects.requireNonNull(streamToKeep, "\"streamToKeep\" can't to be null");
+		this.stdoutLines = stdoutLines;
+		this.stderrLines = stderrLines;
+		stdoutCache = new JoinedTextCache();
+		stderrCache = new JoinedTextCache();
+		stdouterrCache = new JoinedTextCache();
+	}
+
+	/**
+	 * Keep all lines in memory, for processes with a lot of lines: lines texts are packed in shared byte arrays, and
+	 * only converted to String on read.
+	 */
+	public static CapturedStdOutErrTextRetention createCompact(final CapturedStreams streamToKeep) {
+		return new CapturedStdOutErrTextRetention(streamToKeep,
+		        new CompactLineEntryStore(),
+		        new CompactLineEntryStore());
+	}
+
+	/**
+	 * Keep all lines in memory, for long running processes: by stream, lines are grouped in blocks of blockSize bytes,
+	 * and each full block is compressed. Only the current block stays uncompressed. The get* methods inflate the
+	 * blocks one by one, during the stream reading.
+	 * @param blockSize like 64 KB
+	 */
+	public static CapturedStdOutErrTextRetention createCompressed(final CapturedStreams streamToKeep,
+	                                                              final int blockSize) {
+		return new CapturedStdOutErrTextRetention(streamToKeep,
+		        new DeflatedLineEntryStore(blockSize),
+		        new DeflatedLineEntryStore(blockSize));
+	}
+
+	/**
+	 * With 64 KB blocks
+	 * @see #createCompressed(CapturedStreams, int)
+	 */
+	public static CapturedStdOutErrTextRetention createCompressed(final CapturedStreams streamToKeep) {
+		return createCompressed(streamToKeep, DeflatedLineEntryStore.DEFAULT_BLOCK_SIZE);
+	}
+
 	@Override
 	void onText(final LineEntry lineEntry) {
 		if (lineEntry.canUseThis(streamToKeep) == false) {
 			return;
 		}
-		lineEntries.add(lineEntry);
+		synchronized (this) {
+			if (lineEntry.isStdErr()) {
+				stderrLines.add(lineEntry, sequence++);
+			} else {
+				stdoutLines.add(lineEntry, sequence++);
+			}
+		}
+	}
+
+	/**
+	 * Only needed with spilled lines: close and delete now the temp files, instead of on garbage collection.
+	 * The spilled lines are dropped, only the in heap lines stay readable.
+	 */
+	public synchronized void close() {
+		stdoutLines.close();
+		stderrLines.close();
+		stdoutCache.cachedSequence = -1;
+		stderrCache.cachedSequence = -1;
+		stdouterrCache.cachedSequence = -1;
+	}
+
+	/**
+	 * @return the lines not kept due to the LineRetentionLimits
+	 */
+	public synchronized long getDroppedLinesCount() {
+		return stdoutLines.getDroppedLines() + stderrLines.getDroppedLines();
+	}
+
+	/**
+	 * @param keepEmptyLines if set false, don't count empty lines
+	 */
+	public synchronized long getStdoutLinesCount(final boolean keepEmptyLines) {
+		return stdoutLines.size() - (keepEmptyLines ? 0 : stdoutLines.getEmptyLines());
+	}
+
+	/**
+	 * @param keepEmptyLines if set false, don't count empty lines
+	 */
+	public synchronized long getStderrLinesCount(final boolean keepEmptyLines) {
+		return stderrLines.size() - (keepEmptyLines ? 0 : stderrLines.getEmptyLines());
+	}
+
+	private static Stream<LineEntry> filterEmpty(final Stream<LineEntry> lines,
+	                                             final LineEntryStore store,
+	                                             final boolean keepEmptyLines) {
+		if (keepEmptyLines || store.getEmptyLines() == 0) {
+			return lines;
+		}
+		return lines.filter(le -> le.getLine().isEmpty() == false);
 	}
 
 	/**
 	 * Only set if setKeepStdout is set (false by default), else return empty stream.
 	 */
-	public Stream<String> getStdoutLines(final boolean keepEmptyLines) {
-		return lineEntries.stream().filter(le -> {
-			if (keepEmptyLines) {
-				return true;
-			}
-			return le.getLine().equals("") == false;
-		}).filter(le -> (le.isStdErr() == false)).map(LineEntry::getLine);
+	public synchronized Stream<String> getStdoutLines(final boolean keepEmptyLines) {
+		return filterEmpty(stdoutLines.stream(), stdoutLines, keepEmptyLines).map(LineEntry::getLine);
 	}
 
 	/**
 	 * Only set if setKeepStdout is set (false by default), else return empty stream.
 	 * @param keepEmptyLines if set false, discard all empty trimed lines
 	 */
-	public Stream<String> getStderrLines(final boolean keepEmptyLines) {
-		return lineEntries.stream().filter(le -> {
-			if (keepEmptyLines) {
-				return true;
-			}
-			return le.getLine().equals("") == false;
-		}).filter(LineEntry::isStdErr).map(LineEntry::getLine);
+	public synchronized Stream<String> getStderrLines(final boolean keepEmptyLines) {
+		return filterEmpty(stderrLines.stream(), stderrLines, keepEmptyLines).map(LineEntry::getLine);
 	}
 
 	/**
 	 * Only set if setKeepStdout is set (false by default), else return empty stream.
+	 * Stdout and stderr lines are merged in their capture order.
 	 * @param keepEmptyLines if set false, discard all empty trimed lines
 	 */
-	public Stream<String> getStdouterrLines(final boolean keepEmptyLines) {
-		return lineEntries.stream().filter(le -> {
-			if (keepEmptyLines) {
-				return true;
+	public synchronized Stream<String> getStdouterrLines(final boolean keepEmptyLines) {
+		var lines = mergeBySequence(stdoutLines.sequencedStream(), stderrLines.sequencedStream());
+		if (keepEmptyLines == false && stdoutLines.getEmptyLines() + stderrLines.getEmptyLines() > 0) {
+			lines = lines.filter(le -> le.getLine().isEmpty() == false);
+		}
+		return lines.map(LineEntry::getLine);
+	}
+
+	private static Stream<LineEntry> mergeBySequence(final Stream<SequencedLineEntry> left,
+	                                                 final Stream<SequencedLineEntry> right) {
+		final var leftIterator = left.iterator();
+		final var rightIterator = right.iterator();
+		final var iterator = new Iterator<LineEntry>() {
+			private SequencedLineEntry nextLeft = leftIterator.hasNext() ? leftIterator.next() : null;
+			private SequencedLineEntry nextRight = rightIterator.hasNext() ? rightIterator.next() : null;
+
+			@Override
+			public boolean hasNext() {
+				return nextLeft != null || nextRight != null;
+			}
+
+			@Override
+			public LineEntry next() {
+				if (nextLeft == null && nextRight == null) {
+					throw new NoSuchElementException();
+				}
+				SequencedLineEntry result;
+				if (nextRight == null || nextLeft != null && nextLeft.sequence < nextRight.sequence) {
+					result = nextLeft;
+					nextLeft = leftIterator.hasNext() ? leftIterator.next() : null;
+				} else {
+					result = nextRight;
+					nextRight = rightIterator.hasNext() ? rightIterator.next() : null;
+				}
+				return result.lineEntry;
 			}
-			return le.getLine().equals("") == false;
-		}).map(LineEntry::getLine);
+		};
+		return StreamSupport.stream(Spliterators.spliteratorUnknownSize(iterator,
+		        Spliterator.ORDERED | Spliterator.NONNULL), false);
 	}
 
 	/**
@@ -90,8 +244,9 @@ public class CapturedStdOutErrTextRetention extends CapturedStdOutErrText {
 	 * @param newLineSeparator replace new line char by this
 	 *        Use System.lineSeparator() if needed
 	 */
-	public String getStdout(final boolean keepEmptyLines, final String newLineSeparator) {
-		return getStdoutLines(keepEmptyLines).collect(Collectors.joining(newLineSeparator));
+	public synchronized String getStdout(final boolean keepEmptyLines, final String newLineSeparator) {
+		return stdoutCache.get(keepEmptyLines, newLineSeparator, () -> join(getStdoutLines(keepEmptyLines),
+		        stdoutLines, newLineSeparator));
 	}
 
 	/**
@@ -100,8 +255,9 @@ public class CapturedStdOutErrTextRetention extends CapturedStdOutErrText {
 	 * @param newLineSeparator replace new line char by this
 	 *        Use System.lineSeparator() if needed
 	 */
-	public String getStderr(final boolean keepEmptyLines, final String newLineSeparator) {
-		return getStderrLines(keepEmptyLines).collect(Collectors.joining(newLineSeparator));
+	public synchronized String getStderr(final boolean keepEmptyLines, final String newLineSeparator) {
+		return stderrCache.get(keepEmptyLines, newLineSeparator, () -> join(getStderrLines(keepEmptyLines),
+		        stderrLines, newLineSeparator));
 	}
 
 	/**
@@ -110,8 +266,61 @@ public class CapturedStdOutErrTextRetention extends CapturedStdOutErrText {
 	 * @param newLineSeparator replace new line char by this
 	 *        Use System.lineSeparator() if needed
 	 */
-	public String getStdouterr(final boolean keepEmptyLines, final String newLineSeparator) {
-		return getStdouterrLines(keepEmptyLines).collect(Collectors.joining(newLineSeparator));
+	public synchronized String getStdouterr(final boolean keepEmptyLines, final String newLineSeparator) {
+		return stdouterrCache.get(keepEmptyLines, newLineSeparator, () -> join(getStdouterrLines(keepEmptyLines),
+		        newLineSeparator, stdoutLines.size() + stderrLines.size(),
+		        stdoutLines.getBytes() + stderrLines.getBytes()));
+	}
+
+	private static String join(final Stream<String> lines,
+	                           final LineEntryStore store,
+	                           final String newLineSeparator) {
+		return join(lines, newLineSeparator, store.size(), store.getBytes());
+	}
+
+	/**
+	 * Presize the result with the known lines count and text size.
+	 */
+	private static String join(final Stream<String> lines,
+	                           final String newLineSeparator,
+	                           final long linesCount,
+	                           final long bytes) {
+		final var capacity = bytes + Math.max(0, linesCount - 1) * newLineSeparator.length();
+		final var sb = new StringBuilder((int) Math.min(capacity, Integer.MAX_VALUE - 8L));
+		final var iterator = lines.iterator();
+		if (iterator.hasNext()) {
+			sb.append(iterator.next());
+		}
+		while (iterator.hasNext()) {
+			sb.append(newLineSeparator);
+			sb.append(iterator.next());
+		}
+		return sb.toString();
+	}
+
+	/**
+	 * Cache a joined text, while no lines are added.
+	 */
+	private class JoinedTextCache {
+		private long cachedSequence = -1;
+		private boolean cachedKeepEmptyLines;
+		private String cachedNewLineSeparator;
+		private String cachedText;
+
+		private String get(final boolean keepEmptyLines,
+		                   final String newLineSeparator,
+		                   final Supplier<String> joiner) {
+			if (cachedSequence == sequence
+			    && cachedKeepEmptyLines == keepEmptyLines
+			    && cachedNewLineSeparator.equals(newLineSeparator)) {
+				return cachedText;
+			}
+			cachedText = joiner.get();
+			cachedSequence = sequence;
+			cachedKeepEmptyLines = keepEmptyLines;
+			cachedNewLineSeparator = newLineSeparator;
+			return cachedText;
+		}
 	}
 
 }
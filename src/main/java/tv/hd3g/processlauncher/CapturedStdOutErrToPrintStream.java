@@ -17,17 +17,41 @@
 package tv.hd3g.processlauncher;
 
 import java.io.PrintStream;
+import java.time.Duration;
+import java.util.List;
 import java.util.Objects;
 import java.util.Optional;
 import java.util.function.Predicate;
 
-public class CapturedStdOutErrToPrintStream extends CapturedStdOutErrText {
+/**
+ * Print captured lines, prefixed by "execName#pid", with one write and one flush by batch (by line by default).
+ */
+public class CapturedStdOutErrToPrintStream extends CapturedStdOutErrTextBatch {
+
+	private static final String LINE_SEPARATOR = System.lineSeparator();
 
 	private final PrintStream printStreamStdOut;
 	private final PrintStream printStreamStdErr;
 	private Optional<Predicate<LineEntry>> filter;
+	private volatile Prefixes prefixes;
 
+	/**
+	 * Write and flush each line.
+	 */
 	public CapturedStdOutErrToPrintStream(final PrintStream printStreamStdOut, final PrintStream printStreamStdErr) {
+		this(printStreamStdOut, printStreamStdErr, 1, Duration.ZERO);
+	}
+
+	/**
+	 * High-throughput mode: write and flush lines by batches, see CapturedStdOutErrTextBatch.
+	 * @param maxBatchSize max lines by write/flush
+	 * @param maxFlushDelay max time before write a pending line, if the process still writes.
+	 */
+	public CapturedStdOutErrToPrintStream(final PrintStream printStreamStdOut,
+	                                      final PrintStream printStreamStdErr,
+	                                      final int maxBatchSize,
+	                                      final Duration maxFlushDelay) {
+		super(maxBatchSize, maxFlushDelay);
 		this.printStreamStdOut = Objects.requireNonNull(printStreamStdOut, "\"printStreamStdOut\" can't to be null");
 		this.printStreamStdErr = Objects.requireNonNull(printStreamStdErr, "\"printStreamStdErr\" can't to be null");
 		filter = Optional.empty();
@@ -45,31 +69,71 @@ public class CapturedStdOutErrToPrintStream extends CapturedStdOutErrText {
 	static final String STDOUT_SEPARATOR = "\t> ";
 	static final String STDERR_SEPARATOR = "\t! ";
 
-	@Override
-	void onText(final LineEntry lineEntry) {
-		if (filter.map(f -> f.test(lineEntry)).orElse(true) == false) {
-			return;
+	/**
+	 * "execName#pid" + separators, computed once by process.
+	 */
+	private static class Prefixes {
+		private final ProcesslauncherLifecycle source;
+		private final String stdOut;
+		private final String stdErr;
+
+		private Prefixes(final ProcesslauncherLifecycle source) {
+			this.source = source;
+			final var prefix = source.getExecNameWithoutExt() + source.getPID().map(pid -> "#" + pid).orElse("");
+			stdOut = prefix + STDOUT_SEPARATOR;
+			stdErr = prefix + STDERR_SEPARATOR;
 		}
+	}
 
-		final PrintStream out;
-		if (lineEntry.isStdErr()) {
-			out = printStreamStdErr;
-		} else {
-			out = printStreamStdOut;
+	private Prefixes getPrefixes(final ProcesslauncherLifecycle source) {
+		var actual = prefixes;
+		if (actual == null || actual.source != source) {
+			actual = new Prefixes(source);
+			prefixes = actual;
 		}
+		return actual;
+	}
+
+	@Override
+	public void onTextBatch(final List<LineEntry> lineEntries) {
+		StringBuilder stdOut = null;
+		StringBuilder stdErr = null;
 
-		final var source = lineEntry.getSource();
-		out.print(source.getExecNameWithoutExt());
-		out.print(source.getPID().map(pid -> "#" + pid).orElse(""));
+		for (var pos = 0; pos < lineEntries.size(); pos++) {
+			final var lineEntry = lineEntries.get(pos);
+			if (filter.map(f -> f.test(lineEntry)).orElse(true) == false) {
+				continue;
+			}
+			final var linePrefixes = getPrefixes(lineEntry.getSource());
+			final var line = lineEntry.getLine();
 
-		if (lineEntry.isStdErr()) {
-			out.print(STDERR_SEPARATOR);
-		} else {
-			out.print(STDOUT_SEPARATOR);
+			StringBuilder sb;
+			String prefix;
+			if (lineEntry.isStdErr()) {
+				if (stdErr == null) {
+					stdErr = new StringBuilder();
+				}
+				sb = stdErr;
+				prefix = linePrefixes.stdErr;
+			} else {
+				if (stdOut == null) {
+					stdOut = new StringBuilder();
+				}
+				sb = stdOut;
+				prefix = linePrefixes.stdOut;
+			}
+			sb.ensureCapacity(sb.length() + prefix.length() + line.length() + LINE_SEPARATOR.length());
+			sb.append(prefix).append(line).append(LINE_SEPARATOR);
 		}
 
-		out.println(lineEntry.getLine());
-		out.flush();
+		if (stdOut != null) {
+			printStreamStdOut.print(stdOut);
+			printStreamStdOut.flush();
+		}
+		if (stdErr != null) {
+			printStreamStdErr.print(stdErr);
+			printStreamStdErr.flush();
+		}
 	}
 
 }
@@ -0,0 +1,51 @@
+/*
+ * This file is part of processlauncher.
+ *
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation; either version 3 of the License, or
+ * any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU Lesser General Public License for more details.
+ *
+ * Copyright (C) hdsdi3g for hd3g.tv 2019
+ *
+ */
+package tv.hd3g.processlauncher;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * A shared System.nanoTime() copy, updated every 1 ms by a daemon thread, started on first use.
+ */
+class CoarseNanoClock {
+
+	static final long TICK_NANOS = TimeUnit.MILLISECONDS.toNanos(1);
+
+	private static volatile long now = System.nanoTime();
+
+	static {
+		final var t = new Thread(() -> {
+			while (true) {
+				LockSupport.parkNanos(TICK_NANOS);
+				now = System.nanoTime();
+			}
+		});
+		t.setDaemon(true);
+		t.setPriority(Thread.MAX_PRIORITY);
+		t.setName("Coarse nano clock");
+		t.start();
+	}
+
+	private CoarseNanoClock() {
+	}
+
+	static long nanoTime() {
+		return now;
+	}
+
+}
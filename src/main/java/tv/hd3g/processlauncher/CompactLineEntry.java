@@ -0,0 +1,89 @@
+/*
+ * This file is part of processlauncher.
+ *
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation; either version 3 of the License, or
+ * any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU Lesser General Public License for more details.
+ *
+ * Copyright (C) hdsdi3g for hd3g.tv 2019
+ *
+ */
+package tv.hd3g.processlauncher;
+
+import static java.nio.charset.StandardCharsets.ISO_8859_1;
+import static java.nio.charset.StandardCharsets.UTF_8;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * A LineEntry view on bytes kept by CompactLineEntryStore: the line String is only created by getLine().
+ * Like MonotonicLineEntry if dated by a monotonic clock.
+ */
+class CompactLineEntry extends LineEntry {
+
+	private final byte[] arena;
+	private final int offset;
+	private final int length;
+	private final boolean utf8;
+	private final long nanosFromStart;
+	private final boolean monotonic;
+
+	/**
+	 * @param date or the nanoseconds from the process start, if monotonic
+	 */
+	CompactLineEntry(final long date,
+	                 final boolean stdErr,
+	                 final ProcesslauncherLifecycle source,
+	                 final byte[] arena,
+	                 final int offset,
+	                 final int length,
+	                 final boolean utf8,
+	                 final boolean monotonic) {
+		super(monotonic ? 0 : date, null, stdErr, source);
+		this.arena = arena;
+		this.offset = offset;
+		this.length = length;
+		this.utf8 = utf8;
+		this.monotonic = monotonic;
+		nanosFromStart = monotonic ? date : 0;
+	}
+
+	@Override
+	public long getTimeAgo() {
+		if (monotonic) {
+			return TimeUnit.NANOSECONDS.toMillis(nanosFromStart);
+		}
+		return super.getTimeAgo();
+	}
+
+	@Override
+	public long getDate() {
+		if (monotonic) {
+			return getSource().getLocalStartDate() + getTimeAgo();
+		}
+		return super.getDate();
+	}
+
+	@Override
+	public long getTimeAgoNanos() {
+		if (monotonic) {
+			return nanosFromStart;
+		}
+		return super.getTimeAgoNanos();
+	}
+
+	/**
+	 * @return a new String at each call
+	 */
+	@Override
+	public String getLine() {
+		return new String(arena, offset, length, utf8 ? UTF_8 : ISO_8859_1);
+	}
+
+}
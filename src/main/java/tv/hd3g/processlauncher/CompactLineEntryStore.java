@@ -0,0 +1,213 @@
+/*
+ * This file is part of processlauncher.
+ *
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation; either version 3 of the License, or
+ * any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU Lesser General Public License for more details.
+ *
+ * Copyright (C) hdsdi3g for hd3g.tv 2019
+ *
+ */
+package tv.hd3g.processlauncher;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.stream.IntStream;
+import java.util.stream.Stream;
+
+/**
+ * Unbounded LineEntry storage, without one LineEntry and one String by line: line bytes are packed in shared arenas,
+ * as ASCII (read as Latin-1) or UTF-8, and the line properties are kept in primitive arrays.
+ * Arenas start small and grow geometrically, up to ARENA_SIZE, so a short process don't pins large arrays.
+ * Lines are read back with CompactLineEntry views.
+ * Not thread safe.
+ */
+class CompactLineEntryStore implements LineEntryStore {
+	static final int MIN_ARENA_SIZE = 4 * 1024;
+	static final int ARENA_SIZE = 1024 * 1024;
+	private static final int INITIAL_SIZE = 16;
+	private static final byte FLAG_STDERR = 1;
+	private static final byte FLAG_UTF8 = 2;
+	/**
+	 * The date is a MonotonicLineEntry nanosFromStart
+	 */
+	private static final byte FLAG_MONOTONIC = 4;
+
+	private final List<byte[]> arenas;
+	private byte[] currentArena;
+	private int currentArenaPos;
+	private int nextArenaSize;
+
+	private int[] lineArenas;
+	private int[] lineOffsets;
+	private int[] lineLengths;
+	private long[] dates;
+	private long[] sequences;
+	private byte[] flags;
+	private int size;
+
+	/**
+	 * The first line source
+	 */
+	private ProcesslauncherLifecycle source;
+	/**
+	 * Source by line, only created when a line comes from another source than the first line.
+	 */
+	private ProcesslauncherLifecycle[] sources;
+	private long emptyLines;
+	private long bytes;
+
+	CompactLineEntryStore() {
+		arenas = new ArrayList<>();
+		lineArenas = new int[INITIAL_SIZE];
+		lineOffsets = new int[INITIAL_SIZE];
+		lineLengths = new int[INITIAL_SIZE];
+		dates = new long[INITIAL_SIZE];
+		sequences = new long[INITIAL_SIZE];
+		flags = new byte[INITIAL_SIZE];
+		nextArenaSize = MIN_ARENA_SIZE;
+	}
+
+	/**
+	 * Snapshot: arrays are shared, later adds only write after the actual size, or in new arrays.
+	 */
+	private CompactLineEntryStore(final CompactLineEntryStore from) {
+		arenas = new ArrayList<>(from.arenas);
+		lineArenas = from.lineArenas;
+		lineOffsets = from.lineOffsets;
+		lineLengths = from.lineLengths;
+		dates = from.dates;
+		sequences = from.sequences;
+		flags = from.flags;
+		size = from.size;
+		source = from.source;
+		sources = from.sources;
+	}
+
+	@Override
+	public void add(final LineEntry lineEntry, final long sequence) {
+		final var line = lineEntry.getLine();
+		final var lineBytes = line.getBytes(UTF_8);
+		var flag = lineEntry.isStdErr() ? FLAG_STDERR : 0;
+		if (lineBytes.length != line.length()) {
+			flag |= FLAG_UTF8;
+		}
+		long date;
+		if (lineEntry instanceof MonotonicLineEntry) {
+			flag |= FLAG_MONOTONIC;
+			date = lineEntry.getTimeAgoNanos();
+		} else {
+			date = lineEntry.getDate();
+		}
+
+		if (currentArena == null || currentArenaPos + lineBytes.length > currentArena.length) {
+			currentArena = new byte[Math.max(nextArenaSize, lineBytes.length)];
+			currentArenaPos = 0;
+			arenas.add(currentArena);
+			nextArenaSize = Math.min(ARENA_SIZE, nextArenaSize * 2);
+		}
+		System.arraycopy(lineBytes, 0, currentArena, currentArenaPos, lineBytes.length);
+
+		if (size == dates.length) {
+			final var newSize = size * 2;
+			lineArenas = Arrays.copyOf(lineArenas, newSize);
+			lineOffsets = Arrays.copyOf(lineOffsets, newSize);
+			lineLengths = Arrays.copyOf(lineLengths, newSize);
+			dates = Arrays.copyOf(dates, newSize);
+			sequences = Arrays.copyOf(sequences, newSize);
+			flags = Arrays.copyOf(flags, newSize);
+			if (sources != null) {
+				sources = Arrays.copyOf(sources, newSize);
+			}
+		}
+		addSource(lineEntry.getSource());
+		lineArenas[size] = arenas.size() - 1;
+		lineOffsets[size] = currentArenaPos;
+		lineLengths[size] = lineBytes.length;
+		dates[size] = date;
+		sequences[size] = sequence;
+		flags[size] = flag;
+		size++;
+
+		currentArenaPos += lineBytes.length;
+		bytes += line.length();
+		if (line.isEmpty()) {
+			emptyLines++;
+		}
+	}
+
+	/**
+	 * Call before size++
+	 */
+	private void addSource(final ProcesslauncherLifecycle lineSource) {
+		if (size == 0) {
+			source = lineSource;
+		} else if (sources != null) {
+			sources[size] = lineSource;
+		} else if (lineSource != source) {
+			sources = new ProcesslauncherLifecycle[dates.length];
+			Arrays.fill(sources, 0, size, source);
+			sources[size] = lineSource;
+		}
+	}
+
+	private LineEntry get(final int pos) {
+		final var lineSource = sources != null ? sources[pos] : source;
+		return new CompactLineEntry(dates[pos], (flags[pos] & FLAG_STDERR) != 0, lineSource,
+		        arenas.get(lineArenas[pos]), lineOffsets[pos], lineLengths[pos], (flags[pos] & FLAG_UTF8) != 0,
+		        (flags[pos] & FLAG_MONOTONIC) != 0);
+	}
+
+	/**
+	 * Views are created during the stream, from a snapshot of the actual lines.
+	 */
+	@Override
+	public Stream<LineEntry> stream() {
+		final var snapshot = new CompactLineEntryStore(this);
+		return IntStream.range(0, snapshot.size).mapToObj(snapshot::get);
+	}
+
+	@Override
+	public Stream<SequencedLineEntry> sequencedStream() {
+		final var snapshot = new CompactLineEntryStore(this);
+		return IntStream.range(0, snapshot.size)
+		        .mapToObj(pos -> new SequencedLineEntry(snapshot.sequences[pos], snapshot.get(pos)));
+	}
+
+	@Override
+	public long size() {
+		return size;
+	}
+
+	@Override
+	public long getEmptyLines() {
+		return emptyLines;
+	}
+
+	@Override
+	public long getBytes() {
+		return bytes;
+	}
+
+	@Override
+	public long getDroppedLines() {
+		return 0;
+	}
+
+	/**
+	 * @return allocated arenas size
+	 */
+	long getArenasBytes() {
+		return arenas.stream().mapToLong(arena -> arena.length).sum();
+	}
+
+}
@@ -0,0 +1,212 @@
+/*
+ * This file is part of processlauncher.
+ *
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation; either version 3 of the License, or
+ * any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU Lesser General Public License for more details.
+ *
+ * Copyright (C) hdsdi3g for hd3g.tv 2019
+ *
+ */
+package tv.hd3g.processlauncher;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static tv.hd3g.processlauncher.LineEntryRecordCodec.RECORD_HEADER_SIZE;
+
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.stream.Stream;
+import java.util.zip.DataFormatException;
+import java.util.zip.Deflater;
+import java.util.zip.Inflater;
+
+/**
+ * Unbounded LineEntry storage for long running processes: lines are serialized in a block, and each full block is
+ * compressed with Deflater. Only the current block is kept uncompressed, and it's allocated with the first line.
+ * Compressed blocks are inflated one by one, only when a stream reach them.
+ * Records are written by LineEntryRecordCodec.
+ * Not thread safe.
+ */
+class DeflatedLineEntryStore implements LineEntryStore {
+	static final int DEFAULT_BLOCK_SIZE = 64 * 1024;
+
+	private final int blockSize;
+	private final List<DeflatedBlock> blocks;
+	private ByteBuffer currentBlock;
+	/**
+	 * Reused for all blocks, ended by close()
+	 */
+	private Deflater deflater;
+
+	private ProcesslauncherLifecycle source;
+	private long size;
+	private long emptyLines;
+	private long bytes;
+	private long compressedBytes;
+
+	private static class DeflatedBlock {
+		private final byte[] data;
+		private final int rawSize;
+
+		private DeflatedBlock(final Deflater deflater, final byte[] raw, final int rawSize) {
+			this.rawSize = rawSize;
+			deflater.reset();
+			deflater.setInput(raw, 0, rawSize);
+			deflater.finish();
+			var compressed = new byte[Math.max(64, rawSize / 4)];
+			var compressedSize = 0;
+			while (deflater.finished() == false) {
+				if (compressedSize == compressed.length) {
+					compressed = Arrays.copyOf(compressed, compressed.length * 2);
+				}
+				compressedSize += deflater.deflate(compressed, compressedSize, compressed.length - compressedSize);
+			}
+			data = Arrays.copyOf(compressed, compressedSize);
+		}
+
+		private byte[] inflate() {
+			final var inflater = new Inflater();
+			try {
+				inflater.setInput(data);
+				final var raw = new byte[rawSize];
+				var rawPos = 0;
+				while (rawPos < rawSize && inflater.finished() == false) {
+					final var inflated = inflater.inflate(raw, rawPos, rawSize - rawPos);
+					if (inflated == 0 && inflater.needsInput()) {
+						throw new IllegalStateException("Truncated compressed block");
+					}
+					rawPos += inflated;
+				}
+				return raw;
+			} catch (final DataFormatException e) {
+				throw new IllegalStateException("Invalid compressed block", e);
+			} finally {
+				inflater.end();
+			}
+		}
+	}
+
+	DeflatedLineEntryStore(final int blockSize) {
+		if (blockSize < RECORD_HEADER_SIZE) {
+			throw new IllegalArgumentException("Invalid blockSize: " + blockSize);
+		}
+		this.blockSize = blockSize;
+		blocks = new ArrayList<>();
+	}
+
+	DeflatedLineEntryStore() {
+		this(DEFAULT_BLOCK_SIZE);
+	}
+
+	@Override
+	public void add(final LineEntry lineEntry, final long sequence) {
+		if (source == null) {
+			source = lineEntry.getSource();
+		}
+		final var line = lineEntry.getLine();
+		final var lineBytes = line.getBytes(UTF_8);
+		final var recordSize = RECORD_HEADER_SIZE + lineBytes.length;
+
+		if (currentBlock == null) {
+			currentBlock = ByteBuffer.allocate(Math.max(blockSize, recordSize));
+		} else if (currentBlock.remaining() < recordSize) {
+			closeCurrentBlock();
+			if (currentBlock.remaining() < recordSize) {
+				currentBlock = ByteBuffer.allocate(recordSize);
+			}
+		}
+		LineEntryRecordCodec.put(currentBlock, sequence, lineEntry, lineBytes);
+
+		size++;
+		bytes += line.length();
+		if (line.isEmpty()) {
+			emptyLines++;
+		}
+	}
+
+	private void closeCurrentBlock() {
+		if (currentBlock.position() == 0) {
+			return;
+		}
+		if (deflater == null) {
+			deflater = new Deflater();
+		}
+		final var block = new DeflatedBlock(deflater, currentBlock.array(), currentBlock.position());
+		blocks.add(block);
+		compressedBytes += block.data.length;
+		if (currentBlock.capacity() == blockSize) {
+			currentBlock.clear();
+		} else {
+			currentBlock = ByteBuffer.allocate(blockSize);
+		}
+	}
+
+	/**
+	 * Snapshot: the compressed blocks list and the current block are copied, blocks are inflated during the stream.
+	 */
+	@Override
+	public Stream<SequencedLineEntry> sequencedStream() {
+		final var snapshotBlocks = List.copyOf(blocks);
+		final var snapshotCurrent = currentBlock == null ? new byte[0]
+		                                                 : Arrays.copyOf(currentBlock.array(), currentBlock.position());
+		final var snapshotSource = source;
+		return Stream.concat(snapshotBlocks.stream().map(DeflatedBlock::inflate), Stream.of(snapshotCurrent))
+		        .flatMap(raw -> LineEntryRecordCodec.read(ByteBuffer.wrap(raw), snapshotSource));
+	}
+
+	/**
+	 * Release the Deflater native memory now. All lines stay readable, and a new Deflater is created if needed.
+	 */
+	@Override
+	public void close() {
+		if (deflater != null) {
+			deflater.end();
+			deflater = null;
+		}
+	}
+
+	@Override
+	public Stream<LineEntry> stream() {
+		return sequencedStream().map(sle -> sle.lineEntry);
+	}
+
+	@Override
+	public long size() {
+		return size;
+	}
+
+	@Override
+	public long getEmptyLines() {
+		return emptyLines;
+	}
+
+	@Override
+	public long getBytes() {
+		return bytes;
+	}
+
+	@Override
+	public long getDroppedLines() {
+		return 0;
+	}
+
+	/**
+	 * @return the compressed blocks size, without the current block
+	 */
+	long getCompressedBytes() {
+		return compressedBytes;
+	}
+
+	int getCompressedBlocksCount() {
+		return blocks.size();
+	}
+
+}
@@ -47,6 +47,14 @@ public interface ExecutableTool {
 		return p -> true;
 	}
 
+	/**
+	 * Used by execute. Keep, by stream, the 10000 first lines and the 100000 last lines by default, up to 32 MB of text.
+	 * @return LineRetentionLimits.UNLIMITED to keep all the outputs.
+	 */
+	default LineRetentionLimits getTextRetentionLimits() {
+		return LineRetentionLimits.keepFirstAndLast(10_000, 100_000).withMaxBytes(32L * 1024 * 1024);
+	}
+
 	/**
 	 * @param executableFinder How to run executable
 	 * @param log Where to put all stdout/err events
@@ -62,19 +70,15 @@ public interface ExecutableTool {
 
 			CapturedStdOutErrTextRetention textRetention;
 			if (log == null) {
-				textRetention = new CapturedStdOutErrTextRetention();
+				textRetention = new CapturedStdOutErrTextRetention(CapturedStreams.BOTH_STDOUT_STDERR,
+				        getTextRetentionLimits());
 				builder.getSetCaptureStandardOutputAsOutputText(CapturedStreams.BOTH_STDOUT_STDERR)
 				        .addObserver(textRetention);
 			} else {
 				final var capture = builder.getSetCaptureStandardOutputAsOutputText();
-				capture.addObserver(new CapturedStdOutErrTextInteractive(line -> {
-					final var level = levelMapper.apply(line);
-					if (level != null && log.isEnabled(level)) {
-						log.log(level, line);
-					}
-					return null;
-				}));
-				textRetention = new CapturedStdOutErrTextRetention();
+				capture.addObserver(new CapturedStdOutErrTextLogger(log, levelMapper));
+				textRetention = new CapturedStdOutErrTextRetention(CapturedStreams.BOTH_STDOUT_STDERR,
+				        getTextRetentionLimits());
 				capture.addObserver(textRetention);
 			}
 			beforeRun(builder);
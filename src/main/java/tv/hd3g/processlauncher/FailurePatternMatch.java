@@ -0,0 +1,63 @@
+/*
+ * This file is part of processlauncher.
+ *
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation; either version 3 of the License, or
+ * any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU Lesser General Public License for more details.
+ *
+ * Copyright (C) hdsdi3g for hd3g.tv 2019
+ *
+ */
+package tv.hd3g.processlauncher;
+
+/**
+ * A failure pattern found by CapturedStdOutErrTextFailureDetector.
+ */
+public class FailurePatternMatch {
+
+	private final String ruleName;
+	private final String pattern;
+	private final boolean regex;
+	private final LineEntry lineEntry;
+
+	FailurePatternMatch(final String ruleName, final String pattern, final boolean regex, final LineEntry lineEntry) {
+		this.ruleName = ruleName;
+		this.pattern = pattern;
+		this.regex = regex;
+		this.lineEntry = lineEntry;
+	}
+
+	public String getRuleName() {
+		return ruleName;
+	}
+
+	/**
+	 * @return the literal, or the regex
+	 */
+	public String getPattern() {
+		return pattern;
+	}
+
+	public boolean isRegex() {
+		return regex;
+	}
+
+	public LineEntry getLineEntry() {
+		return lineEntry;
+	}
+
+	/**
+	 * For logging purpose
+	 */
+	@Override
+	public String toString() {
+		return "\"" + ruleName + "\" (" + pattern + ") in \"" + lineEntry.getLine() + "\"";
+	}
+
+}
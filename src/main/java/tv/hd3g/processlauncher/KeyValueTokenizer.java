@@ -0,0 +1,207 @@
+/*
+ * This file is part of processlauncher.
+ *
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation; either version 3 of the License, or
+ * any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU Lesser General Public License for more details.
+ *
+ * Copyright (C) hdsdi3g for hd3g.tv 2019
+ *
+ */
+package tv.hd3g.processlauncher;
+
+/**
+ * Split a line in "key=value" and "key: value" tokens, in place (no regex, no substring).
+ * Tokens are separated by spaces, tabs or commas. With "key=value", spaces after "=" are skipped, and the value ends
+ * with the next separator. With "key: value", ":" must be followed by a space (or the line end), and the value ends
+ * with the next comma (trimmed).
+ * Like ffmpeg -progress outputs ("out_time=00:00:05.120000"), ffmpeg stats ("frame=  100 fps= 25 q=28.0"), and
+ * headers ("Duration: 00:01:00.00, start: 0.000000, bitrate: 1205 kb/s").
+ */
+final class KeyValueTokenizer {
+
+	private KeyValueTokenizer() {
+	}
+
+	@FunctionalInterface
+	interface TokenHandler {
+		/**
+		 * Positions are like String.substring. valueStart == valueEnd for an empty value.
+		 */
+		void onToken(String line, int keyStart, int keyEnd, int valueStart, int valueEnd);
+	}
+
+	private static boolean isSeparator(final char c) {
+		return c == ' ' || c == ',' || c == '\t' || c == '\r' || c == '\n';
+	}
+
+	private static boolean isSpace(final char c) {
+		return c == ' ' || c == '\t' || c == '\r' || c == '\n';
+	}
+
+	private static boolean isKeyChar(final char c) {
+		return c != '=' && c != ':' && isSeparator(c) == false;
+	}
+
+	/**
+	 * @return the tokens count
+	 */
+	static int tokenize(final String line, final TokenHandler handler) {
+		final var len = line.length();
+		var count = 0;
+		var pos = 0;
+		while (pos < len) {
+			while (pos < len && isSeparator(line.charAt(pos))) {
+				pos++;
+			}
+			final var keyStart = pos;
+			while (pos < len && isKeyChar(line.charAt(pos))) {
+				pos++;
+			}
+			final var keyEnd = pos;
+			if (pos == len) {
+				break;
+			}
+
+			final var c = line.charAt(pos);
+			if (keyEnd > keyStart && c == '=') {
+				pos++;
+				while (pos < len && isSpace(line.charAt(pos))) {
+					pos++;
+				}
+				final var valueStart = pos;
+				while (pos < len && isSeparator(line.charAt(pos)) == false) {
+					pos++;
+				}
+				handler.onToken(line, keyStart, keyEnd, valueStart, pos);
+				count++;
+			} else if (keyEnd > keyStart && c == ':' && (pos + 1 == len || isSpace(line.charAt(pos + 1)))) {
+				pos++;
+				while (pos < len && isSpace(line.charAt(pos))) {
+					pos++;
+				}
+				final var valueStart = pos;
+				while (pos < len && line.charAt(pos) != ',') {
+					pos++;
+				}
+				var valueEnd = pos;
+				while (valueEnd > valueStart && isSpace(line.charAt(valueEnd - 1))) {
+					valueEnd--;
+				}
+				handler.onToken(line, keyStart, keyEnd, valueStart, valueEnd);
+				count++;
+			} else {
+				// Not a token, like "#0:1" or "http://"
+				while (pos < len && isSeparator(line.charAt(pos)) == false) {
+					pos++;
+				}
+			}
+		}
+		return count;
+	}
+
+	static boolean keyIs(final String line, final int keyStart, final int keyEnd, final String key) {
+		return keyEnd - keyStart == key.length() && line.startsWith(key, keyStart);
+	}
+
+	/**
+	 * Decimal number, like "25", "-1.5", "1.02x" (a trailing "x" or "%" is ignored).
+	 * @return NaN if it's not a number, like "N/A"
+	 */
+	static double parseDecimal(final String line, final int start, final int end) {
+		var last = end;
+		if (last > start && (line.charAt(last - 1) == 'x' || line.charAt(last - 1) == '%')) {
+			last--;
+		}
+		var pos = start;
+		var negative = false;
+		if (pos < last && (line.charAt(pos) == '-' || line.charAt(pos) == '+')) {
+			negative = line.charAt(pos) == '-';
+			pos++;
+		}
+		if (pos == last) {
+			return Double.NaN;
+		}
+
+		var integer = 0d;
+		var fraction = 0d;
+		var divider = 1d;
+		var inFraction = false;
+		var digits = 0;
+		for (; pos < last; pos++) {
+			final var c = line.charAt(pos);
+			if (c >= '0' && c <= '9') {
+				if (inFraction) {
+					fraction = fraction * 10d + (c - '0');
+					divider *= 10d;
+				} else {
+					integer = integer * 10d + (c - '0');
+				}
+				digits++;
+			} else if (c == '.' && inFraction == false) {
+				inFraction = true;
+			} else {
+				return Double.NaN;
+			}
+		}
+		if (digits == 0) {
+			return Double.NaN;
+		}
+		final var result = integer + fraction / divider;
+		return negative ? -result : result;
+	}
+
+	/**
+	 * @return -1 if it's not a positive integer
+	 */
+	static long parsePositiveLong(final String line, final int start, final int end) {
+		if (start == end || end - start > 18) {
+			return -1;
+		}
+		var result = 0L;
+		for (var pos = start; pos < end; pos++) {
+			final var c = line.charAt(pos);
+			if (c < '0' || c > '9') {
+				return -1;
+			}
+			result = result * 10L + (c - '0');
+		}
+		return result;
+	}
+
+	/**
+	 * Time like "00:01:02.345678" or "-00:00:00.50" (hours can have more than two digits).
+	 * @return nanoseconds, or Long.MIN_VALUE if it's not a time
+	 */
+	static long parseTimeNanos(final String line, final int start, final int end) {
+		var pos = start;
+		final var negative = pos < end && line.charAt(pos) == '-';
+		if (negative) {
+			pos++;
+		}
+		final var firstColon = line.indexOf(':', pos);
+		if (firstColon < 0 || firstColon >= end) {
+			return Long.MIN_VALUE;
+		}
+		final var secondColon = line.indexOf(':', firstColon + 1);
+		if (secondColon < 0 || secondColon >= end) {
+			return Long.MIN_VALUE;
+		}
+		final var hours = parsePositiveLong(line, pos, firstColon);
+		final var minutes = parsePositiveLong(line, firstColon + 1, secondColon);
+		final var seconds = parseDecimal(line, secondColon + 1, end);
+		if (hours < 0 || minutes < 0 || Double.isNaN(seconds) || seconds < 0d
+		    || line.charAt(end - 1) == 'x' || line.charAt(end - 1) == '%') {
+			return Long.MIN_VALUE;
+		}
+		final var nanos = (hours * 3600L + minutes * 60L) * 1_000_000_000L + Math.round(seconds * 1_000_000_000d);
+		return negative ? -nanos : nanos;
+	}
+
+}
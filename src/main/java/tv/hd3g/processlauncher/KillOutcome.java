@@ -0,0 +1,38 @@
+/*
+ * This file is part of processlauncher.
+ *
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation; either version 3 of the License, or
+ * any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU Lesser General Public License for more details.
+ *
+ * Copyright (C) hdsdi3g for hd3g.tv 2019
+ *
+ */
+package tv.hd3g.processlauncher;
+
+public enum KillOutcome {
+	/**
+	 * Not alive before the kill
+	 */
+	ALREADY_ENDED,
+	/**
+	 * Ended during the grace period, after a normal termination request (SIGTERM).
+	 * With KillPolicy.DEFAULT: the termination request was accepted.
+	 */
+	TERMINATED,
+	/**
+	 * Ended after a forced termination (SIGKILL).
+	 * With KillPolicy.DEFAULT: the forced termination request was accepted.
+	 */
+	FORCED,
+	/**
+	 * Still alive after the forced termination timeout
+	 */
+	CANT_KILL;
+}
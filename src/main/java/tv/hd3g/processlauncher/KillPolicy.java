@@ -0,0 +1,166 @@
+/*
+ * This file is part of processlauncher.
+ *
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation; either version 3 of the License, or
+ * any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU Lesser General Public License for more details.
+ *
+ * Copyright (C) hdsdi3g for hd3g.tv 2019
+ *
+ */
+package tv.hd3g.processlauncher;
+
+import static java.util.concurrent.CompletableFuture.completedFuture;
+
+import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.Objects;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+/**
+ * Kill a process tree without blocking any thread: a normal termination request (SIGTERM) to all the tree, then a
+ * grace period, then a forced termination (SIGKILL) for the survivors.
+ * The waits are done by the ProcessHandle.onExit() futures.
+ * DEFAULT don't wait anything, like ProcessHandle.destroy(): a grace period is opt-in, like GRACEFUL.
+ */
+public class KillPolicy {
+	private static final String LOG_FORCE_TO_CLOSE_PROCESS = "Force to close process {}";
+	private static final String LOG_CLOSE_MANUALLY_PROCESS = "Close manually process {}";
+
+	private static Logger log = LogManager.getLogger();
+
+	/**
+	 * Only a termination request (SIGTERM) to all the tree, without wait. A forced termination (SIGKILL) is only
+	 * done if the termination request is refused.
+	 */
+	public static final KillPolicy DEFAULT = new KillPolicy();
+
+	/**
+	 * 5 seconds of grace period, and 5 seconds to wait after the forced termination.
+	 */
+	public static final KillPolicy GRACEFUL = new KillPolicy(Duration.ofSeconds(5), Duration.ofSeconds(5));
+
+	private final Duration gracePeriod;
+	private final Duration forcedKillTimeout;
+	private final boolean waitTermination;
+
+	private KillPolicy() {
+		gracePeriod = Duration.ZERO;
+		forcedKillTimeout = Duration.ZERO;
+		waitTermination = false;
+	}
+
+	/**
+	 * @param gracePeriod the time given to the processes to end after SIGTERM, can be zero.
+	 * @param forcedKillTimeout the time to wait after SIGKILL, before report a process as CANT_KILL.
+	 */
+	public KillPolicy(final Duration gracePeriod, final Duration forcedKillTimeout) {
+		this.gracePeriod = Objects.requireNonNull(gracePeriod, "\"gracePeriod\" can't to be null");
+		this.forcedKillTimeout = Objects.requireNonNull(forcedKillTimeout, "\"forcedKillTimeout\" can't to be null");
+		if (gracePeriod.isNegative()) {
+			throw new IllegalArgumentException("Invalid gracePeriod value: " + gracePeriod);
+		} else if (forcedKillTimeout.isNegative()) {
+			throw new IllegalArgumentException("Invalid forcedKillTimeout value: " + forcedKillTimeout);
+		}
+		waitTermination = true;
+	}
+
+	public Duration getGracePeriod() {
+		return gracePeriod;
+	}
+
+	public Duration getForcedKillTimeout() {
+		return forcedKillTimeout;
+	}
+
+	/**
+	 * Non-blocking. The descendants are listed before the termination requests, so they are still killed if the root
+	 * process ends first.
+	 * @return completed when all the processes of the tree are ended, or after the forcedKillTimeout. Always
+	 *         completed for DEFAULT.
+	 */
+	public CompletableFuture<KillReport> killTree(final ProcessHandle root) {
+		Objects.requireNonNull(root, "\"root\" can't to be null");
+		final var tree = Stream.concat(root.descendants(), Stream.of(root))
+		        .collect(Collectors.toUnmodifiableList());
+		final var outcomes = tree.stream()
+		        .map(this::kill)
+		        .collect(Collectors.toUnmodifiableList());
+
+		return CompletableFuture.allOf(outcomes.toArray(new CompletableFuture<?>[0])).thenApply(v -> {
+			final var report = new LinkedHashMap<Long, KillOutcome>(tree.size());
+			for (var pos = 0; pos < tree.size(); pos++) {
+				report.put(tree.get(pos).pid(), outcomes.get(pos).join());
+			}
+			return new KillReport(report);
+		});
+	}
+
+	private CompletableFuture<KillOutcome> kill(final ProcessHandle processHandle) {
+		if (processHandle.isAlive() == false) {
+			return completedFuture(KillOutcome.ALREADY_ENDED);
+		}
+		log.info(LOG_CLOSE_MANUALLY_PROCESS, () -> processHandleToString(processHandle));
+		if (processHandle.destroy() == false) {
+			return forceKill(processHandle);
+		} else if (waitTermination == false) {
+			return completedFuture(KillOutcome.TERMINATED);
+		}
+		return processHandle.onExit()
+		        .thenApply(p -> true)
+		        .completeOnTimeout(false, gracePeriod.toMillis(), TimeUnit.MILLISECONDS)
+		        .thenCompose(ended -> {
+			        if (ended.booleanValue()) {
+				        return completedFuture(KillOutcome.TERMINATED);
+			        }
+			        return forceKill(processHandle);
+		        });
+	}
+
+	private CompletableFuture<KillOutcome> forceKill(final ProcessHandle processHandle) {
+		if (processHandle.isAlive() == false) {
+			return completedFuture(KillOutcome.TERMINATED);
+		}
+		log.info(LOG_FORCE_TO_CLOSE_PROCESS, () -> processHandleToString(processHandle));
+		if (processHandle.destroyForcibly() == false) {
+			log.error("Can't force close process {}", () -> processHandleToString(processHandle));
+			return completedFuture(KillOutcome.CANT_KILL);
+		} else if (waitTermination == false) {
+			return completedFuture(KillOutcome.FORCED);
+		}
+		return processHandle.onExit()
+		        .thenApply(p -> KillOutcome.FORCED)
+		        .completeOnTimeout(KillOutcome.CANT_KILL, forcedKillTimeout.toMillis(), TimeUnit.MILLISECONDS);
+	}
+
+	private static String processHandleToString(final ProcessHandle processHandle) {
+		if (log.isDebugEnabled()) {
+			return processHandle.info().command().orElse("<?>") + " #" + processHandle.pid() + " by " + processHandle
+			        .info().user().orElse("<?>") + " since " + processHandle.info().totalCpuDuration().orElse(
+			                Duration.ZERO).getSeconds() + " sec";
+		} else {
+			return processHandle.info().commandLine().orElse("<?>") + " #" + processHandle.pid();
+		}
+	}
+
+	@Override
+	public String toString() {
+		if (waitTermination == false) {
+			return "SIGTERM, without wait";
+		}
+		return "SIGTERM, " + gracePeriod.toMillis() + " ms, SIGKILL, " + forcedKillTimeout.toMillis() + " ms";
+	}
+
+}
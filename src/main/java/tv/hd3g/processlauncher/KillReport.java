@@ -0,0 +1,69 @@
+/*
+ * This file is part of processlauncher.
+ *
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation; either version 3 of the License, or
+ * any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU Lesser General Public License for more details.
+ *
+ * Copyright (C) hdsdi3g for hd3g.tv 2019
+ *
+ */
+package tv.hd3g.processlauncher;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.stream.Collectors;
+
+/**
+ * The outcome of a KillPolicy, by PID, for a process and its descendants.
+ */
+public class KillReport {
+
+	private final Map<Long, KillOutcome> outcomes;
+
+	KillReport(final Map<Long, KillOutcome> outcomes) {
+		this.outcomes = Collections.unmodifiableMap(outcomes);
+	}
+
+	/**
+	 * @return unmodifiableMap, descendants first, the killed process last.
+	 */
+	public Map<Long, KillOutcome> getOutcomes() {
+		return outcomes;
+	}
+
+	public Optional<KillOutcome> getOutcome(final long pid) {
+		return Optional.ofNullable(outcomes.get(pid));
+	}
+
+	/**
+	 * @return unmodifiableList
+	 */
+	public List<Long> getCantKillPIDs() {
+		return outcomes.entrySet().stream()
+		        .filter(entry -> entry.getValue() == KillOutcome.CANT_KILL)
+		        .map(Map.Entry::getKey)
+		        .collect(Collectors.toUnmodifiableList());
+	}
+
+	/**
+	 * @return true if all the processes are ended
+	 */
+	public boolean isDone() {
+		return outcomes.containsValue(KillOutcome.CANT_KILL) == false;
+	}
+
+	@Override
+	public String toString() {
+		return outcomes.toString();
+	}
+
+}
@@ -16,6 +16,8 @@
  */
 package tv.hd3g.processlauncher;
 
+import java.util.concurrent.TimeUnit;
+
 public class LineEntry {
 
 	private final long date;
@@ -30,10 +32,21 @@ public class LineEntry {
 		this.date = date;
 	}
 
+	/**
+	 * @return milliseconds since the process start
+	 */
 	public long getTimeAgo() {
 		return date - source.getStartDate();
 	}
 
+	/**
+	 * @return nanoseconds since the process start, with a millisecond precision if not dated by
+	 *         LineTimestampMode.MONOTONIC/COARSE_MONOTONIC
+	 */
+	public long getTimeAgoNanos() {
+		return TimeUnit.MILLISECONDS.toNanos(getTimeAgo());
+	}
+
 	public long getDate() {
 		return date;
 	}
@@ -61,9 +74,9 @@ public class LineEntry {
 	public String toString() {
 		final var execName = source.getLauncher().getExecutableName();
 		if (stdErr) {
-			return execName + " ❌ " + line;
+			return execName + " ❌ " + getLine();
 		} else {
-			return execName + " ✅ " + line;
+			return execName + " ✅ " + getLine();
 		}
 	}
 
@@ -0,0 +1,145 @@
+/*
+ * This file is part of processlauncher.
+ *
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation; either version 3 of the License, or
+ * any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU Lesser General Public License for more details.
+ *
+ * Copyright (C) hdsdi3g for hd3g.tv 2019
+ *
+ */
+package tv.hd3g.processlauncher;
+
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.Flow;
+import java.util.concurrent.Flow.Subscriber;
+import java.util.concurrent.Flow.Subscription;
+
+/**
+ * Blocking and live iterator over the captured lines of a running process, subscribed to a
+ * CapturedStdOutErrTextPublisher. Only bufferSize lines can be waiting here: if this iterator is not read, the stream
+ * parsers wait, and so the process.
+ * Ends when all captured streams are closed. Close it if it's not read to the end, else the process will be stuck.
+ * Not thread safe: read it from only one thread.
+ */
+public class LineEntryIterator implements Iterator<LineEntry>, AutoCloseable {
+
+	public static final int DEFAULT_BUFFER_SIZE = 256;
+
+	private static final LineEntry END = new LineEntry(0, null, false, null);
+
+	private final ArrayBlockingQueue<LineEntry> buffer;
+	private final int refillSize;
+	private volatile Subscription subscription;
+	private volatile Throwable error;
+
+	private LineEntry next;
+	private int consumed;
+	private boolean finished;
+
+	LineEntryIterator(final Flow.Publisher<LineEntry> publisher, final int bufferSize) {
+		if (bufferSize < 1) {
+			throw new IllegalArgumentException("Invalid bufferSize: " + bufferSize);
+		}
+		buffer = new ArrayBlockingQueue<>(bufferSize + 1);
+		refillSize = Math.max(1, bufferSize / 2);
+		publisher.subscribe(new Subscriber<LineEntry>() {
+
+			@Override
+			public void onSubscribe(final Subscription subscription) {
+				LineEntryIterator.this.subscription = subscription;
+				subscription.request(bufferSize);
+			}
+
+			@Override
+			public void onNext(final LineEntry item) {
+				buffer.add(item);
+			}
+
+			@Override
+			public void onError(final Throwable throwable) {
+				error = throwable;
+				buffer.add(END);
+			}
+
+			@Override
+			public void onComplete() {
+				buffer.add(END);
+			}
+		});
+	}
+
+	/**
+	 * Blocking, until the next line or the end of the streams. The subscription is canceled at the end.
+	 * @throws ProcessLifeCycleException if the process streams can't be read, or if the wait is interrupted (the
+	 *         iterator is then closed, and the thread interrupt flag is kept)
+	 */
+	@Override
+	public boolean hasNext() {
+		if (next != null) {
+			return true;
+		} else if (finished) {
+			return false;
+		}
+		try {
+			next = buffer.take();
+		} catch (final InterruptedException e) {
+			Thread.currentThread().interrupt();
+			close();
+			throw new ProcessLifeCycleException("Can't wait for the next line", e);
+		}
+		if (next == END) {
+			next = null;
+			finished = true;
+			subscription.cancel();
+			if (error != null) {
+				throw new ProcessLifeCycleException("Can't read process output", error);
+			}
+			return false;
+		}
+		consumed++;
+		if (consumed >= refillSize) {
+			subscription.request(consumed);
+			consumed = 0;
+		}
+		return true;
+	}
+
+	/**
+	 * Blocking, until the next line.
+	 */
+	@Override
+	public LineEntry next() {
+		if (hasNext() == false) {
+			throw new NoSuchElementException();
+		}
+		final var result = next;
+		next = null;
+		return result;
+	}
+
+	/**
+	 * Cancel the subscription: the stream parsers don't wait for this iterator anymore.
+	 */
+	@Override
+	public void close() {
+		if (finished) {
+			return;
+		}
+		finished = true;
+		next = null;
+		if (subscription != null) {
+			subscription.cancel();
+		}
+		buffer.clear();
+	}
+
+}
@@ -0,0 +1,88 @@
+/*
+ * This file is part of processlauncher.
+ *
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation; either version 3 of the License, or
+ * any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU Lesser General Public License for more details.
+ *
+ * Copyright (C) hdsdi3g for hd3g.tv 2019
+ *
+ */
+package tv.hd3g.processlauncher;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+
+import java.nio.ByteBuffer;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+
+import tv.hd3g.processlauncher.LineEntryStore.SequencedLineEntry;
+
+/**
+ * The binary record of a line, shared by the stores which serialize lines.
+ * Record format: sequence (long), date (long), stdErr (byte), line length (int), then UTF-8 line.
+ */
+final class LineEntryRecordCodec {
+
+	static final int RECORD_HEADER_SIZE = Long.BYTES * 2 + 1 + Integer.BYTES;
+
+	private LineEntryRecordCodec() {
+	}
+
+	/**
+	 * Only put the record header: the line bytes must be put just after.
+	 */
+	static void putHeader(final ByteBuffer buffer,
+	                      final long sequence,
+	                      final LineEntry lineEntry,
+	                      final int lineBytesLength) {
+		buffer.putLong(sequence);
+		buffer.putLong(lineEntry.getDate());
+		buffer.put(lineEntry.isStdErr() ? (byte) 1 : 0);
+		buffer.putInt(lineBytesLength);
+	}
+
+	static void put(final ByteBuffer buffer, final long sequence, final LineEntry lineEntry, final byte[] lineBytes) {
+		putHeader(buffer, sequence, lineEntry, lineBytes.length);
+		buffer.put(lineBytes);
+	}
+
+	/**
+	 * @param records read from its position to its limit, during the stream
+	 */
+	static Stream<SequencedLineEntry> read(final ByteBuffer records, final ProcesslauncherLifecycle source) {
+		final var iterator = new Iterator<SequencedLineEntry>() {
+
+			@Override
+			public boolean hasNext() {
+				return records.hasRemaining();
+			}
+
+			@Override
+			public SequencedLineEntry next() {
+				if (records.hasRemaining() == false) {
+					throw new NoSuchElementException();
+				}
+				final var sequence = records.getLong();
+				final var date = records.getLong();
+				final var stdErr = records.get() == 1;
+				final var line = new byte[records.getInt()];
+				records.get(line);
+				return new SequencedLineEntry(sequence, new LineEntry(date, new String(line, UTF_8), stdErr, source));
+			}
+		};
+		return StreamSupport.stream(Spliterators.spliteratorUnknownSize(iterator,
+		        Spliterator.ORDERED | Spliterator.NONNULL), false);
+	}
+
+}
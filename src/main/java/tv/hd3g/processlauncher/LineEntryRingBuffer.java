@@ -0,0 +1,177 @@
+/*
+ * This file is part of processlauncher.
+ *
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation; either version 3 of the License, or
+ * any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU Lesser General Public License for more details.
+ *
+ * Copyright (C) hdsdi3g for hd3g.tv 2019
+ *
+ */
+package tv.hd3g.processlauncher;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Objects;
+import java.util.stream.IntStream;
+import java.util.stream.Stream;
+
+/**
+ * Array backed LineEntry storage for CapturedStdOutErrTextRetention: a head list for the first lines, and a ring for
+ * the last lines. Arrays grows by doubling up to the limits, so the ring don't allocate anything once full.
+ * Not thread safe.
+ */
+class LineEntryRingBuffer implements LineEntryStore {
+	private static final int INITIAL_SIZE = 64;
+
+	private final LineRetentionLimits limits;
+	private final long firstLinesMaxBytes;
+
+	private LineEntry[] head;
+	private long[] headSequences;
+	private int headSize;
+	private long headBytes;
+	private boolean headIsClosed;
+
+	private LineEntry[] ring;
+	private long[] ringSequences;
+	private int ringStart;
+	private int ringSize;
+	private long ringBytes;
+
+	private long emptyLines;
+	private long droppedLines;
+
+	LineEntryRingBuffer(final LineRetentionLimits limits) {
+		this.limits = Objects.requireNonNull(limits, "\"limits\" can't to be null");
+		firstLinesMaxBytes = limits.getFirstLinesMaxBytes();
+		head = new LineEntry[Math.min(INITIAL_SIZE, limits.getFirstLines())];
+		headSequences = new long[head.length];
+		ring = new LineEntry[Math.min(INITIAL_SIZE, limits.getLastLines())];
+		ringSequences = new long[ring.length];
+	}
+
+	@Override
+	public void add(final LineEntry lineEntry, final long sequence) {
+		final long size = lineEntry.getLine().length();
+
+		if (headIsClosed == false) {
+			if (headSize < limits.getFirstLines() && headBytes + size <= firstLinesMaxBytes) {
+				if (headSize == head.length) {
+					final var newSize = (int) Math.min(head.length * 2L, limits.getFirstLines());
+					head = Arrays.copyOf(head, newSize);
+					headSequences = Arrays.copyOf(headSequences, newSize);
+				}
+				head[headSize] = lineEntry;
+				headSequences[headSize] = sequence;
+				headSize++;
+				headBytes += size;
+				if (size == 0) {
+					emptyLines++;
+				}
+				return;
+			}
+			headIsClosed = true;
+		}
+
+		final var maxRingBytes = limits.getMaxBytes() - headBytes;
+		if (limits.getLastLines() == 0 || size > maxRingBytes) {
+			droppedLines++;
+			return;
+		}
+		while (ringSize == limits.getLastLines() || ringBytes + size > maxRingBytes) {
+			final var evictedSize = ring[ringStart].getLine().length();
+			ringBytes -= evictedSize;
+			if (evictedSize == 0) {
+				emptyLines--;
+			}
+			ring[ringStart] = null;
+			ringStart = (ringStart + 1) % ring.length;
+			ringSize--;
+			droppedLines++;
+		}
+		if (ringSize == ring.length) {
+			growRing();
+		}
+		final var pos = (ringStart + ringSize) % ring.length;
+		ring[pos] = lineEntry;
+		ringSequences[pos] = sequence;
+		ringSize++;
+		ringBytes += size;
+		if (size == 0) {
+			emptyLines++;
+		}
+	}
+
+	private void growRing() {
+		final var newSize = (int) Math.min(ring.length * 2L, limits.getLastLines());
+		final var newRing = new LineEntry[newSize];
+		final var newRingSequences = new long[newSize];
+		for (var pos = 0; pos < ringSize; pos++) {
+			newRing[pos] = ring[(ringStart + pos) % ring.length];
+			newRingSequences[pos] = ringSequences[(ringStart + pos) % ring.length];
+		}
+		ring = newRing;
+		ringSequences = newRingSequences;
+		ringStart = 0;
+	}
+
+	/**
+	 * @return a copy of all kept lines, in add order (first lines, then last lines).
+	 */
+	List<LineEntry> toList() {
+		final var result = new ArrayList<LineEntry>(headSize + ringSize);
+		for (var pos = 0; pos < headSize; pos++) {
+			result.add(head[pos]);
+		}
+		for (var pos = 0; pos < ringSize; pos++) {
+			result.add(ring[(ringStart + pos) % ring.length]);
+		}
+		return result;
+	}
+
+	@Override
+	public Stream<LineEntry> stream() {
+		return toList().stream();
+	}
+
+	@Override
+	public Stream<SequencedLineEntry> sequencedStream() {
+		final var lines = toList();
+		final var sequences = new long[lines.size()];
+		System.arraycopy(headSequences, 0, sequences, 0, headSize);
+		for (var pos = 0; pos < ringSize; pos++) {
+			sequences[headSize + pos] = ringSequences[(ringStart + pos) % ring.length];
+		}
+		return IntStream.range(0, sequences.length)
+		        .mapToObj(pos -> new SequencedLineEntry(sequences[pos], lines.get(pos)));
+	}
+
+	@Override
+	public long size() {
+		return (long) headSize + ringSize;
+	}
+
+	@Override
+	public long getEmptyLines() {
+		return emptyLines;
+	}
+
+	@Override
+	public long getBytes() {
+		return headBytes + ringBytes;
+	}
+
+	@Override
+	public long getDroppedLines() {
+		return droppedLines;
+	}
+
+}
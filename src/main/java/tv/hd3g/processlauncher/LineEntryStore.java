@@ -0,0 +1,74 @@
+/*
+ * This file is part of processlauncher.
+ *
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation; either version 3 of the License, or
+ * any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU Lesser General Public License for more details.
+ *
+ * Copyright (C) hdsdi3g for hd3g.tv 2019
+ *
+ */
+package tv.hd3g.processlauncher;
+
+import java.util.stream.Stream;
+
+/**
+ * Where CapturedStdOutErrTextRetention keeps the lines of one stream. Not thread safe.
+ */
+interface LineEntryStore {
+
+	/**
+	 * @param sequence add order between all stores of a retention, for merge them.
+	 */
+	void add(LineEntry lineEntry, long sequence);
+
+	/**
+	 * @return all kept lines, in add order. Later adds are not visible in this stream.
+	 */
+	Stream<LineEntry> stream();
+
+	/**
+	 * @return like stream(), with the add sequence of each line.
+	 */
+	Stream<SequencedLineEntry> sequencedStream();
+
+	/**
+	 * @return kept lines count
+	 */
+	long size();
+
+	/**
+	 * @return kept empty lines count
+	 */
+	long getEmptyLines();
+
+	/**
+	 * @return kept lines text size, in chars
+	 */
+	long getBytes();
+
+	long getDroppedLines();
+
+	/**
+	 * Release the resources kept out of the heap, if any. The lines kept by them are dropped.
+	 */
+	default void close() {
+	}
+
+	class SequencedLineEntry {
+		final long sequence;
+		final LineEntry lineEntry;
+
+		SequencedLineEntry(final long sequence, final LineEntry lineEntry) {
+			this.sequence = sequence;
+			this.lineEntry = lineEntry;
+		}
+	}
+
+}
@@ -0,0 +1,114 @@
+/*
+ * This file is part of processlauncher.
+ *
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation; either version 3 of the License, or
+ * any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU Lesser General Public License for more details.
+ *
+ * Copyright (C) hdsdi3g for hd3g.tv 2019
+ *
+ */
+package tv.hd3g.processlauncher;
+
+/**
+ * How many lines/text CapturedStdOutErrTextRetention can keep.
+ * The text size is counted in chars, like a byte count for ASCII outputs.
+ * Immutable.
+ */
+public class LineRetentionLimits {
+
+	/**
+	 * Keep all lines.
+	 */
+	public static final LineRetentionLimits UNLIMITED = new LineRetentionLimits(Integer.MAX_VALUE, 0, Long.MAX_VALUE);
+
+	private final int firstLines;
+	private final int lastLines;
+	private final long maxBytes;
+
+	private LineRetentionLimits(final int firstLines, final int lastLines, final long maxBytes) {
+		if (firstLines < 0) {
+			throw new IllegalArgumentException("Invalid firstLines: " + firstLines);
+		} else if (lastLines < 0) {
+			throw new IllegalArgumentException("Invalid lastLines: " + lastLines);
+		} else if (maxBytes < 1) {
+			throw new IllegalArgumentException("Invalid maxBytes: " + maxBytes);
+		}
+		this.firstLines = firstLines;
+		this.lastLines = lastLines;
+		this.maxBytes = maxBytes;
+	}
+
+	/**
+	 * Keep the N first lines, drop the next.
+	 */
+	public static LineRetentionLimits keepFirst(final int lines) {
+		return new LineRetentionLimits(lines, 0, Long.MAX_VALUE);
+	}
+
+	/**
+	 * Keep the N last lines, drop the older.
+	 */
+	public static LineRetentionLimits keepLast(final int lines) {
+		return new LineRetentionLimits(0, lines, Long.MAX_VALUE);
+	}
+
+	/**
+	 * Keep the N first lines and the M last lines, drop the lines between.
+	 */
+	public static LineRetentionLimits keepFirstAndLast(final int firstLines, final int lastLines) {
+		return new LineRetentionLimits(firstLines, lastLines, Long.MAX_VALUE);
+	}
+
+	/**
+	 * @param maxBytes total text size limit for all kept lines. With first and last lines, the first lines can't take
+	 *        more than the half of it.
+	 * @return a new LineRetentionLimits
+	 */
+	public LineRetentionLimits withMaxBytes(final long maxBytes) {
+		return new LineRetentionLimits(firstLines, lastLines, maxBytes);
+	}
+
+	public int getFirstLines() {
+		return firstLines;
+	}
+
+	public int getLastLines() {
+		return lastLines;
+	}
+
+	public long getMaxBytes() {
+		return maxBytes;
+	}
+
+	/**
+	 * Max text size for the first lines.
+	 */
+	long getFirstLinesMaxBytes() {
+		if (lastLines == 0) {
+			return maxBytes;
+		}
+		return maxBytes / 2;
+	}
+
+	@Override
+	public String toString() {
+		final var sb = new StringBuilder();
+		sb.append("first=");
+		sb.append(firstLines);
+		sb.append(", last=");
+		sb.append(lastLines);
+		if (maxBytes < Long.MAX_VALUE) {
+			sb.append(", maxBytes=");
+			sb.append(maxBytes);
+		}
+		return sb.toString();
+	}
+
+}
@@ -0,0 +1,57 @@
+/*
+ * This file is part of processlauncher.
+ *
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation; either version 3 of the License, or
+ * any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU Lesser General Public License for more details.
+ *
+ * Copyright (C) hdsdi3g for hd3g.tv 2019
+ *
+ */
+package tv.hd3g.processlauncher;
+
+/**
+ * How captured lines are dated.
+ */
+public enum LineTimestampMode {
+
+	/**
+	 * System.currentTimeMillis() by line (the default).
+	 */
+	WALL_CLOCK {
+		@Override
+		LineEntry createLineEntry(final String line, final boolean stdErr, final ProcesslauncherLifecycle source) {
+			return new LineEntry(System.currentTimeMillis(), line, stdErr, source);
+		}
+	},
+	/**
+	 * System.nanoTime() by line, relative to the process start: immune to wall-clock jumps.
+	 * Wall-clock dates are computed on demand from the process start date.
+	 */
+	MONOTONIC {
+		@Override
+		LineEntry createLineEntry(final String line, final boolean stdErr, final ProcesslauncherLifecycle source) {
+			return new MonotonicLineEntry(System.nanoTime() - source.getStartNanoTime(), line, stdErr, source);
+		}
+	},
+	/**
+	 * Like MONOTONIC, but read a shared clock, updated every 1 ms by a daemon thread: cheaper by line,
+	 * with a 1 ms precision.
+	 */
+	COARSE_MONOTONIC {
+		@Override
+		LineEntry createLineEntry(final String line, final boolean stdErr, final ProcesslauncherLifecycle source) {
+			return new MonotonicLineEntry(CoarseNanoClock.nanoTime() - source.getStartNanoTime(), line, stdErr,
+			        source);
+		}
+	};
+
+	abstract LineEntry createLineEntry(String line, boolean stdErr, ProcesslauncherLifecycle source);
+
+}
@@ -0,0 +1,57 @@
+/*
+ * This file is part of processlauncher.
+ *
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation; either version 3 of the License, or
+ * any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU Lesser General Public License for more details.
+ *
+ * Copyright (C) hdsdi3g for hd3g.tv 2019
+ *
+ */
+package tv.hd3g.processlauncher;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * A LineEntry dated with a monotonic clock, relative to the process start.
+ */
+class MonotonicLineEntry extends LineEntry {
+
+	private final long nanosFromStart;
+
+	MonotonicLineEntry(final long nanosFromStart,
+	                   final String line,
+	                   final boolean stdErr,
+	                   final ProcesslauncherLifecycle source) {
+		super(0, line, stdErr, source);
+		this.nanosFromStart = nanosFromStart;
+	}
+
+	/**
+	 * Don't query the process start date.
+	 */
+	@Override
+	public long getTimeAgo() {
+		return TimeUnit.NANOSECONDS.toMillis(nanosFromStart);
+	}
+
+	/**
+	 * Computed on demand, from the process start wall-clock date.
+	 */
+	@Override
+	public long getDate() {
+		return getSource().getLocalStartDate() + getTimeAgo();
+	}
+
+	@Override
+	public long getTimeAgoNanos() {
+		return nanosFromStart;
+	}
+
+}
@@ -0,0 +1,41 @@
+/*
+ * This file is part of processlauncher.
+ *
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation; either version 3 of the License, or
+ * any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU Lesser General Public License for more details.
+ *
+ * Copyright (C) hdsdi3g for hd3g.tv 2019
+ *
+ */
+package tv.hd3g.processlauncher;
+
+/**
+ * What CapturedStdOutErrTextAsync do with a new line when its queue is full.
+ */
+public enum ObserverOverflowPolicy {
+
+	/**
+	 * Wait for a free place: the stream parser is blocked, and so the process, like a synchronous observer.
+	 */
+	BLOCK,
+	/**
+	 * Drop the older queued line.
+	 */
+	DROP_OLDEST,
+	/**
+	 * Drop the new line.
+	 */
+	DROP_NEWEST,
+	/**
+	 * Keep one new line every sampleRate (in place of the older queued line), drop the others.
+	 */
+	SAMPLE;
+
+}
@@ -17,11 +17,15 @@
 package tv.hd3g.processlauncher;
 
 import java.io.IOException;
+import java.nio.charset.Charset;
+import java.time.Duration;
 import java.util.ArrayList;
 import java.util.Collections;
 import java.util.List;
 import java.util.Objects;
 import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
 
 public class Processlauncher {
 
@@ -30,6 +34,11 @@ public class Processlauncher {
 	private final Optional<ExecutionTimeLimiter> executionTimeLimiter;
 	private final Optional<CaptureStandardOutput> captureStandardOutput;
 	private final Optional<ExternalProcessStartup> externalProcessStartup;
+	private final Optional<Duration> redirectedFilesTailPollInterval;
+	private final Optional<Charset> outputCharset;
+	private final Optional<LineTimestampMode> lineTimestampMode;
+	private final Optional<Executor> endExecutionCallbackExecutor;
+	private final Optional<KillPolicy> killPolicy;
 	private final ProcessBuilder processBuilder;
 	private final String fullCommandLine;
 	private final ProcesslauncherBuilder processlauncherBuilder;
@@ -45,6 +54,11 @@ public class Processlauncher {
 		executionTimeLimiter = processlauncherBuilder.getExecutionTimeLimiter();
 		captureStandardOutput = processlauncherBuilder.getCaptureStandardOutput();
 		externalProcessStartup = processlauncherBuilder.getExternalProcessStartup();
+		redirectedFilesTailPollInterval = processlauncherBuilder.getRedirectedFilesTailPollInterval();
+		outputCharset = processlauncherBuilder.getOutputCharset();
+		lineTimestampMode = processlauncherBuilder.getLineTimestampMode();
+		endExecutionCallbackExecutor = processlauncherBuilder.getEndExecutionCallbackExecutor();
+		killPolicy = processlauncherBuilder.getKillPolicy();
 		processBuilder = processlauncherBuilder.makeProcessBuilder();
 		fullCommandLine = processlauncherBuilder.getFullCommandLine();
 		executableName = processlauncherBuilder.getExecutableName();
@@ -54,6 +68,30 @@ public class Processlauncher {
 		return new ProcesslauncherLifecycle(this);
 	}
 
+	/**
+	 * Run start() on executor, so the caller thread is never blocked by the process startup.
+	 * @return a future completed exceptionally if the process can't start, by a CompletionException with a
+	 *         ProcessLifeCycleException as cause: get() throws an ExecutionException, and join() a CompletionException,
+	 *         with this same cause.
+	 */
+	public CompletableFuture<ProcesslauncherLifecycle> startAsync(final Executor executor) {
+		Objects.requireNonNull(executor, "\"executor\" can't to be null");
+		return CompletableFuture.supplyAsync(() -> {
+			try {
+				return start();
+			} catch (final IOException e) {
+				throw new ProcessLifeCycleException("Can't start " + fullCommandLine, e);
+			}
+		}, executor);
+	}
+
+	/**
+	 * Run start() on the shared virtual thread executor (or a cached thread pool if not available).
+	 */
+	public CompletableFuture<ProcesslauncherLifecycle> startAsync() {
+		return startAsync(ProcesslauncherExecutors.getVirtualThreadExecutor());
+	}
+
 	/**
 	 * @return unmodifiableList
 	 */
@@ -73,6 +111,38 @@ public class Processlauncher {
 		return externalProcessStartup;
 	}
 
+	public Optional<Duration> getRedirectedFilesTailPollInterval() {
+		return redirectedFilesTailPollInterval;
+	}
+
+	/**
+	 * @return empty for the JVM default charset
+	 */
+	public Optional<Charset> getOutputCharset() {
+		return outputCharset;
+	}
+
+	/**
+	 * @return empty for LineTimestampMode.WALL_CLOCK
+	 */
+	public Optional<LineTimestampMode> getLineTimestampMode() {
+		return lineTimestampMode;
+	}
+
+	/**
+	 * @return empty for the shared default pool, bounded to the CPU count
+	 */
+	public Optional<Executor> getEndExecutionCallbackExecutor() {
+		return endExecutionCallbackExecutor;
+	}
+
+	/**
+	 * @return empty for KillPolicy.DEFAULT
+	 */
+	public Optional<KillPolicy> getKillPolicy() {
+		return killPolicy;
+	}
+
 	public boolean isExecCodeMustBeZero() {
 		return execCodeMustBeZero;
 	}
@@ -5,6 +5,9 @@ import static java.nio.charset.StandardCharsets.UTF_8;
 import java.io.File;
 import java.io.FileNotFoundException;
 import java.io.IOException;
+import java.lang.ProcessBuilder.Redirect;
+import java.nio.charset.Charset;
+import java.time.Duration;
 import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Collections;
@@ -13,6 +16,8 @@ import java.util.List;
 import java.util.Locale;
 import java.util.Objects;
 import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
 import java.util.concurrent.ScheduledExecutorService;
 import java.util.concurrent.TimeUnit;
 import java.util.function.BiConsumer;
@@ -34,6 +39,13 @@ public class ProcesslauncherBuilder {
 	private Optional<ExecutionTimeLimiter> executionTimeLimiter;
 	private Optional<CaptureStandardOutput> captureStandardOutput;
 	private Optional<ExternalProcessStartup> externalProcessStartup;
+	private Optional<Redirect> redirectStdOut;
+	private Optional<Redirect> redirectStdErr;
+	private Optional<Duration> redirectedFilesTailPollInterval;
+	private Optional<Charset> outputCharset;
+	private Optional<LineTimestampMode> lineTimestampMode;
+	private Optional<Executor> endExecutionCallbackExecutor;
+	private Optional<KillPolicy> killPolicy;
 
 	public ProcesslauncherBuilder(final File executable, final Collection<String> parameters,
 	                              final ExecutableFinder execFinder) {
@@ -58,6 +70,13 @@ public class ProcesslauncherBuilder {
 		executionTimeLimiter = Optional.empty();
 		captureStandardOutput = Optional.empty();
 		externalProcessStartup = Optional.empty();
+		redirectStdOut = Optional.empty();
+		redirectStdErr = Optional.empty();
+		redirectedFilesTailPollInterval = Optional.empty();
+		outputCharset = Optional.empty();
+		lineTimestampMode = Optional.empty();
+		endExecutionCallbackExecutor = Optional.empty();
+		killPolicy = Optional.empty();
 	}
 
 	public ProcesslauncherBuilder(final File executable, final Collection<String> parameters) {
@@ -182,6 +201,114 @@ public class ProcesslauncherBuilder {
 		return captureStandardOutput;
 	}
 
+	/**
+	 * The OS will directly write the process stdout to this file, without any JVM thread.
+	 * @param file null for cancel the redirection
+	 * @param append if false, truncate the file before process start
+	 */
+	public ProcesslauncherBuilder setRedirectStdOutToFile(final File file, final boolean append) {
+		redirectStdOut = Optional.ofNullable(file).map(f -> append ? Redirect.appendTo(f) : Redirect.to(f));
+		return this;
+	}
+
+	/**
+	 * The OS will directly write the process stderr to this file, without any JVM thread.
+	 * @param file null for cancel the redirection
+	 * @param append if false, truncate the file before process start
+	 */
+	public ProcesslauncherBuilder setRedirectStdErrToFile(final File file, final boolean append) {
+		redirectStdErr = Optional.ofNullable(file).map(f -> append ? Redirect.appendTo(f) : Redirect.to(f));
+		return this;
+	}
+
+	public Optional<Redirect> getRedirectStdOut() {
+		return redirectStdOut;
+	}
+
+	public Optional<Redirect> getRedirectStdErr() {
+		return redirectStdErr;
+	}
+
+	/**
+	 * With a stdout/stderr redirected to a file, read back the new file content during the execution,
+	 * polling every pollInterval, and pass it to the CaptureStandardOutput, as the process streams.
+	 * Else, the CaptureStandardOutput will only see empty streams.
+	 * @param pollInterval null for disable it (the default).
+	 */
+	public ProcesslauncherBuilder setRedirectedFilesTailPollInterval(final Duration pollInterval) {
+		if (pollInterval != null && (pollInterval.isNegative() || pollInterval.isZero())) {
+			throw new IllegalArgumentException("Invalid pollInterval value: " + pollInterval);
+		}
+		redirectedFilesTailPollInterval = Optional.ofNullable(pollInterval);
+		return this;
+	}
+
+	public Optional<Duration> getRedirectedFilesTailPollInterval() {
+		return redirectedFilesTailPollInterval;
+	}
+
+	/**
+	 * Used by CaptureStandardOutputText for decode the process stdout/stderr.
+	 * @param outputCharset null for use the JVM default charset (the default).
+	 */
+	public ProcesslauncherBuilder setOutputCharset(final Charset outputCharset) {
+		this.outputCharset = Optional.ofNullable(outputCharset);
+		return this;
+	}
+
+	public Optional<Charset> getOutputCharset() {
+		return outputCharset;
+	}
+
+	/**
+	 * @param lineTimestampMode how to date the captured lines, null for LineTimestampMode.WALL_CLOCK (the default).
+	 */
+	public ProcesslauncherBuilder setLineTimestampMode(final LineTimestampMode lineTimestampMode) {
+		this.lineTimestampMode = Optional.ofNullable(lineTimestampMode);
+		return this;
+	}
+
+	public Optional<LineTimestampMode> getLineTimestampMode() {
+		return lineTimestampMode;
+	}
+
+	/**
+	 * Run the end of execution work (end log, ExecutionCallbacker.onEndExecution, ExternalProcessStartup.onEndProcess)
+	 * on this executor.
+	 * Keep the callbacks short with a bounded executor, or use virtual threads.
+	 * @param endExecutionCallbackExecutor null for a shared pool bounded to the CPU count (the default).
+	 */
+	public ProcesslauncherBuilder setEndExecutionCallbackExecutor(final Executor endExecutionCallbackExecutor) {
+		this.endExecutionCallbackExecutor = Optional.ofNullable(endExecutionCallbackExecutor);
+		return this;
+	}
+
+	/**
+	 * Run the end of execution work on virtual threads (Java 21+). With older JVMs, keep the default bounded shared
+	 * pool.
+	 */
+	public ProcesslauncherBuilder setVirtualThreadEndExecutionCallback() {
+		return setEndExecutionCallbackExecutor(ProcesslauncherExecutors.getVirtualThreadPerTaskExecutor()
+		        .orElse(null));
+	}
+
+	public Optional<Executor> getEndExecutionCallbackExecutor() {
+		return endExecutionCallbackExecutor;
+	}
+
+	/**
+	 * Used by kill() and by the ExecutionTimeLimiter.
+	 * @param killPolicy null for KillPolicy.DEFAULT (the default).
+	 */
+	public ProcesslauncherBuilder setKillPolicy(final KillPolicy killPolicy) {
+		this.killPolicy = Optional.ofNullable(killPolicy);
+		return this;
+	}
+
+	public Optional<KillPolicy> getKillPolicy() {
+		return killPolicy;
+	}
+
 	public ProcessBuilder makeProcessBuilder() {
 		final List<String> fullCommandLine = new ArrayList<>();
 		fullCommandLine.add(executable.getPath());
@@ -195,6 +322,8 @@ public class ProcesslauncherBuilder {
 		} else {
 			processBuilder.directory(new File(System.getProperty("user.dir", new File(".").getAbsolutePath())));
 		}
+		redirectStdOut.ifPresent(processBuilder::redirectOutput);
+		redirectStdErr.ifPresent(processBuilder::redirectError);
 		return processBuilder;
 	}
 
@@ -260,6 +389,20 @@ public class ProcesslauncherBuilder {
 		return toProcesslauncher().start();
 	}
 
+	/**
+	 * @return toProcesslauncher().startAsync(executor)
+	 */
+	public CompletableFuture<ProcesslauncherLifecycle> startAsync(final Executor executor) {
+		return toProcesslauncher().startAsync(executor);
+	}
+
+	/**
+	 * @return toProcesslauncher().startAsync()
+	 */
+	public CompletableFuture<ProcesslauncherLifecycle> startAsync() {
+		return toProcesslauncher().startAsync();
+	}
+
 	/**
 	 * Shortcut for setExecutionTimeLimiter
 	 */
@@ -0,0 +1,78 @@
+/*
+ * This file is part of processlauncher.
+ *
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation; either version 3 of the License, or
+ * any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU Lesser General Public License for more details.
+ *
+ * Copyright (C) hdsdi3g for hd3g.tv 2019
+ *
+ */
+package tv.hd3g.processlauncher;
+
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.util.Optional;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+/**
+ * The executors shared by the stream parsers, the async startups, the job graphs and the end callbacks.
+ */
+final class ProcesslauncherExecutors {
+	private static Logger log = LogManager.getLogger();
+
+	private static final AtomicLong CREATED_THREAD_COUNTER = new AtomicLong(-1);
+
+	private static Optional<Executor> virtualThreadPerTaskExecutor;
+	private static Executor virtualThreadExecutor;
+
+	private ProcesslauncherExecutors() {
+	}
+
+	/**
+	 * @return a virtual thread per task executor, or empty before Java 21.
+	 */
+	static synchronized Optional<Executor> getVirtualThreadPerTaskExecutor() {
+		if (virtualThreadPerTaskExecutor == null) {
+			try {
+				virtualThreadPerTaskExecutor = Optional.ofNullable((ExecutorService) MethodHandles.publicLookup()
+				        .findStatic(Executors.class, "newVirtualThreadPerTaskExecutor",
+				                MethodType.methodType(ExecutorService.class))
+				        .invoke());
+			} catch (final Throwable e) {// NOSONAR
+				log.debug("Virtual threads are not available on this JVM", e);
+				virtualThreadPerTaskExecutor = Optional.empty();
+			}
+		}
+		return virtualThreadPerTaskExecutor;
+	}
+
+	/**
+	 * @return a virtual thread per task executor (Java 21+), or a daemon cached thread pool with older JVMs.
+	 */
+	static synchronized Executor getVirtualThreadExecutor() {
+		if (virtualThreadExecutor == null) {
+			virtualThreadExecutor = getVirtualThreadPerTaskExecutor().orElseGet(() -> Executors.newCachedThreadPool(
+			        r -> {
+				        final var t = new Thread(r);
+				        t.setDaemon(true);
+				        t.setName("Processlauncher worker TId#" + CREATED_THREAD_COUNTER.incrementAndGet());
+				        return t;
+			        }));
+		}
+		return virtualThreadExecutor;
+	}
+
+}
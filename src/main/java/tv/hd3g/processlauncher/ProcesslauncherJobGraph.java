@@ -0,0 +1,130 @@
+/*
+ * This file is part of processlauncher.
+ *
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation; either version 3 of the License, or
+ * any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU Lesser General Public License for more details.
+ *
+ * Copyright (C) hdsdi3g for hd3g.tv 2019
+ *
+ */
+package tv.hd3g.processlauncher;
+
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+
+/**
+ * A small DAG of processes: a job is started as soon as all its upstream jobs are correctly done
+ * (probe, then transcode, then package...). Nothing is blocked during the waits, the startups are run on executor.
+ * Dependencies must be added before the jobs which use them, so the graph can't have a cycle.
+ */
+public class ProcesslauncherJobGraph {
+
+	private final Executor executor;
+	private final LinkedHashMap<String, Job> jobs;
+
+	private static class Job {
+		final ProcesslauncherBuilder builder;
+		final List<String> dependsOn;
+
+		Job(final ProcesslauncherBuilder builder, final List<String> dependsOn) {
+			this.builder = builder;
+			this.dependsOn = dependsOn;
+		}
+	}
+
+	public ProcesslauncherJobGraph(final Executor executor) {
+		this.executor = Objects.requireNonNull(executor, "\"executor\" can't to be null");
+		jobs = new LinkedHashMap<>();
+	}
+
+	/**
+	 * Run the process startups on the shared virtual thread executor (or a cached thread pool if not available).
+	 */
+	public ProcesslauncherJobGraph() {
+		this(ProcesslauncherExecutors.getVirtualThreadExecutor());
+	}
+
+	/**
+	 * @param dependsOn names of the jobs which must be correctly done before start this one. They must be already added.
+	 */
+	public synchronized ProcesslauncherJobGraph addJob(final String name,
+	                                                   final ProcesslauncherBuilder builder,
+	                                                   final String... dependsOn) {
+		Objects.requireNonNull(name, "\"name\" can't to be null");
+		Objects.requireNonNull(builder, "\"builder\" can't to be null");
+		Objects.requireNonNull(dependsOn, "\"dependsOn\" can't to be null");
+		if (jobs.containsKey(name)) {
+			throw new IllegalArgumentException("Job \"" + name + "\" is already added");
+		}
+		for (final var upstream : dependsOn) {
+			if (jobs.containsKey(upstream) == false) {
+				throw new IllegalArgumentException("Unknown upstream job \"" + upstream + "\" for \"" + name + "\"");
+			}
+		}
+		jobs.put(name, new Job(builder, List.of(dependsOn)));
+		return this;
+	}
+
+	/**
+	 * @return unmodifiableSet, in the add order
+	 */
+	public synchronized Set<String> getJobNames() {
+		return Collections.unmodifiableSet(new LinkedHashSet<>(jobs.keySet()));
+	}
+
+	/**
+	 * @return unmodifiableList
+	 */
+	public synchronized List<String> getDependsOn(final String name) {
+		final var job = jobs.get(name);
+		if (job == null) {
+			throw new IllegalArgumentException("Unknown job \"" + name + "\"");
+		}
+		return job.dependsOn;
+	}
+
+	/**
+	 * Start a new run of all the jobs. The builders are read now: later changes on them will not be used by this run.
+	 * Each future is completed by the job lifecycle after its onEnd(), or completed exceptionally by:
+	 * - an InvalidExecution if the job is not correctly done (checkExecution),
+	 * - a ProcessLifeCycleException if the process can't start,
+	 * - the upstream failure, without start the job, if an upstream job has failed or was cancelled.
+	 * Cancel a future don't kill a running process, but the downstream jobs will not be started.
+	 * @return unmodifiableMap of futures by job names, in the add order
+	 */
+	public synchronized Map<String, CompletableFuture<ProcesslauncherLifecycle>> start() {
+		final var results = new LinkedHashMap<String, CompletableFuture<ProcesslauncherLifecycle>>(jobs.size());
+		jobs.forEach((name, job) -> {
+			final var launcher = job.builder.toProcesslauncher();
+			final var upstreams = job.dependsOn.stream()
+			        .map(results::get)
+			        .toArray(CompletableFuture[]::new);
+			final var result = CompletableFuture.allOf(upstreams)
+			        .thenCompose(v -> launcher.startAsync(executor))
+			        .thenCompose(ProcesslauncherLifecycle::onEnd)
+			        .thenApply(lifecycle -> {
+				        if (lifecycle.isCorrectlyDone() == false) {
+					        throw new InvalidExecution(lifecycle);
+				        }
+				        return lifecycle;
+			        });
+			results.put(name, result);
+		});
+		return Collections.unmodifiableMap(results);
+	}
+
+}
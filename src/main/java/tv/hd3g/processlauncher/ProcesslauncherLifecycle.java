@@ -18,13 +18,23 @@ package tv.hd3g.processlauncher;
 
 import java.io.IOException;
 import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
 import java.util.Objects;
 import java.util.Optional;
+import java.util.WeakHashMap;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
 import java.util.concurrent.Executor;
-import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
 import java.util.concurrent.atomic.AtomicLong;
-import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
@@ -32,46 +42,54 @@ import org.apache.logging.log4j.Logger;
 import tv.hd3g.processlauncher.cmdline.ExecutableFinder;
 
 public class ProcesslauncherLifecycle {
-	private static final String LOG_FORCE_TO_CLOSE_PROCESS = "Force to close process {}";
-	private static final String LOG_CLOSE_MANUALLY_PROCESS = "Close manually process {}";
-
 	private static Logger log = LogManager.getLogger();
 
-	private static final Executor END_EXEC_CALLBACK;
-	private static final AtomicLong END_EXEC_CALLBACK_COUNT;
-
-	static {
-		END_EXEC_CALLBACK_COUNT = new AtomicLong(0);
-		END_EXEC_CALLBACK = Executors.newCachedThreadPool(r -> {
-			final var t = new Thread(r);
-			t.setPriority(Thread.MIN_PRIORITY);
-			t.setDaemon(true);
-			t.setName("EndProcessExecCallback#" + END_EXEC_CALLBACK_COUNT.getAndIncrement());
-			return t;
-		});
-	}
+	private static final AtomicLong END_EXEC_CALLBACK_COUNT = new AtomicLong(0);
+	private static final Map<Executor, AtomicInteger> END_EXEC_CALLBACK_QUEUE_DEPTHS = Collections.synchronizedMap(
+	        new WeakHashMap<>());
+	private static ThreadPoolExecutor defaultEndExecCallback;
 
 	private final Processlauncher launcher;
 	private final Process process;
-	private final Thread shutdownHook;
 	private final String fullCommandLine;
 	private final long startDate;
+	private final long startNanoTime;
+	private volatile long processStartDate;
 
 	private volatile boolean processWasKilled;
 	private volatile boolean processWasStoppedBecauseTooLongTime;
 	private volatile long endDate;
 	private StdInInjection stdInInjection;
+	private volatile CapturedStdOutErrTextPublisher linePublisher;
+	private final List<CompletableFuture<?>> capturedStreams;
+	private final CompletableFuture<ProcesslauncherLifecycle> onEnd;
 
 	ProcesslauncherLifecycle(final Processlauncher launcher) throws IOException {
+		this(launcher, null);
+	}
+
+	/**
+	 * @param pipelineProcess null for start the process here, else the process started by ProcesslauncherPipeline for
+	 *        this launcher. With a pipeline, the tails of the redirected files start from the sizes after the start.
+	 */
+	ProcesslauncherLifecycle(final Processlauncher launcher, final Process pipelineProcess) throws IOException {
 		this.launcher = launcher;
+		capturedStreams = new ArrayList<>(2);
+		onEnd = new CompletableFuture<>();
 		processWasKilled = false;
 		processWasStoppedBecauseTooLongTime = false;
 		fullCommandLine = launcher.getFullCommandLine();
 
 		final var pBuilder = launcher.getProcessBuilder();
 
+		final var stdOutTailFrom = RedirectedFileTailInputStream.getTailStartPosition(pBuilder.redirectOutput());
+		final var stdErrTailFrom = RedirectedFileTailInputStream.getTailStartPosition(pBuilder.redirectError());
+
 		final var externalProcessStartup = launcher.getExternalProcessStartup();
-		if (externalProcessStartup.isPresent()) {
+		if (pipelineProcess != null) {
+			process = pipelineProcess;
+			log.info("Start piped process # {} {}", process.pid(), fullCommandLine);
+		} else if (externalProcessStartup.isPresent()) {
 			process = externalProcessStartup.get().startProcess(pBuilder);
 			Objects.requireNonNull(process, "Can't manage null process");
 		} else {
@@ -79,25 +97,29 @@ public class ProcesslauncherLifecycle {
 			log.info("Start process # {} {}", process.pid(), fullCommandLine);
 		}
 		startDate = System.currentTimeMillis();
+		startNanoTime = System.nanoTime();
 
-		shutdownHook = new Thread(() -> {
-			log.warn("Try to kill {}", this);
-			killProcessTree(process);
-		});
-		shutdownHook.setDaemon(false);
-		shutdownHook.setPriority(Thread.MAX_PRIORITY);
-		shutdownHook.setName("ShutdownHook for " + toString());
-		Runtime.getRuntime().addShutdownHook(shutdownHook);
+		ProcesslauncherRegistry.register(this);
+		/**
+		 * Don't depend on the end callback executor, which can reject the callback task.
+		 */
+		process.onExit().whenComplete((p, e) -> ProcesslauncherRegistry.unregister(this));
 
 		launcher.getExecutionTimeLimiter().ifPresent(etl -> etl.addTimesUp(this, process));
 
 		final var executionCallbackers = launcher.getExecutionCallbackers();
 		executionCallbackers.forEach(ec -> ec.postStartupExecution(this));
 
-		launcher.getCaptureStandardOutput().ifPresent(cso -> {
-			cso.stdOutStreamConsumer(process.getInputStream(), this);
-			cso.stdErrStreamConsumer(process.getErrorStream(), this);
-		});
+		final var captureStandardOutput = launcher.getCaptureStandardOutput();
+		if (captureStandardOutput.isPresent()) {
+			final var tailPollInterval = launcher.getRedirectedFilesTailPollInterval();
+			captureStandardOutput.get().stdOutStreamConsumer(RedirectedFileTailInputStream.getCapturableStream(
+			        pBuilder.redirectOutput(), stdOutTailFrom, tailPollInterval, process, process.getInputStream()),
+			        this);
+			captureStandardOutput.get().stdErrStreamConsumer(RedirectedFileTailInputStream.getCapturableStream(
+			        pBuilder.redirectError(), stdErrTailFrom, tailPollInterval, process, process.getErrorStream()),
+			        this);
+		}
 
 		process.onExit().thenRunAsync(() -> {
 			final var pName = getExecNameWithoutExt();
@@ -122,10 +144,105 @@ public class ProcesslauncherLifecycle {
 			log.info("End exec process {}{} {}{}{}", pName, pid, status, retnr, dur);
 
 			endDate = System.currentTimeMillis();
-			Runtime.getRuntime().removeShutdownHook(shutdownHook);
 			externalProcessStartup.ifPresent(eps -> eps.onEndProcess(this));
 			executionCallbackers.forEach(ec -> ec.onEndExecution(this));
-		}, END_EXEC_CALLBACK);
+		}, getEndExecCallbackExecutor(launcher)).exceptionally(e -> {
+			log.error("Can't run end callbacks for {}", fullCommandLine, e);
+			return null;
+		}).thenCompose(v -> {
+			synchronized (capturedStreams) {
+				return CompletableFuture.allOf(capturedStreams.toArray(new CompletableFuture<?>[0]));
+			}
+		}).whenComplete((v, e) -> onEnd.complete(this));
+	}
+
+	private static synchronized Executor getDefaultEndExecCallbackExecutor() {
+		if (defaultEndExecCallback == null) {
+			final var threads = Math.max(2, Runtime.getRuntime().availableProcessors());
+			defaultEndExecCallback = new ThreadPoolExecutor(threads, threads, 1, TimeUnit.MINUTES,
+			        new LinkedBlockingQueue<>(), r -> {
+				        final var t = new Thread(r);
+				        t.setDaemon(true);
+				        t.setName("EndProcessExecCallback#" + END_EXEC_CALLBACK_COUNT.getAndIncrement());
+				        return t;
+			        });
+			defaultEndExecCallback.allowCoreThreadTimeOut(true);
+		}
+		return defaultEndExecCallback;
+	}
+
+	/**
+	 * @return the launcher executor (or the default one), counted by getEndExecCallbackQueueDepth
+	 */
+	private static Executor getEndExecCallbackExecutor(final Processlauncher launcher) {
+		final var executor = launcher.getEndExecutionCallbackExecutor()
+		        .orElseGet(ProcesslauncherLifecycle::getDefaultEndExecCallbackExecutor);
+		final var queueDepth = END_EXEC_CALLBACK_QUEUE_DEPTHS.computeIfAbsent(executor, e -> new AtomicInteger(0));
+		return task -> {
+			queueDepth.incrementAndGet();
+			/**
+			 * Decrement only one time: on run, or if the executor rejects the task.
+			 */
+			final var waiting = new AtomicBoolean(true);
+			var submitted = false;
+			try {
+				executor.execute(() -> {
+					if (waiting.compareAndSet(true, false)) {
+						queueDepth.decrementAndGet();
+					}
+					task.run();
+				});
+				submitted = true;
+			} finally {
+				if (submitted == false && waiting.compareAndSet(true, false)) {
+					queueDepth.decrementAndGet();
+				}
+			}
+		};
+	}
+
+	/**
+	 * @return the count of ended processes with end callbacks still waiting to run on the default shared executor:
+	 *         the completion lag.
+	 */
+	public static synchronized int getEndExecCallbackQueueDepth() {
+		if (defaultEndExecCallback == null) {
+			return 0;
+		}
+		return getEndExecCallbackQueueDepth(defaultEndExecCallback);
+	}
+
+	/**
+	 * @param endExecutionCallbackExecutor as set by ProcesslauncherBuilder.setEndExecutionCallbackExecutor()
+	 * @return the count of ended processes with end callbacks still waiting to run on this executor: the completion
+	 *         lag.
+	 */
+	public static int getEndExecCallbackQueueDepth(final Executor endExecutionCallbackExecutor) {
+		Objects.requireNonNull(endExecutionCallbackExecutor, "\"endExecutionCallbackExecutor\" can't to be null");
+		final var queueDepth = END_EXEC_CALLBACK_QUEUE_DEPTHS.get(endExecutionCallbackExecutor);
+		if (queueDepth == null) {
+			return 0;
+		}
+		return queueDepth.get();
+	}
+
+	/**
+	 * Called by the CaptureStandardOutput, during this process start.
+	 * @param closed completed when this captured stream is closed, and all its content is pushed to the observers.
+	 */
+	void addCapturedStream(final CompletableFuture<?> closed) {
+		synchronized (capturedStreams) {
+			capturedStreams.add(closed);
+		}
+	}
+
+	/**
+	 * Non-blocking.
+	 * @return completed after the process end, the end callbacks (ExecutionCallbacker, ExternalProcessStartup), and
+	 *         the close of all captured streams.
+	 */
+	public CompletableFuture<ProcesslauncherLifecycle> onEnd() {
+		return onEnd.copy();
 	}
 
 	public String getExecNameWithoutExt() {
@@ -138,8 +255,31 @@ public class ProcesslauncherLifecycle {
 		}
 	}
 
+	/**
+	 * @return the start date given by the OS, else the date after this process start.
+	 *         Only the first call queries the OS.
+	 */
 	public long getStartDate() {
-		return getProcess().info().startInstant().flatMap(i -> Optional.ofNullable(i.toEpochMilli())).orElse(startDate);
+		if (processStartDate == 0) {
+			processStartDate = getProcess().info().startInstant()
+			        .flatMap(i -> Optional.ofNullable(i.toEpochMilli()))
+			        .orElse(startDate);
+		}
+		return processStartDate;
+	}
+
+	/**
+	 * @return System.currentTimeMillis() just after this process start.
+	 */
+	long getLocalStartDate() {
+		return startDate;
+	}
+
+	/**
+	 * @return System.nanoTime() just after this process start, the reference for LineTimestampMode.MONOTONIC
+	 */
+	public long getStartNanoTime() {
+		return startNanoTime;
 	}
 
 	@Override
@@ -152,65 +292,66 @@ public class ProcesslauncherLifecycle {
 		}
 	}
 
-	private static String processHandleToString(final ProcessHandle processHandle, final boolean verbose) {
-		if (verbose) {
-			return processHandle.info().command().orElse("<?>") + " #" + processHandle.pid() + " by " + processHandle
-			        .info().user().orElse("<?>") + " since " + processHandle.info().totalCpuDuration().orElse(
-			                Duration.ZERO).getSeconds() + " sec";
-		} else {
-			return processHandle.info().commandLine().orElse("<?>") + " #" + processHandle.pid();
+	/**
+	 * Non-blocking
+	 */
+	private CompletableFuture<KillReport> killProcessTree(final KillPolicy killPolicy) {
+		log.debug("Internal kill {} with {}", this, killPolicy);
+		final ProcessHandle processHandle;
+		try {
+			processHandle = process.toHandle();
+		} catch (final UnsupportedOperationException e) {
+			log.debug("No process handle for {}, only destroy it", fullCommandLine);
+			process.destroy();
+			return CompletableFuture.completedFuture(new KillReport(Map.of()));
 		}
+		return killPolicy.killTree(processHandle).whenComplete((report, e) -> {
+			if (e != null) {
+				log.error("Can't kill {}", fullCommandLine, e);
+			} else if (report.isDone() == false) {
+				log.error("Can't close process {} for PID {}", fullCommandLine, report.getCantKillPIDs());
+			}
+		});
+	}
+
+	public Processlauncher getLauncher() {
+		return launcher;
 	}
 
 	/**
-	 * Blocking
+	 * @return the publisher added by CaptureStandardOutputText.addPublisher() and used by this process.
 	 */
-	private void killProcessTree(final Process process) {
-		if (process.isAlive() == false) {
-			return;
-		}
+	public Optional<CapturedStdOutErrTextPublisher> getLinePublisher() {
+		return Optional.ofNullable(linePublisher);
+	}
 
-		log.debug("Internal kill {}", this);
-		final var cantKill = process.descendants().filter(ProcessHandle::isAlive)
-		        .filter(processHandle -> {
-			        if (log.isDebugEnabled()) {
-				        log.info(LOG_CLOSE_MANUALLY_PROCESS, () -> processHandleToString(processHandle, true));
-			        } else if (log.isInfoEnabled()) {
-				        log.info(LOG_CLOSE_MANUALLY_PROCESS, () -> processHandleToString(processHandle, false));
-			        }
-			        return processHandle.destroy() == false;
-		        }).filter(processHandle -> {
-			        if (log.isDebugEnabled()) {
-				        log.info(LOG_FORCE_TO_CLOSE_PROCESS, () -> processHandleToString(processHandle, true));
-			        } else if (log.isInfoEnabled()) {
-				        log.info(LOG_FORCE_TO_CLOSE_PROCESS, () -> processHandleToString(processHandle, false));
-			        }
-			        return processHandle.destroyForcibly() == false;
-		        }).collect(Collectors.toUnmodifiableList());
+	/**
+	 * Called by the publisher when a stream parser binds it to this process.
+	 */
+	void setLinePublisher(final CapturedStdOutErrTextPublisher linePublisher) {
+		this.linePublisher = linePublisher;
+	}
 
-		if (process.isAlive()) {
-			log.info(LOG_CLOSE_MANUALLY_PROCESS, () -> processHandleToString(process.toHandle(), true));
-			if (process.toHandle().destroy() == false) {
-				log.info(LOG_FORCE_TO_CLOSE_PROCESS, () -> processHandleToString(process.toHandle(), true));
-				if (process.toHandle().destroyForcibly() == false) {
-					throw new ProcessLifeCycleException("Can't close process "
-					                                    + processHandleToString(process.toHandle(), true));
-				}
-			}
-		}
-		if (cantKill.isEmpty() == false) {
-			cantKill.forEach(processHandle -> log.error("Can't force close process {}",
-			        () -> processHandleToString(processHandle, true)));
-			throw new ProcessLifeCycleException("Can't close process " + toString() + " for PID "
-			                                    + cantKill.stream()
-			                                            .map(ProcessHandle::pid)
-			                                            .map(String::valueOf)
-			                                            .collect(Collectors.joining(", ")));
-		}
+	/**
+	 * Blocking and live iterator over the captured lines, with constant memory.
+	 * Needs CaptureStandardOutputText.addPublisher() before the start.
+	 * @see CapturedStdOutErrTextPublisher#iterator()
+	 */
+	public LineEntryIterator getLineIterator() {
+		return getLinePublisher()
+		        .orElseThrow(() -> new IllegalStateException("No line publisher for " + fullCommandLine))
+		        .iterator();
 	}
 
-	public Processlauncher getLauncher() {
-		return launcher;
+	/**
+	 * Blocking and live stream over the captured lines, with constant memory.
+	 * Needs CaptureStandardOutputText.addPublisher() before the start.
+	 * @see CapturedStdOutErrTextPublisher#stream()
+	 */
+	public Stream<LineEntry> getLineStream() {
+		return getLinePublisher()
+		        .orElseThrow(() -> new IllegalStateException("No line publisher for " + fullCommandLine))
+		        .stream();
 	}
 
 	public Process getProcess() {
@@ -253,29 +394,78 @@ public class ProcesslauncherLifecycle {
 		return processWasStoppedBecauseTooLongTime;
 	}
 
+	/**
+	 * Non-blocking, with the launcher KillPolicy.
+	 */
 	ProcesslauncherLifecycle runningTakesTooLongTimeStopIt() {
 		processWasStoppedBecauseTooLongTime = true;
-		killProcessTree(process);
+		killProcessTree(getKillPolicy());
 		return this;
 	}
 
+	/**
+	 * Called by the ProcesslauncherRegistry shutdown hook. Non-blocking.
+	 */
+	CompletableFuture<KillReport> killAtShutdown() {
+		log.warn("Try to kill {}", this);
+		return killProcessTree(getKillPolicy());
+	}
+
+	private KillPolicy getKillPolicy() {
+		return launcher.getKillPolicy().orElse(KillPolicy.DEFAULT);
+	}
+
+	/**
+	 * With the launcher KillPolicy. Non-blocking, but with KillPolicy.DEFAULT the kill report is immediately known.
+	 * @throws ProcessLifeCycleException if the report is already known, and some processes can't be killed. With a
+	 *         grace period, only log them: use killAsync() for get the report.
+	 * @see #killAsync(KillPolicy)
+	 */
 	public ProcesslauncherLifecycle kill() {
+		final var report = killAsync().getNow(null);
+		if (report != null && report.isDone() == false) {
+			throw new ProcessLifeCycleException("Can't close process " + toString() + " for PID "
+			                                    + report.getCantKillPIDs());
+		}
+		return this;
+	}
+
+	/**
+	 * Non-blocking, with the launcher KillPolicy.
+	 * @see #killAsync(KillPolicy)
+	 */
+	public CompletableFuture<KillReport> killAsync() {
+		return killAsync(getKillPolicy());
+	}
+
+	/**
+	 * Non-blocking kill of this process and its descendants: SIGTERM, grace period, then SIGKILL.
+	 * Do nothing if the process is not running.
+	 * Never throws if some processes can't be killed: see KillReport.isDone().
+	 * @return the outcome by PID, completed when all the tree is ended, or after the killPolicy timeouts.
+	 */
+	public CompletableFuture<KillReport> killAsync(final KillPolicy killPolicy) {
+		Objects.requireNonNull(killPolicy, "\"killPolicy\" can't to be null");
 		if (process.isAlive() == false) {
-			return this;
+			return CompletableFuture.completedFuture(new KillReport(getPID()
+			        .map(pid -> Map.of(pid, KillOutcome.ALREADY_ENDED))
+			        .orElse(Map.of())));
 		}
 		processWasKilled = true;
-		killProcessTree(process);
-		return this;
+		return killProcessTree(killPolicy);
 	}
 
+	/**
+	 * Blocking, without spin wait, until the process exit. Don't wait the end callbacks and the captured streams,
+	 * see onEnd() for this.
+	 */
 	public ProcesslauncherLifecycle waitForEnd() {
 		try {
-			process.waitFor();
-			while (process.isAlive()) {
-				Thread.onSpinWait();
-			}
+			process.onExit().get();
 		} catch (final InterruptedException e) {// NOSONAR
 			throw new ProcessLifeCycleException("Can't wait the end of " + fullCommandLine, e);
+		} catch (final ExecutionException e) {
+			throw new ProcessLifeCycleException("Can't wait the end of " + fullCommandLine, e.getCause());
 		}
 		return this;
 	}
@@ -301,6 +491,26 @@ public class ProcesslauncherLifecycle {
 		return this;
 	}
 
+	/**
+	 * Wait onEnd (so, the end callbacks are done and the captured streams are closed) and checks isCorrectlyDone.
+	 * Never call it from an end callback or an observer (they are waited by onEnd), and it can wait after the process
+	 * exit, if a child process keeps open the captured streams.
+	 * @throws InvalidExecution
+	 */
+	public ProcesslauncherLifecycle checkExecutionAfterEnd() {
+		try {
+			onEnd.get();
+		} catch (final InterruptedException e) {// NOSONAR
+			throw new ProcessLifeCycleException("Can't wait the end of " + fullCommandLine, e);
+		} catch (final ExecutionException e) {
+			throw new ProcessLifeCycleException("Can't wait the end of " + fullCommandLine, e.getCause());
+		}
+		if (isCorrectlyDone() == false) {
+			throw new InvalidExecution(this);
+		}
+		return this;
+	}
+
 	public synchronized StdInInjection getStdInInjection() {
 		if (stdInInjection == null) {
 			stdInInjection = new StdInInjection(process.getOutputStream());
@@ -317,23 +527,12 @@ public class ProcesslauncherLifecycle {
 	}
 
 	/**
-	 * Blocking call until process is really done.
+	 * Blocking call until process is really done, without spin wait: Process.onExit() is completed after the process
+	 * exit value is set.
 	 * Correct: https://github.com/hdsdi3g/processlauncher/issues/1
 	 */
 	public Integer getExitCode() {
-		while (getProcess().isAlive()) {
-			Thread.onSpinWait();
-		}
-		while (true) {
-			try {
-				return getProcess().exitValue();
-			} catch (final IllegalThreadStateException e) {
-				if (e.getMessage().equalsIgnoreCase("process has not exited") == false) {
-					throw e;
-				}
-			}
-			Thread.onSpinWait();
-		}
+		return waitForEnd().getProcess().exitValue();
 	}
 
 	/**
@@ -0,0 +1,118 @@
+/*
+ * This file is part of processlauncher.
+ *
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation; either version 3 of the License, or
+ * any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU Lesser General Public License for more details.
+ *
+ * Copyright (C) hdsdi3g for hd3g.tv 2019
+ *
+ */
+package tv.hd3g.processlauncher;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Objects;
+import java.util.stream.Collectors;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+/**
+ * Chain some processes like a shell "a | b | c", with ProcessBuilder.startPipeline: the OS connects each stdout to the
+ * next stdin, without any copy by the JVM.
+ * Each stage keeps its own ProcesslauncherLifecycle, with its callbacks, stderr capture, time limit and kill.
+ * Only the last stage can redirect or capture its stdout, and only the first stage can get its stdin.
+ */
+public class ProcesslauncherPipeline {
+	private static Logger log = LogManager.getLogger();
+
+	private final List<ProcesslauncherBuilder> stages;
+
+	public ProcesslauncherPipeline() {
+		stages = new ArrayList<>();
+	}
+
+	public ProcesslauncherPipeline(final ProcesslauncherBuilder... stages) {
+		this();
+		for (final var stage : Objects.requireNonNull(stages, "\"stages\" can't to be null")) {
+			addStage(stage);
+		}
+	}
+
+	/**
+	 * Don't set an ExternalProcessStartup on it, and don't redirect its stdout if it's not the last stage.
+	 */
+	public synchronized ProcesslauncherPipeline addStage(final ProcesslauncherBuilder stage) {
+		Objects.requireNonNull(stage, "\"stage\" can't to be null");
+		if (stage.getExternalProcessStartup().isPresent()) {
+			throw new IllegalArgumentException("Can't use an ExternalProcessStartup in a pipeline, for "
+			                                   + stage.getFullCommandLine());
+		}
+		stages.add(stage);
+		return this;
+	}
+
+	/**
+	 * @return unmodifiableList
+	 */
+	public synchronized List<ProcesslauncherBuilder> getStages() {
+		return Collections.unmodifiableList(new ArrayList<>(stages));
+	}
+
+	/**
+	 * @return like "a | b | c"
+	 */
+	public synchronized String getFullCommandLine() {
+		return stages.stream()
+		        .map(ProcesslauncherBuilder::getFullCommandLine)
+		        .collect(Collectors.joining(" | "));
+	}
+
+	@Override
+	public String toString() {
+		return getFullCommandLine();
+	}
+
+	/**
+	 * Start all the stages at once. If a stage can't be managed after the start, all the pipeline processes are
+	 * killed.
+	 * @throws IllegalArgumentException if a stage (not the last) redirects its stdout
+	 */
+	public synchronized ProcesslauncherPipelineLifecycle start() throws IOException {
+		if (stages.isEmpty()) {
+			throw new IllegalStateException("No stages to start in this pipeline");
+		}
+		final var launchers = stages.stream()
+		        .map(ProcesslauncherBuilder::toProcesslauncher)
+		        .collect(Collectors.toUnmodifiableList());
+		final var processes = ProcessBuilder.startPipeline(launchers.stream()
+		        .map(Processlauncher::getProcessBuilder)
+		        .collect(Collectors.toUnmodifiableList()));
+		log.debug("Start pipeline {}", this);
+
+		final var lifecycles = new ArrayList<ProcesslauncherLifecycle>(launchers.size());
+		var managed = false;
+		try {
+			for (var pos = 0; pos < launchers.size(); pos++) {
+				lifecycles.add(new ProcesslauncherLifecycle(launchers.get(pos), processes.get(pos)));
+			}
+			managed = true;
+		} finally {
+			if (managed == false) {
+				log.error("Can't manage pipeline {}, kill it", this);
+				processes.forEach(Process::destroyForcibly);
+			}
+		}
+		return new ProcesslauncherPipelineLifecycle(lifecycles);
+	}
+
+}
@@ -0,0 +1,130 @@
+/*
+ * This file is part of processlauncher.
+ *
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation; either version 3 of the License, or
+ * any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU Lesser General Public License for more details.
+ *
+ * Copyright (C) hdsdi3g for hd3g.tv 2019
+ *
+ */
+package tv.hd3g.processlauncher;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.stream.Collectors;
+
+/**
+ * The started stages of a ProcesslauncherPipeline, in the pipe order.
+ */
+public class ProcesslauncherPipelineLifecycle {
+
+	private final List<ProcesslauncherLifecycle> stages;
+
+	ProcesslauncherPipelineLifecycle(final List<ProcesslauncherLifecycle> stages) {
+		this.stages = Collections.unmodifiableList(stages);
+	}
+
+	/**
+	 * @return unmodifiableList
+	 */
+	public List<ProcesslauncherLifecycle> getStages() {
+		return stages;
+	}
+
+	/**
+	 * @return the stage with the stdin of the pipeline
+	 */
+	public ProcesslauncherLifecycle getFirst() {
+		return stages.get(0);
+	}
+
+	/**
+	 * @return the stage with the stdout of the pipeline
+	 */
+	public ProcesslauncherLifecycle getLast() {
+		return stages.get(stages.size() - 1);
+	}
+
+	/**
+	 * Non-blocking.
+	 * @return completed after the onEnd() of all the stages.
+	 */
+	public CompletableFuture<ProcesslauncherPipelineLifecycle> onEnd() {
+		return CompletableFuture.allOf(stages.stream()
+		        .map(ProcesslauncherLifecycle::onEnd)
+		        .toArray(CompletableFuture[]::new))
+		        .thenApply(v -> this);
+	}
+
+	public boolean isRunning() {
+		return stages.stream().anyMatch(ProcesslauncherLifecycle::isRunning);
+	}
+
+	/**
+	 * @return true if all the stages are correctly done.
+	 */
+	public boolean isCorrectlyDone() {
+		return stages.stream().allMatch(ProcesslauncherLifecycle::isCorrectlyDone);
+	}
+
+	/**
+	 * Kill all the stages, with their process trees. Non-blocking.
+	 */
+	public ProcesslauncherPipelineLifecycle kill() {
+		stages.forEach(ProcesslauncherLifecycle::kill);
+		return this;
+	}
+
+	/**
+	 * Blocking, without spin wait, until all the processes exit.
+	 */
+	public ProcesslauncherPipelineLifecycle waitForEnd() {
+		stages.forEach(ProcesslauncherLifecycle::waitForEnd);
+		return this;
+	}
+
+	/**
+	 * waitForEnd and checks all the stages, in the pipe order.
+	 * @throws InvalidExecution for the first stage not correctly done
+	 */
+	public ProcesslauncherPipelineLifecycle checkExecution() {
+		waitForEnd();
+		stages.forEach(ProcesslauncherLifecycle::checkExecution);
+		return this;
+	}
+
+	/**
+	 * Wait onEnd and checks all the stages, in the pipe order.
+	 * Never call it from an end callback or an observer.
+	 * @see ProcesslauncherLifecycle#checkExecutionAfterEnd()
+	 * @throws InvalidExecution for the first stage not correctly done
+	 */
+	public ProcesslauncherPipelineLifecycle checkExecutionAfterEnd() {
+		try {
+			onEnd().get();
+		} catch (final InterruptedException e) {// NOSONAR
+			throw new ProcessLifeCycleException("Can't wait the end of " + this, e);
+		} catch (final ExecutionException e) {
+			throw new ProcessLifeCycleException("Can't wait the end of " + this, e.getCause());
+		}
+		stages.forEach(ProcesslauncherLifecycle::checkExecution);
+		return this;
+	}
+
+	@Override
+	public String toString() {
+		return stages.stream()
+		        .map(ProcesslauncherLifecycle::toString)
+		        .collect(Collectors.joining(" | "));
+	}
+
+}
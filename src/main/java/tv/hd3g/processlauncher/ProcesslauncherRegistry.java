@@ -0,0 +1,190 @@
+/*
+ * This file is part of processlauncher.
+ *
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation; either version 3 of the License, or
+ * any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU Lesser General Public License for more details.
+ *
+ * Copyright (C) hdsdi3g for hd3g.tv 2019
+ *
+ */
+package tv.hd3g.processlauncher;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Function;
+import java.util.function.Predicate;
+import java.util.stream.Collectors;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+/**
+ * All the running processes started by this JVM, with a single shutdown hook (registered on the first start) which
+ * kills all the remaining process trees, in parallel, and waits their KillPolicy, up to SHUTDOWN_KILL_MAX_WAIT.
+ */
+public final class ProcesslauncherRegistry {
+	private static Logger log = LogManager.getLogger();
+
+	private static final Set<ProcesslauncherLifecycle> RUNNING = ConcurrentHashMap.newKeySet();
+	private static final AtomicBoolean SHUTDOWN_HOOK_REGISTERED = new AtomicBoolean(false);
+	/**
+	 * Don't delay the JVM exit by a long KillPolicy.
+	 */
+	static final Duration SHUTDOWN_KILL_MAX_WAIT = Duration.ofSeconds(2);
+
+	private ProcesslauncherRegistry() {
+	}
+
+	/**
+	 * Called just after the process start.
+	 */
+	static void register(final ProcesslauncherLifecycle lifecycle) {
+		if (SHUTDOWN_HOOK_REGISTERED.compareAndSet(false, true)) {
+			final var shutdownHook = new Thread(ProcesslauncherRegistry::killAllAtShutdown);
+			shutdownHook.setDaemon(false);
+			shutdownHook.setPriority(Thread.MAX_PRIORITY);
+			shutdownHook.setName("ShutdownHook for processlauncher");
+			Runtime.getRuntime().addShutdownHook(shutdownHook);
+		}
+		RUNNING.add(lifecycle);
+	}
+
+	/**
+	 * Called after the process end.
+	 */
+	static void unregister(final ProcesslauncherLifecycle lifecycle) {
+		RUNNING.remove(lifecycle);
+	}
+
+	/**
+	 * Called by the shutdown hook.
+	 */
+	static void killAllAtShutdown() {
+		final var kills = RUNNING.stream()
+		        .map(lifecycle -> startKill(lifecycle, ProcesslauncherLifecycle::killAtShutdown)
+		                .whenComplete((report, e) -> {
+			                if (e != null) {
+				                log.error("Can't kill {}", lifecycle, e);
+			                } else if (report.isDone() == false) {
+				                log.error("Can't kill {} for PID {}", lifecycle, report.getCantKillPIDs());
+			                }
+		                }))
+		        .toArray(CompletableFuture[]::new);
+		try {
+			CompletableFuture.allOf(kills).get(SHUTDOWN_KILL_MAX_WAIT.toMillis(), TimeUnit.MILLISECONDS);
+		} catch (final ExecutionException e) {
+			log.debug("Some processes can't be killed", e.getCause());
+		} catch (final TimeoutException e) {
+			log.warn("Stop to wait the kill of the processes after {} ms", SHUTDOWN_KILL_MAX_WAIT.toMillis());
+		} catch (final InterruptedException e) {// NOSONAR
+			log.warn("Interrupted during the kill of the processes");
+		}
+	}
+
+	/**
+	 * @return unmodifiableList, oldest first
+	 */
+	public static List<ProcesslauncherLifecycle> getRunning() {
+		return getRunning(lifecycle -> true);
+	}
+
+	/**
+	 * @param execNameWithoutExt like ProcesslauncherLifecycle.getExecNameWithoutExt()
+	 * @return unmodifiableList, oldest first
+	 */
+	public static List<ProcesslauncherLifecycle> getRunningByExecName(final String execNameWithoutExt) {
+		Objects.requireNonNull(execNameWithoutExt, "\"execNameWithoutExt\" can't to be null");
+		return getRunning(lifecycle -> execNameWithoutExt.equalsIgnoreCase(lifecycle.getExecNameWithoutExt()));
+	}
+
+	/**
+	 * @return unmodifiableList, oldest first, of the processes started since at least minAge.
+	 */
+	public static List<ProcesslauncherLifecycle> getRunningOlderThan(final Duration minAge) {
+		Objects.requireNonNull(minAge, "\"minAge\" can't to be null");
+		final var maxStartNanoTime = System.nanoTime() - minAge.toNanos();
+		return getRunning(lifecycle -> lifecycle.getStartNanoTime() - maxStartNanoTime <= 0);
+	}
+
+	/**
+	 * @return unmodifiableList, oldest first
+	 */
+	public static List<ProcesslauncherLifecycle> getRunning(final Predicate<ProcesslauncherLifecycle> filter) {
+		Objects.requireNonNull(filter, "\"filter\" can't to be null");
+		return RUNNING.stream()
+		        .filter(ProcesslauncherLifecycle::isRunning)
+		        .filter(filter)
+		        .sorted((l, r) -> Long.signum(l.getStartNanoTime() - r.getStartNanoTime()))
+		        .collect(Collectors.toUnmodifiableList());
+	}
+
+	/**
+	 * @return the registered processes count, with the processes just ended but not yet unregistered.
+	 */
+	public static int getRunningCount() {
+		return RUNNING.size();
+	}
+
+	/**
+	 * Never throws: a synchronous error is returned as an exceptionally completed future.
+	 */
+	private static CompletableFuture<KillReport> startKill(final ProcesslauncherLifecycle lifecycle,
+	                                                       final Function<ProcesslauncherLifecycle,
+	                                                               CompletableFuture<KillReport>> killer) {
+		return CompletableFuture.completedFuture(lifecycle).thenCompose(killer);
+	}
+
+	/**
+	 * Kill, in parallel, all the running processes selected by filter, with their process trees and their
+	 * KillPolicy. Non-blocking.
+	 * @return the killed processes
+	 * @throws ProcessLifeCycleException after all the kills are started, if some of them have failed, or have an
+	 *         already known report with some processes that can't be killed (like ProcesslauncherLifecycle.kill()).
+	 */
+	public static List<ProcesslauncherLifecycle> kill(final Predicate<ProcesslauncherLifecycle> filter) {
+		final var toKill = getRunning(filter);
+		final var kills = toKill.stream()
+		        .map(lifecycle -> startKill(lifecycle, ProcesslauncherLifecycle::killAsync))
+		        .collect(Collectors.toUnmodifiableList());
+
+		final var cantKill = new ArrayList<String>();
+		Throwable firstError = null;
+		for (var pos = 0; pos < toKill.size(); pos++) {
+			final var kill = kills.get(pos);
+			if (kill.isCompletedExceptionally()) {
+				if (firstError == null) {
+					firstError = kill.handle((report, e) -> e instanceof CompletionException ? e.getCause() : e)
+					        .join();
+				}
+				cantKill.add(toKill.get(pos).toString());
+				continue;
+			}
+			final var report = kill.getNow(null);
+			if (report != null && report.isDone() == false) {
+				cantKill.add(toKill.get(pos).toString() + " for PID " + report.getCantKillPIDs());
+			}
+		}
+		if (cantKill.isEmpty() == false) {
+			throw new ProcessLifeCycleException("Can't kill " + cantKill, firstError);
+		}
+		return toKill;
+	}
+
+}
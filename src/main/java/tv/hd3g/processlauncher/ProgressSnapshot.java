@@ -0,0 +1,133 @@
+/*
+ * This file is part of processlauncher.
+ *
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation; either version 3 of the License, or
+ * any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU Lesser General Public License for more details.
+ *
+ * Copyright (C) hdsdi3g for hd3g.tv 2019
+ *
+ */
+package tv.hd3g.processlauncher;
+
+import java.time.Duration;
+import java.util.Optional;
+import java.util.OptionalDouble;
+import java.util.OptionalLong;
+
+/**
+ * An immutable state of a process progression, produced by CapturedStdOutErrTextProgress.
+ */
+public class ProgressSnapshot {
+
+	private final long frame;
+	private final double fps;
+	private final long outTimeNanos;
+	private final double speed;
+	private final double percent;
+	private final boolean end;
+	private final LineEntry lineEntry;
+
+	/**
+	 * @param frame -1 if not set
+	 * @param fps NaN if not set
+	 * @param outTimeNanos Long.MIN_VALUE if not set
+	 * @param speed NaN if not set
+	 * @param percent NaN if not set
+	 */
+	ProgressSnapshot(final long frame,
+	                 final double fps,
+	                 final long outTimeNanos,
+	                 final double speed,
+	                 final double percent,
+	                 final boolean end,
+	                 final LineEntry lineEntry) {
+		this.frame = frame;
+		this.fps = fps;
+		this.outTimeNanos = outTimeNanos;
+		this.speed = speed;
+		this.percent = percent;
+		this.end = end;
+		this.lineEntry = lineEntry;
+	}
+
+	private static OptionalDouble optional(final double value) {
+		if (Double.isNaN(value)) {
+			return OptionalDouble.empty();
+		}
+		return OptionalDouble.of(value);
+	}
+
+	public OptionalLong getFrame() {
+		if (frame < 0) {
+			return OptionalLong.empty();
+		}
+		return OptionalLong.of(frame);
+	}
+
+	public OptionalDouble getFps() {
+		return optional(fps);
+	}
+
+	/**
+	 * @return the position in the output media
+	 */
+	public Optional<Duration> getOutTime() {
+		if (outTimeNanos == Long.MIN_VALUE) {
+			return Optional.empty();
+		}
+		return Optional.ofNullable(Duration.ofNanos(outTimeNanos));
+	}
+
+	/**
+	 * @return 1.0 for realtime
+	 */
+	public OptionalDouble getSpeed() {
+		return optional(speed);
+	}
+
+	/**
+	 * @return from 0 to 100, from a "percent" key, or computed with the out time and the media duration.
+	 */
+	public OptionalDouble getPercent() {
+		return optional(percent);
+	}
+
+	/**
+	 * @return true with a "progress=end"
+	 */
+	public boolean isEnd() {
+		return end;
+	}
+
+	/**
+	 * @return the last line used for this snapshot
+	 */
+	public LineEntry getLineEntry() {
+		return lineEntry;
+	}
+
+	/**
+	 * For logging purpose
+	 */
+	@Override
+	public String toString() {
+		final var sb = new StringBuilder("Progress");
+		getFrame().ifPresent(v -> sb.append(" frame=").append(v));
+		getFps().ifPresent(v -> sb.append(" fps=").append(v));
+		getOutTime().ifPresent(v -> sb.append(" out_time=").append(v));
+		getSpeed().ifPresent(v -> sb.append(" speed=").append(v).append("x"));
+		getPercent().ifPresent(v -> sb.append(" percent=").append(v));
+		if (end) {
+			sb.append(" end");
+		}
+		return sb.toString();
+	}
+
+}
@@ -0,0 +1,123 @@
+/*
+ * This file is part of processlauncher.
+ *
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation; either version 3 of the License, or
+ * any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU Lesser General Public License for more details.
+ *
+ * Copyright (C) hdsdi3g for hd3g.tv 2019
+ *
+ */
+package tv.hd3g.processlauncher;
+
+import static java.nio.file.StandardOpenOption.READ;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InterruptedIOException;
+import java.lang.ProcessBuilder.Redirect;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.time.Duration;
+import java.util.Optional;
+import java.util.function.BooleanSupplier;
+
+/**
+ * Read a file, during its writing by a running process (like "tail -f"), until the process ends.
+ * Only the blocking read calls wait for new content, by polling the file every pollInterval.
+ */
+class RedirectedFileTailInputStream extends InputStream {
+
+	private final FileChannel channel;
+	private final BooleanSupplier isWriterRunning;
+	private final long pollIntervalMillis;
+	private long position;
+
+	RedirectedFileTailInputStream(final File file,
+	                              final long fromPosition,
+	                              final BooleanSupplier isWriterRunning,
+	                              final Duration pollInterval) throws IOException {
+		channel = FileChannel.open(file.toPath(), READ);
+		position = fromPosition;
+		this.isWriterRunning = isWriterRunning;
+		pollIntervalMillis = Math.max(1, pollInterval.toMillis());
+	}
+
+	/**
+	 * @return the current file size if it's an append redirect (only tail new content), else 0.
+	 */
+	static long getTailStartPosition(final Redirect redirect) {
+		if (redirect.type() == Redirect.Type.APPEND && redirect.file().exists()) {
+			return redirect.file().length();
+		}
+		return 0;
+	}
+
+	/**
+	 * @return processStream if the redirect is not a file, or if there is no tailPollInterval.
+	 */
+	static InputStream getCapturableStream(final Redirect redirect,
+	                                       final long tailFrom,
+	                                       final Optional<Duration> tailPollInterval,
+	                                       final Process process,
+	                                       final InputStream processStream) throws IOException {
+		if (tailPollInterval.isEmpty() || redirect.file() == null) {
+			return processStream;
+		}
+		return new RedirectedFileTailInputStream(redirect.file(), tailFrom, process::isAlive, tailPollInterval.get());
+	}
+
+	@Override
+	public int read() throws IOException {
+		final var b = new byte[1];
+		if (read(b, 0, 1) == -1) {
+			return -1;
+		}
+		return b[0] & 0xFF;
+	}
+
+	@Override
+	public int read(final byte[] b, final int off, final int len) throws IOException {
+		if (len == 0) {
+			return 0;
+		}
+		final var buffer = ByteBuffer.wrap(b, off, len);
+		while (true) {
+			/**
+			 * Check before read: all the content written before the process end will be readed.
+			 */
+			final var wasRunning = isWriterRunning.getAsBoolean();
+			final var size = channel.read(buffer, position);
+			if (size > 0) {
+				position += size;
+				return size;
+			} else if (wasRunning == false) {
+				return -1;
+			}
+			try {
+				Thread.sleep(pollIntervalMillis);
+			} catch (final InterruptedException e) {
+				Thread.currentThread().interrupt();
+				throw new InterruptedIOException("Interrupted during file tail");
+			}
+		}
+	}
+
+	@Override
+	public int available() throws IOException {
+		return (int) Math.min(Integer.MAX_VALUE, Math.max(0, channel.size() - position));
+	}
+
+	@Override
+	public void close() throws IOException {
+		channel.close();
+	}
+
+}
@@ -0,0 +1,373 @@
+/*
+ * This file is part of processlauncher.
+ *
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation; either version 3 of the License, or
+ * any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU Lesser General Public License for more details.
+ *
+ * Copyright (C) hdsdi3g for hd3g.tv 2019
+ *
+ */
+package tv.hd3g.processlauncher;
+
+import static java.nio.channels.FileChannel.MapMode.READ_ONLY;
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static java.nio.file.StandardOpenOption.DELETE_ON_CLOSE;
+import static java.nio.file.StandardOpenOption.READ;
+import static java.nio.file.StandardOpenOption.WRITE;
+import static tv.hd3g.processlauncher.LineEntryRecordCodec.RECORD_HEADER_SIZE;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.lang.ref.Cleaner;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.Stream;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+/**
+ * Keep the last lines in heap, and spill the older lines in append-only temp file segments.
+ * Spilled lines are read back lazily, one memory mapped segment at a time.
+ * Segment files are opened with DELETE_ON_CLOSE (on Unix, they are unlinked just after opening), and closed by close(),
+ * or when this store is garbage collected.
+ * If a write fails, the segment is truncated to its last written record, and the not written lines are dropped.
+ * Not thread safe.
+ */
+class SpillToDiskLineEntryStore implements LineEntryStore {
+	private static Logger log = LogManager.getLogger();
+	private static final Cleaner CLEANER = Cleaner.create();
+
+	static final int DEFAULT_SEGMENT_SIZE = 16 * 1024 * 1024;
+	private static final int WRITE_BUFFER_SIZE = 0xFFFF;
+	private final File spillDirectory;
+	private final int segmentSize;
+	private final SegmentFiles segmentFiles;
+	private final ByteBuffer writeBuffer;
+
+	private final LineEntry[] window;
+	private final long[] windowSequences;
+	private int windowStart;
+	private int windowSize;
+
+	private ProcesslauncherLifecycle source;
+	private long size;
+	private long emptyLines;
+	private long bytes;
+	private long droppedLines;
+
+	/**
+	 * Records in writeBuffer, for the last segment
+	 */
+	private long unflushedSize;
+	private long unflushedLines;
+	private long unflushedChars;
+	private long unflushedEmptyLines;
+
+	/**
+	 * @param spillDirectory if null, use the default temp directory
+	 */
+	SpillToDiskLineEntryStore(final int inHeapLines, final File spillDirectory, final int segmentSize) {
+		if (inHeapLines < 1) {
+			throw new IllegalArgumentException("Invalid inHeapLines: " + inHeapLines);
+		} else if (segmentSize < 1) {
+			throw new IllegalArgumentException("Invalid segmentSize: " + segmentSize);
+		}
+		this.spillDirectory = spillDirectory;
+		this.segmentSize = segmentSize;
+		window = new LineEntry[inHeapLines];
+		windowSequences = new long[inHeapLines];
+		writeBuffer = ByteBuffer.allocateDirect(WRITE_BUFFER_SIZE);
+		segmentFiles = new SegmentFiles();
+		CLEANER.register(this, segmentFiles);
+	}
+
+	@Override
+	public void add(final LineEntry lineEntry, final long sequence) {
+		if (source == null) {
+			source = lineEntry.getSource();
+		}
+		final var lineSize = lineEntry.getLine().length();
+		size++;
+		bytes += lineSize;
+		if (lineSize == 0) {
+			emptyLines++;
+		}
+
+		if (windowSize == window.length) {
+			final var older = window[windowStart];
+			final var olderSequence = windowSequences[windowStart];
+			window[windowStart] = lineEntry;
+			windowSequences[windowStart] = sequence;
+			windowStart = (windowStart + 1) % window.length;
+			spill(older, olderSequence);
+		} else {
+			final var pos = (windowStart + windowSize) % window.length;
+			window[pos] = lineEntry;
+			windowSequences[pos] = sequence;
+			windowSize++;
+		}
+	}
+
+	private void spill(final LineEntry lineEntry, final long sequence) {
+		final var lineString = lineEntry.getLine();
+		final var line = lineString.getBytes(UTF_8);
+		final var recordSize = RECORD_HEADER_SIZE + line.length;
+		try {
+			var segment = segmentFiles.getLast();
+			if (segment == null || segment.size > 0 && segment.size + recordSize > segmentSize) {
+				flush();
+				segment = segmentFiles.create(spillDirectory);
+			}
+			if (writeBuffer.remaining() < recordSize) {
+				flush();
+			}
+			LineEntryRecordCodec.putHeader(writeBuffer, sequence, lineEntry, line.length);
+			if (writeBuffer.remaining() < line.length) {
+				/**
+				 * Too big for writeBuffer, now only contains this record header
+				 */
+				writeBuffer.flip();
+				final var lineBuffer = ByteBuffer.wrap(line);
+				final var buffers = new ByteBuffer[] { writeBuffer, lineBuffer };
+				while (lineBuffer.hasRemaining()) {
+					segment.channel.write(buffers);
+				}
+				writeBuffer.clear();
+			} else {
+				writeBuffer.put(line);
+				unflushedSize += recordSize;
+				unflushedLines++;
+				unflushedChars += lineString.length();
+				if (lineString.isEmpty()) {
+					unflushedEmptyLines++;
+				}
+			}
+			segment.add(recordSize, lineString);
+		} catch (final IOException e) {
+			log.error("Can't spill line to disk, drop it", e);
+			drop(1, lineString.length(), lineString.isEmpty() ? 1 : 0);
+			rollback();
+		}
+	}
+
+	private void flush() throws IOException {
+		final var segment = segmentFiles.getLast();
+		writeBuffer.flip();
+		while (segment != null && writeBuffer.hasRemaining()) {
+			segment.channel.write(writeBuffer);
+		}
+		writeBuffer.clear();
+		unflushedSize = 0;
+		unflushedLines = 0;
+		unflushedChars = 0;
+		unflushedEmptyLines = 0;
+	}
+
+	/**
+	 * After a write error: forget the records in writeBuffer, and truncate the last segment to its last written
+	 * record, so the next records and the reads stay aligned.
+	 */
+	private void rollback() {
+		writeBuffer.clear();
+		final var segment = segmentFiles.getLast();
+		if (segment == null) {
+			return;
+		}
+		segment.size -= unflushedSize;
+		segment.linesCount -= unflushedLines;
+		segment.chars -= unflushedChars;
+		segment.emptyLines -= unflushedEmptyLines;
+		drop(unflushedLines, unflushedChars, unflushedEmptyLines);
+		unflushedSize = 0;
+		unflushedLines = 0;
+		unflushedChars = 0;
+		unflushedEmptyLines = 0;
+		try {
+			segment.channel.truncate(segment.size);
+			segment.channel.position(segment.size);
+		} catch (final IOException e) {
+			log.error("Can't truncate {}, drop all its lines", segment.path, e);
+			dropSegment(segment);
+		}
+	}
+
+	private void drop(final long lines, final long chars, final long empty) {
+		size -= lines;
+		bytes -= chars;
+		emptyLines -= empty;
+		droppedLines += lines;
+	}
+
+	private void dropSegment(final Segment segment) {
+		segmentFiles.segments.remove(segment);
+		drop(segment.linesCount, segment.chars, segment.emptyLines);
+		segment.close();
+	}
+
+	/**
+	 * Close and delete now all segment files: the spilled lines are dropped, only the in heap lines are kept.
+	 * Lines added after can be spilled again, in new segments.
+	 */
+	@Override
+	public void close() {
+		writeBuffer.clear();
+		unflushedSize = 0;
+		unflushedLines = 0;
+		unflushedChars = 0;
+		unflushedEmptyLines = 0;
+		new ArrayList<>(segmentFiles.segments).forEach(this::dropSegment);
+	}
+
+	/**
+	 * Only spilled lines count and size, for the current segments.
+	 */
+	long getSpilledLines() {
+		return segmentFiles.segments.stream().mapToLong(s -> s.linesCount).sum();
+	}
+
+	long getSpilledBytes() {
+		return segmentFiles.segments.stream().mapToLong(s -> s.size).sum();
+	}
+
+	int getSegmentsCount() {
+		return segmentFiles.segments.size();
+	}
+
+	@Override
+	public Stream<LineEntry> stream() {
+		return sequencedStream().map(s -> s.lineEntry);
+	}
+
+	@Override
+	public Stream<SequencedLineEntry> sequencedStream() {
+		try {
+			flush();
+		} catch (final IOException e) {
+			log.error("Can't write spilled lines, drop them", e);
+			rollback();
+		}
+		final var spilledSegments = segmentFiles.segments.stream()
+		        .map(Segment::snapshot)
+		        .toArray(Segment[]::new);
+		final var inHeap = new ArrayList<SequencedLineEntry>(windowSize);
+		for (var pos = 0; pos < windowSize; pos++) {
+			final var windowPos = (windowStart + pos) % window.length;
+			inHeap.add(new SequencedLineEntry(windowSequences[windowPos], window[windowPos]));
+		}
+		return Stream.concat(Stream.of(spilledSegments).flatMap(this::read), inHeap.stream());
+	}
+
+	private Stream<SequencedLineEntry> read(final Segment segment) {
+		final MappedByteBuffer mapped;
+		try {
+			mapped = segment.channel.map(READ_ONLY, 0, segment.size);
+		} catch (final IOException e) {
+			throw new UncheckedIOException("Can't read spilled lines from " + segment.path, e);
+		}
+		return LineEntryRecordCodec.read(mapped, source);
+	}
+
+	@Override
+	public long size() {
+		return size;
+	}
+
+	@Override
+	public long getEmptyLines() {
+		return emptyLines;
+	}
+
+	@Override
+	public long getBytes() {
+		return bytes;
+	}
+
+	@Override
+	public long getDroppedLines() {
+		return droppedLines;
+	}
+
+	private static class Segment {
+		private final Path path;
+		private final FileChannel channel;
+		private long size;
+		private long linesCount;
+		private long chars;
+		private long emptyLines;
+
+		private Segment(final Path path, final FileChannel channel) {
+			this.path = path;
+			this.channel = channel;
+		}
+
+		private void add(final int recordSize, final String line) {
+			size += recordSize;
+			linesCount++;
+			chars += line.length();
+			if (line.isEmpty()) {
+				emptyLines++;
+			}
+		}
+
+		private void close() {
+			try {
+				channel.close();
+			} catch (final IOException e) {
+				log.warn("Can't close {}", path, e);
+			}
+		}
+
+		private Segment snapshot() {
+			final var snapshot = new Segment(path, channel);
+			snapshot.size = size;
+			snapshot.linesCount = linesCount;
+			return snapshot;
+		}
+	}
+
+	/**
+	 * Don't refer to SpillToDiskLineEntryStore, for the Cleaner.
+	 */
+	private static class SegmentFiles implements Runnable {
+		private final List<Segment> segments = new ArrayList<>();
+
+		private Segment getLast() {
+			if (segments.isEmpty()) {
+				return null;
+			}
+			return segments.get(segments.size() - 1);
+		}
+
+		private Segment create(final File spillDirectory) throws IOException {
+			Path path;
+			if (spillDirectory == null) {
+				path = Files.createTempFile("processlauncher-", ".spill");
+			} else {
+				path = Files.createTempFile(spillDirectory.toPath(), "processlauncher-", ".spill");
+			}
+			final var segment = new Segment(path, FileChannel.open(path, READ, WRITE, DELETE_ON_CLOSE));
+			segments.add(segment);
+			return segment;
+		}
+
+		@Override
+		public void run() {
+			segments.forEach(Segment::close);
+		}
+	}
+
+}
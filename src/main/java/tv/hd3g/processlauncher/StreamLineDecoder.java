@@ -0,0 +1,249 @@
+/*
+ * This file is part of processlauncher.
+ *
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation; either version 3 of the License, or
+ * any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU Lesser General Public License for more details.
+ *
+ * Copyright (C) hdsdi3g for hd3g.tv 2019
+ *
+ */
+package tv.hd3g.processlauncher;
+
+import static java.nio.charset.StandardCharsets.ISO_8859_1;
+import static java.nio.charset.StandardCharsets.US_ASCII;
+import static java.nio.charset.StandardCharsets.UTF_8;
+
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.charset.Charset;
+import java.nio.charset.CharsetDecoder;
+import java.nio.charset.CodingErrorAction;
+import java.util.Arrays;
+import java.util.Objects;
+import java.util.function.Consumer;
+
+/**
+ * Push bytes chunks, get decoded text lines. Not thread safe: one by stream.
+ * Like BufferedReader.readLine, \n, \r and \r\n are line terminators, so progress lines ending by \r are not merged.
+ * With an ASCII compatible charset, lines are splitted directly on the pushed bytes, without intermediate copy,
+ * then decoded by the JVM String fast paths for UTF-8/Latin-1/ASCII, or by a reused CharsetDecoder.
+ * Else, all bytes are decoded before line splitting.
+ */
+class StreamLineDecoder {
+	private static final int INITIAL_LINE_SIZE = 256;
+
+	private final Consumer<String> onLine;
+	private final Charset charset;
+	private final CharsetDecoder decoder;
+	private final boolean stringFastPath;
+	private final boolean splitOnBytes;
+
+	private byte[] pendingBytes;
+	private int pendingBytesSize;
+	private CharBuffer decoded;
+	private ByteBuffer undecoded;
+	private boolean lastWasCR;
+
+	StreamLineDecoder(final Charset charset, final Consumer<String> onLine) {
+		this.charset = Objects.requireNonNull(charset, "\"charset\" can't to be null");
+		this.onLine = Objects.requireNonNull(onLine, "\"onLine\" can't to be null");
+		decoder = charset.newDecoder()
+		        .onMalformedInput(CodingErrorAction.REPLACE)
+		        .onUnmappableCharacter(CodingErrorAction.REPLACE);
+		stringFastPath = UTF_8.equals(charset) || ISO_8859_1.equals(charset) || US_ASCII.equals(charset);
+		splitOnBytes = stringFastPath || isNewLineAsciiCompatible(charset);
+		pendingBytes = new byte[INITIAL_LINE_SIZE];
+		decoded = CharBuffer.allocate(INITIAL_LINE_SIZE);
+	}
+
+	private static boolean isNewLineAsciiCompatible(final Charset charset) {
+		return charset.canEncode()
+		       && Arrays.equals("\r\nA".getBytes(charset), new byte[] { '\r', '\n', 'A' });
+	}
+
+	void decode(final byte[] buffer, final int offset, final int len) {
+		if (splitOnBytes) {
+			splitBytes(buffer, offset, len);
+		} else {
+			decodeThenSplitChars(buffer, offset, len);
+		}
+	}
+
+	/**
+	 * Push the last line, if it don't ends by a line terminator.
+	 */
+	void endOfStream() {
+		if (splitOnBytes) {
+			if (pendingBytesSize > 0) {
+				pushLine(pendingBytes, 0, 0);
+			}
+		} else {
+			if (undecoded != null && undecoded.hasRemaining()) {
+				decodeThenSplitChars(new byte[0], 0, 0, true);
+			}
+			if (decoded.position() > 0) {
+				pushLineChars();
+			}
+		}
+		decoder.reset();
+		lastWasCR = false;
+	}
+
+	/**
+	 * @return true if some bytes or chars wait for a line terminator, or for endOfStream.
+	 */
+	boolean hasPendingLine() {
+		if (splitOnBytes) {
+			return pendingBytesSize > 0;
+		}
+		return decoded.position() > 0 || undecoded != null && undecoded.hasRemaining();
+	}
+
+	private void splitBytes(final byte[] buffer, final int offset, final int len) {
+		final var end = offset + len;
+		var lineStart = offset;
+		for (var pos = offset; pos < end; pos++) {
+			final var b = buffer[pos];
+			if (b != '\n' && b != '\r') {
+				continue;
+			}
+			if (b == '\n' && lastWasCR && pos == lineStart) {
+				lastWasCR = false;
+				lineStart = pos + 1;
+				continue;
+			}
+			pushLine(buffer, lineStart, pos - lineStart);
+			lastWasCR = b == '\r';
+			lineStart = pos + 1;
+		}
+
+		if (lineStart < end) {
+			lastWasCR = false;
+			final var remain = end - lineStart;
+			if (pendingBytesSize + remain > pendingBytes.length) {
+				pendingBytes = Arrays.copyOf(pendingBytes, Math.max(pendingBytes.length * 2,
+				        pendingBytesSize + remain));
+			}
+			System.arraycopy(buffer, lineStart, pendingBytes, pendingBytesSize, remain);
+			pendingBytesSize += remain;
+		}
+	}
+
+	/**
+	 * Prepend pendingBytes, if some, to the line.
+	 */
+	private void pushLine(final byte[] buffer, final int offset, final int len) {
+		if (pendingBytesSize == 0) {
+			onLine.accept(decodeLine(buffer, offset, len));
+			return;
+		} else if (buffer != pendingBytes) {
+			if (pendingBytesSize + len > pendingBytes.length) {
+				pendingBytes = Arrays.copyOf(pendingBytes, pendingBytesSize + len);
+			}
+			System.arraycopy(buffer, offset, pendingBytes, pendingBytesSize, len);
+			pendingBytesSize += len;
+		}
+		final var line = decodeLine(pendingBytes, 0, pendingBytesSize);
+		pendingBytesSize = 0;
+		onLine.accept(line);
+	}
+
+	private String decodeLine(final byte[] buffer, final int offset, final int len) {
+		if (stringFastPath) {
+			return new String(buffer, offset, len, charset);
+		}
+		final var maxChars = (int) Math.ceil(len * (double) decoder.maxCharsPerByte());
+		if (decoded.capacity() < maxChars) {
+			decoded = CharBuffer.allocate(maxChars);
+		}
+		decoded.clear();
+		decoder.reset();
+		decoder.decode(ByteBuffer.wrap(buffer, offset, len), decoded, true);
+		decoder.flush(decoded);
+		decoded.flip();
+		return decoded.toString();
+	}
+
+	private void decodeThenSplitChars(final byte[] buffer, final int offset, final int len) {
+		decodeThenSplitChars(buffer, offset, len, false);
+	}
+
+	/**
+	 * decoded contains the current line chars, undecoded the remaining bytes of the previous chunk.
+	 */
+	private void decodeThenSplitChars(final byte[] buffer,
+	                                  final int offset,
+	                                  final int len,
+	                                  final boolean endOfInput) {
+		ByteBuffer in;
+		if (undecoded != null && undecoded.hasRemaining()) {
+			in = ByteBuffer.allocate(undecoded.remaining() + len);
+			in.put(undecoded).put(buffer, offset, len).flip();
+		} else {
+			in = ByteBuffer.wrap(buffer, offset, len);
+		}
+
+		while (true) {
+			final var startPos = decoded.position();
+			final var result = decoder.decode(in, decoded, endOfInput);
+			if (endOfInput) {
+				decoder.flush(decoded);
+			}
+			splitChars(startPos);
+			if (result.isOverflow()) {
+				decoded = CharBuffer.allocate(decoded.capacity() * 2).put(decoded.flip());
+			} else {
+				break;
+			}
+		}
+
+		if (in.hasRemaining()) {
+			undecoded = ByteBuffer.allocate(in.remaining()).put(in).flip();
+		} else {
+			undecoded = null;
+		}
+	}
+
+	/**
+	 * Push all complete lines from decoded, and keep the last partial line at its start.
+	 */
+	private void splitChars(final int fromPos) {
+		final var chars = decoded.array();
+		var lineStart = 0;
+		final var end = decoded.position();
+		for (var pos = fromPos; pos < end; pos++) {
+			final var c = chars[pos];
+			if (c == '\n' || c == '\r') {
+				if (c == '\n' && lastWasCR && pos == lineStart) {
+					lastWasCR = false;
+					lineStart = pos + 1;
+					continue;
+				}
+				lastWasCR = c == '\r';
+				onLine.accept(new String(chars, lineStart, pos - lineStart));
+				lineStart = pos + 1;
+			} else {
+				lastWasCR = false;
+			}
+		}
+		if (lineStart > 0) {
+			decoded.flip().position(lineStart);
+			decoded.compact();
+		}
+	}
+
+	private void pushLineChars() {
+		decoded.flip();
+		final var line = decoded.toString();
+		decoded.clear();
+		onLine.accept(line);
+	}
+
+}
@@ -0,0 +1,199 @@
+/*
+ * This file is part of processlauncher.
+ *
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation; either version 3 of the License, or
+ * any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU Lesser General Public License for more details.
+ *
+ * Copyright (C) hdsdi3g for hd3g.tv 2019
+ *
+ */
+package tv.hd3g.processlauncher;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+
+import tv.hd3g.processlauncher.CaptureStandardOutputText.StreamParser;
+
+/**
+ * A fixed count of daemon threads, shared by many processes, for read all theirs stdout/stderr.
+ * Each worker takes a watched stream, reads only the available bytes, and puts it back in the queue.
+ * When all streams are idle, workers sleep for idlePollInterval.
+ * After the process end, the last reads, which can block if a child process keeps the stream open, are done outside
+ * the workers, by at most maxEndReaders threads: beyond, they wait their turn.
+ * Use it with CaptureStandardOutputText.setStreamReaderPool, or via createCaptureStandardOutput, and close it after use.
+ */
+public class StreamReaderPool implements AutoCloseable {
+	private static final AtomicLong CREATED_POOL_COUNTER = new AtomicLong(-1);
+	static final int READ_BUFFER_SIZE = 0xFFFF;
+	public static final int DEFAULT_MAX_END_READERS = 16;
+
+	private final ConcurrentLinkedQueue<StreamParser> watchedStreams;
+	private final AtomicInteger watchedStreamsCount;
+	private final long idlePollIntervalNanos;
+	private final ThreadPoolExecutor endReader;
+	private final List<Thread> workers;
+	private volatile boolean closed;
+
+	/**
+	 * @param maxEndReaders max threads count for the reads after the process ends. An end read is short, except if a
+	 *        child process keeps the stream open: up to maxEndReaders of these streams can wait at the same time.
+	 */
+	public StreamReaderPool(final int workerCount, final int maxEndReaders, final Duration idlePollInterval) {
+		if (workerCount < 1) {
+			throw new IllegalArgumentException("Invalid workerCount value: " + workerCount);
+		} else if (maxEndReaders < 1) {
+			throw new IllegalArgumentException("Invalid maxEndReaders value: " + maxEndReaders);
+		}
+		Objects.requireNonNull(idlePollInterval, "\"idlePollInterval\" can't to be null");
+		if (idlePollInterval.isNegative() || idlePollInterval.isZero()) {
+			throw new IllegalArgumentException("Invalid idlePollInterval value: " + idlePollInterval);
+		}
+		idlePollIntervalNanos = idlePollInterval.toNanos();
+		watchedStreams = new ConcurrentLinkedQueue<>();
+		watchedStreamsCount = new AtomicInteger(0);
+
+		final var poolId = CREATED_POOL_COUNTER.incrementAndGet();
+		final var endReaderCount = new AtomicLong(-1);
+		endReader = new ThreadPoolExecutor(maxEndReaders, maxEndReaders, 1, TimeUnit.MINUTES,
+		        new LinkedBlockingQueue<>(), r -> {
+			        final var t = new Thread(r);
+			        t.setDaemon(true);
+			        t.setName("Executable stream reader pool #" + poolId + " end reader #"
+			                  + endReaderCount.incrementAndGet());
+			        return t;
+		        });
+		endReader.allowCoreThreadTimeOut(true);
+		workers = new ArrayList<>(workerCount);
+		for (var pos = 0; pos < workerCount; pos++) {
+			final var t = new Thread(this::work);
+			t.setDaemon(true);
+			t.setPriority(Thread.MAX_PRIORITY);
+			t.setName("Executable stream reader pool #" + poolId + " worker #" + pos);
+			workers.add(t);
+		}
+		workers.forEach(Thread::start);
+	}
+
+	/**
+	 * With DEFAULT_MAX_END_READERS
+	 */
+	public StreamReaderPool(final int workerCount, final Duration idlePollInterval) {
+		this(workerCount, DEFAULT_MAX_END_READERS, idlePollInterval);
+	}
+
+	/**
+	 * With DEFAULT_MAX_END_READERS and a 10 ms idlePollInterval
+	 */
+	public StreamReaderPool(final int workerCount) {
+		this(workerCount, Duration.ofMillis(10));
+	}
+
+	/**
+	 * @return a new CaptureStandardOutputText to set with ProcesslauncherBuilder.setCaptureStandardOutput, which will use this pool.
+	 */
+	public CaptureStandardOutputText createCaptureStandardOutput(final CapturedStreams captureOutStreamsBehavior) {
+		return new CaptureStandardOutputText(captureOutStreamsBehavior).setStreamReaderPool(this);
+	}
+
+	/**
+	 * @return the actual count of not closed streams
+	 */
+	public int getWatchedStreamsCount() {
+		return watchedStreamsCount.get();
+	}
+
+	/**
+	 * @return the actual end reader threads count, never more than maxEndReaders
+	 */
+	int getEndReadersCount() {
+		return endReader.getPoolSize();
+	}
+
+	public boolean isClosed() {
+		return closed;
+	}
+
+	/**
+	 * Blocking, until the workers are stopped. Then, all the still watched streams are closed.
+	 * Don't call it from an observer, and don't use this pool after.
+	 */
+	@Override
+	public void close() {
+		synchronized (workers) {
+			if (closed) {
+				return;
+			}
+			closed = true;
+		}
+		try {
+			for (var pos = 0; pos < workers.size(); pos++) {
+				LockSupport.unpark(workers.get(pos));
+				workers.get(pos).join();
+			}
+		} catch (final InterruptedException e) {// NOSONAR
+			throw new IllegalStateException("Can't wait for join Threads", e);
+		} finally {
+			endReader.shutdown();
+		}
+
+		StreamParser streamParser;
+		while ((streamParser = watchedStreams.poll()) != null) {
+			watchedStreamsCount.decrementAndGet();
+			streamParser.endOfStream();
+		}
+	}
+
+	void register(final StreamParser streamParser) {
+		synchronized (workers) {
+			if (closed) {
+				throw new IllegalStateException("This StreamReaderPool is closed");
+			}
+			watchedStreamsCount.incrementAndGet();
+			watchedStreams.add(streamParser);
+		}
+	}
+
+	private void work() {
+		final var buffer = new byte[READ_BUFFER_SIZE];
+		var idlePolls = 0;
+		while (closed == false) {
+			final var streamParser = watchedStreams.poll();
+			if (streamParser == null) {
+				LockSupport.parkNanos(idlePollIntervalNanos);
+				continue;
+			}
+
+			final var readed = streamParser.readAvailable(buffer, endReader);
+			if (readed == -1) {
+				watchedStreamsCount.decrementAndGet();
+				streamParser.endOfStream();
+				continue;
+			}
+			watchedStreams.add(streamParser);
+
+			if (readed > 0) {
+				idlePolls = 0;
+			} else if (++idlePolls >= watchedStreamsCount.get()) {
+				idlePolls = 0;
+				LockSupport.parkNanos(idlePollIntervalNanos);
+			}
+		}
+	}
+
+}
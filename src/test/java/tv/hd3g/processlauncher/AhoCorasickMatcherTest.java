@@ -0,0 +1,91 @@
+/*
+ * This file is part of processlauncher.
+ *
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation; either version 3 of the License, or
+ * any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU Lesser General Public License for more details.
+ *
+ * Copyright (C) hdsdi3g for hd3g.tv 2019
+ *
+ */
+package tv.hd3g.processlauncher;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.util.Arrays;
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+
+class AhoCorasickMatcherTest {
+
+	@Test
+	void testIndexOf() {
+		final var matcher = new AhoCorasickMatcher(List.of("he", "she", "his", "hers"));
+		assertEquals(-1, matcher.indexOf(""));
+		assertEquals(-1, matcher.indexOf("nothing"));
+		assertEquals(0, matcher.indexOf("ahe"));
+		assertEquals(0, matcher.indexOf("ushers"));
+		assertEquals(2, matcher.indexOf("ahhis"));
+		assertEquals(0, matcher.indexOf("hers"));
+	}
+
+	@Test
+	void testFailLinks() {
+		final var matcher = new AhoCorasickMatcher(List.of("abcd", "bce", "cf"));
+		assertEquals(1, matcher.indexOf("abce"));
+		assertEquals(2, matcher.indexOf("abcf"));
+		assertEquals(0, matcher.indexOf("aabcd"));
+		assertEquals(-1, matcher.indexOf("abcabc"));
+	}
+
+	@Test
+	void testSharedPrefixes() {
+		final var matcher = new AhoCorasickMatcher(List.of("Invalid data", "Invalid argument", "Invalid"));
+		assertEquals(1 + "Invalid ".length() + "data".length() + "argument".length(), matcher.getNodesCount());
+		assertEquals(2, matcher.indexOf("Invalid data found"));
+		assertEquals(-1, matcher.indexOf("invalid data found"));
+	}
+
+	@Test
+	void testSameEnd() {
+		final var matcher = new AhoCorasickMatcher(List.of("xabc", "bc", "abc"));
+		assertEquals(0, matcher.indexOf("xabc"));
+		assertEquals(1, matcher.indexOf("abc"));
+		assertEquals(1, matcher.indexOf("yabc"));
+	}
+
+	@Test
+	void testDuplicate() {
+		final var matcher = new AhoCorasickMatcher(List.of("error", "error"));
+		assertEquals(0, matcher.indexOf("an error"));
+	}
+
+	@Test
+	void testNonAscii() {
+		final var matcher = new AhoCorasickMatcher(List.of("échec", "défaut", "ab"));
+		assertEquals(0, matcher.indexOf("un échec"));
+		assertEquals(1, matcher.indexOf("ddéfaut"));
+		assertEquals(-1, matcher.indexOf("déchet"));
+		assertEquals(2, matcher.indexOf("ééab"));
+		assertEquals(-1, new AhoCorasickMatcher(List.of("ab")).indexOf("aéb"));
+	}
+
+	@Test
+	void testEmpty() {
+		final var matcher = new AhoCorasickMatcher(List.of());
+		assertEquals(-1, matcher.indexOf("something"));
+		final var emptyLiteral = List.of("");
+		assertThrows(IllegalArgumentException.class, () -> new AhoCorasickMatcher(emptyLiteral));
+		final var nullLiteral = Arrays.asList("a", null);
+		assertThrows(IllegalArgumentException.class, () -> new AhoCorasickMatcher(nullLiteral));
+	}
+
+}
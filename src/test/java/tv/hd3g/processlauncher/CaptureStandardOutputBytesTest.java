@@ -0,0 +1,116 @@
+/*
+ * This file is part of processlauncher.
+ *
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation; either version 3 of the License, or
+ * any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU Lesser General Public License for more details.
+ *
+ * Copyright (C) hdsdi3g for hd3g.tv 2019
+ *
+ */
+package tv.hd3g.processlauncher;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.WritableByteChannel;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+import org.mockito.Mockito;
+
+class CaptureStandardOutputBytesTest {
+
+	@Test
+	void testInvalidChunkSize() {
+		assertThrows(IllegalArgumentException.class,
+		        () -> new CaptureStandardOutputBytes(CapturedStreams.BOTH_STDOUT_STDERR, 0));
+	}
+
+	@Test
+	void testCapture() {
+		final var content = new byte[1000];
+		for (var pos = 0; pos < content.length; pos++) {
+			content[pos] = (byte) pos;
+		}
+
+		final var sequences = new ArrayList<Long>();
+		final var observed = new ByteArrayOutputStream();
+		final List<Boolean> closed = new ArrayList<>();
+		final var sink = new ByteArrayOutputStream();
+
+		final var csob = new CaptureStandardOutputBytes(CapturedStreams.ONLY_STDOUT, 300);
+		csob.addStdOutSink(Channels.newChannel(sink));
+		csob.addObserver(new CapturedStdOutErrBytes() {
+
+			@Override
+			public void onBytes(final ProcesslauncherLifecycle source,
+			                    final boolean stdErr,
+			                    final long sequence,
+			                    final ByteBuffer chunk) {
+				assertTrue(chunk.isReadOnly());
+				sequences.add(sequence);
+				final var readed = new byte[chunk.remaining()];
+				chunk.get(readed);
+				observed.writeBytes(readed);
+			}
+
+			@Override
+			public void onClosedStream(final ProcesslauncherLifecycle source, final boolean stdErr) {
+				closed.add(stdErr);
+			}
+		});
+
+		final var source = Mockito.mock(ProcesslauncherLifecycle.class);
+		final var launcher = Mockito.mock(Processlauncher.class);
+		Mockito.when(source.getLauncher()).thenReturn(launcher);
+		Mockito.when(launcher.getExecutableName()).thenReturn("some-exec");
+
+		assertTrue(csob.stdErrStreamConsumer(new ByteArrayInputStream(content), source).isDone());
+		csob.stdOutStreamConsumer(new ByteArrayInputStream(content), source);
+		csob.waitForClosedStreams();
+
+		assertArrayEquals(content, sink.toByteArray());
+		assertArrayEquals(content, observed.toByteArray());
+		assertEquals(List.of(0L, 1L, 2L, 3L), sequences);
+		assertEquals(List.of(false), closed);
+	}
+
+	@Test
+	void testFailedSink() throws IOException {
+		final var content = new byte[1000];
+		final var failedSink = Mockito.mock(WritableByteChannel.class);
+		Mockito.when(failedSink.write(Mockito.any(ByteBuffer.class))).thenThrow(new IOException("Disk full"));
+		final var sink = new ByteArrayOutputStream();
+
+		final var csob = new CaptureStandardOutputBytes(CapturedStreams.ONLY_STDOUT, 300);
+		csob.addStdOutSink(failedSink);
+		csob.addStdOutSink(Channels.newChannel(sink));
+
+		final var source = Mockito.mock(ProcesslauncherLifecycle.class);
+		final var launcher = Mockito.mock(Processlauncher.class);
+		Mockito.when(source.getLauncher()).thenReturn(launcher);
+		Mockito.when(launcher.getExecutableName()).thenReturn("some-exec");
+
+		csob.stdOutStreamConsumer(new ByteArrayInputStream(content), source);
+		csob.waitForClosedStreams();
+
+		Mockito.verify(failedSink, Mockito.times(1)).write(Mockito.any(ByteBuffer.class));
+		assertArrayEquals(content, sink.toByteArray());
+	}
+
+}
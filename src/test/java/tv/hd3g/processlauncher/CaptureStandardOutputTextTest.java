@@ -17,15 +17,19 @@
 package tv.hd3g.processlauncher;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 
 import java.io.ByteArrayInputStream;
+import java.time.Duration;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.List;
 import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executor;
 import java.util.concurrent.TimeUnit;
 import java.util.stream.Collectors;
+import java.util.stream.IntStream;
 
 import org.apache.commons.collections4.CollectionUtils;
 import org.junit.jupiter.api.Test;
@@ -80,4 +84,94 @@ class CaptureStandardOutputTextTest {
 		assertTrue(CollectionUtils.isEqualCollection(textLinesStdErr, capturedlinesErr));
 	}
 
+	@Test
+	void testStreamParserExecutor() {
+		final List<LineEntry> capturedlines = new ArrayList<>();
+		final CapturedStdOutErrText csoeto = new CapturedStdOutErrText() {
+
+			@Override
+			public void onText(final LineEntry lineEntry) {
+				synchronized (capturedlines) {
+					capturedlines.add(lineEntry);
+				}
+			}
+
+		};
+
+		final List<Runnable> tasks = new ArrayList<>();
+		final Executor executor = tasks::add;
+
+		final var csot = new CaptureStandardOutputText();
+		assertTrue(csot.getStreamParserExecutor().isEmpty());
+		csot.setStreamParserExecutor(executor);
+		assertEquals(executor, csot.getStreamParserExecutor().get());
+		csot.addObserver(csoeto);
+
+		final var source = Mockito.mock(ProcesslauncherLifecycle.class);
+		final var launcher = Mockito.mock(Processlauncher.class);
+		Mockito.when(source.getLauncher()).thenReturn(launcher);
+		Mockito.when(launcher.getExecutableName()).thenReturn("some-exec");
+
+		final var stdOutClosed = csot.stdOutStreamConsumer(new ByteArrayInputStream("Line 1\nLine 2".getBytes()), source);
+		final var stdErrClosed = csot.stdErrStreamConsumer(new ByteArrayInputStream("Line 3".getBytes()), source);
+		assertFalse(stdOutClosed.isDone());
+
+		assertEquals(2, tasks.size());
+		assertTrue(csoeto.isStreamsWatchIsStillAlive());
+		tasks.forEach(Runnable::run);
+		assertFalse(csoeto.isStreamsWatchIsStillAlive());
+		csoeto.waitForClosedStreams();
+		assertTrue(stdOutClosed.isDone());
+		assertTrue(stdErrClosed.isDone());
+
+		assertEquals(3, capturedlines.size());
+		assertEquals(2, capturedlines.stream().filter(le -> le.isStdErr() == false).count());
+	}
+
+	@Test
+	void testBatchObserver() {
+		final List<List<LineEntry>> batches = new ArrayList<>();
+		final List<LineEntry> capturedlines = new ArrayList<>();
+		final var batchObserver = new CapturedStdOutErrTextBatch(256, Duration.ofHours(1)) {
+
+			@Override
+			public void onTextBatch(final List<LineEntry> lineEntries) {
+				batches.add(lineEntries);
+			}
+		};
+		final CapturedStdOutErrText lineObserver = new CapturedStdOutErrText() {
+
+			@Override
+			public void onText(final LineEntry lineEntry) {
+				capturedlines.add(lineEntry);
+			}
+
+		};
+
+		final List<Runnable> tasks = new ArrayList<>();
+		final var csot = new CaptureStandardOutputText().setStreamParserExecutor(tasks::add);
+		csot.addObserver(batchObserver);
+		csot.addObserver(lineObserver);
+
+		final var source = Mockito.mock(ProcesslauncherLifecycle.class);
+		final var launcher = Mockito.mock(Processlauncher.class);
+		Mockito.when(source.getLauncher()).thenReturn(launcher);
+		Mockito.when(launcher.getExecutableName()).thenReturn("some-exec");
+
+		final var lines = IntStream.range(0, 600).mapToObj(i -> "Line " + i).collect(Collectors.toList());
+		csot.stdOutStreamConsumer(new ByteArrayInputStream(String.join("\n", lines).getBytes()), source);
+		tasks.forEach(Runnable::run);
+
+		assertEquals(List.of(256, 256, 88), batches.stream().map(List::size).collect(Collectors.toList()));
+		assertEquals(lines, batches.stream().flatMap(List::stream).map(LineEntry::getLine)
+		        .collect(Collectors.toList()));
+		assertEquals(600, capturedlines.size());
+	}
+
+	@Test
+	void testVirtualThreadStreamParser() {
+		final var csot = new CaptureStandardOutputText().setVirtualThreadStreamParser();
+		assertEquals(ProcesslauncherExecutors.getVirtualThreadExecutor(), csot.getStreamParserExecutor().get());
+	}
+
 }
@@ -0,0 +1,162 @@
+/*
+ * This file is part of processlauncher.
+ *
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation; either version 3 of the License, or
+ * any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU Lesser General Public License for more details.
+ *
+ * Copyright (C) hdsdi3g for hd3g.tv 2019
+ *
+ */
+package tv.hd3g.processlauncher;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static tv.hd3g.processlauncher.ObserverOverflowPolicy.DROP_NEWEST;
+import static tv.hd3g.processlauncher.ObserverOverflowPolicy.DROP_OLDEST;
+import static tv.hd3g.processlauncher.ObserverOverflowPolicy.SAMPLE;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+class CapturedStdOutErrTextAsyncTest {
+
+	private List<LineEntry> pushed;
+	private CapturedStdOutErrText observer;
+
+	@BeforeEach
+	void init() {
+		pushed = new ArrayList<>();
+		observer = new CapturedStdOutErrText() {
+
+			@Override
+			void onText(final LineEntry lineEntry) {
+				pushed.add(lineEntry);
+			}
+
+			@Override
+			void onStreamClosed(final boolean isStdErr, final Throwable error) {
+				pushed.add(new LineEntry(0, "closed " + isStdErr + " " + error, isStdErr, null));
+			}
+		};
+	}
+
+	private static void offer(final CapturedStdOutErrTextAsync async, final String... lines) {
+		for (final var line : lines) {
+			async.onText(new LineEntry(System.currentTimeMillis(), line, false, null));
+		}
+	}
+
+	/**
+	 * Without watched streams, the consumer ends when the queue is empty.
+	 */
+	private List<String> drain(final CapturedStdOutErrTextAsync async) {
+		async.setWatchThreadStdout(null);
+		async.waitForClosedStreams();
+		return pushed.stream().map(LineEntry::getLine).collect(Collectors.toList());
+	}
+
+	@Test
+	void testInvalidParams() {
+		assertThrows(IllegalArgumentException.class, () -> new CapturedStdOutErrTextAsync(observer, 0, DROP_NEWEST));
+		final var async = new CapturedStdOutErrTextAsync(observer, 1, SAMPLE);
+		assertThrows(IllegalArgumentException.class, () -> async.setSampleRate(0));
+	}
+
+	@Test
+	void testDropNewest() {
+		final var async = new CapturedStdOutErrTextAsync(observer, 2, DROP_NEWEST);
+		offer(async, "A", "B", "C", "D", "E");
+		assertEquals(2, async.getLag());
+		assertEquals(3, async.getDroppedLinesCount());
+		assertEquals(List.of("A", "B"), drain(async));
+		assertEquals(0, async.getLag());
+		assertEquals(0, async.getLagMillis());
+	}
+
+	@Test
+	void testDropOldest() {
+		final var async = new CapturedStdOutErrTextAsync(observer, 2, DROP_OLDEST);
+		offer(async, "A", "B", "C", "D", "E");
+		assertEquals(2, async.getLag());
+		assertEquals(3, async.getDroppedLinesCount());
+		assertEquals(List.of("D", "E"), drain(async));
+	}
+
+	@Test
+	void testSample() {
+		final var async = new CapturedStdOutErrTextAsync(observer, 1, SAMPLE).setSampleRate(2);
+		offer(async, "A", "B", "C", "D", "E");
+		assertEquals(4, async.getDroppedLinesCount());
+		assertEquals(List.of("D"), drain(async));
+	}
+
+	@Test
+	void testBatchObserver() {
+		final List<List<LineEntry>> batches = new ArrayList<>();
+		final var batchObserver = new CapturedStdOutErrTextBatch() {
+
+			@Override
+			public void onTextBatch(final List<LineEntry> lineEntries) {
+				batches.add(lineEntries);
+			}
+		};
+		final var async = new CapturedStdOutErrTextAsync(batchObserver, 10, DROP_NEWEST);
+		async.onText(new LineEntry(0, "A", false, null));
+		async.onText(new LineEntry(0, "B", false, null));
+		async.onText(new LineEntry(0, "C", true, null));
+		async.onText(new LineEntry(0, "D", false, null));
+		async.setWatchThreadStdout(null);
+		async.waitForClosedStreams();
+
+		assertEquals(List.of(List.of("A", "B"), List.of("C"), List.of("D")), batches.stream()
+		        .map(b -> b.stream().map(LineEntry::getLine).collect(Collectors.toList()))
+		        .collect(Collectors.toList()));
+	}
+
+	@Test
+	void testStreamClosed() {
+		final var async = new CapturedStdOutErrTextAsync(observer, 10, DROP_NEWEST);
+		final var error = new IllegalStateException("err");
+		offer(async, "A", "B");
+		async.onStreamClosed(false, error);
+		assertTrue(pushed.isEmpty());
+		assertEquals(List.of("A", "B", "closed false " + error), drain(async));
+	}
+
+	@Test
+	void testStreamClosedPublisher() throws InterruptedException {
+		final var publisher = new CapturedStdOutErrTextPublisher(1);
+		final var subscriber = new CapturedStdOutErrTextPublisherTest.LinesSubscriber();
+		publisher.subscribe(subscriber);
+		subscriber.subscription.request(Long.MAX_VALUE);
+
+		final var async = new CapturedStdOutErrTextAsync(publisher, 10, DROP_NEWEST);
+		offer(async, "A", "B");
+		async.onStreamClosed(true, null);
+		async.setWatchThreadStdout(null);
+		assertTrue(subscriber.end.await(10, TimeUnit.SECONDS));
+		assertTrue(subscriber.completed);
+		assertEquals(2, subscriber.size());
+	}
+
+	@Test
+	void testGetters() {
+		final var async = new CapturedStdOutErrTextAsync(observer, 1, DROP_OLDEST);
+		assertEquals(observer, async.getObserver());
+		assertEquals(DROP_OLDEST, async.getOverflowPolicy());
+	}
+
+}
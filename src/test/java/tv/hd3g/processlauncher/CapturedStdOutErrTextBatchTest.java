@@ -0,0 +1,74 @@
+/*
+ * This file is part of processlauncher.
+ *
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation; either version 3 of the License, or
+ * any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU Lesser General Public License for more details.
+ *
+ * Copyright (C) hdsdi3g for hd3g.tv 2019
+ *
+ */
+package tv.hd3g.processlauncher;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+
+class CapturedStdOutErrTextBatchTest {
+
+	private static class Batches extends CapturedStdOutErrTextBatch {
+		final List<List<LineEntry>> batches = new ArrayList<>();
+
+		Batches(final int maxBatchSize, final Duration maxBatchDelay) {
+			super(maxBatchSize, maxBatchDelay);
+		}
+
+		Batches() {
+			super();
+		}
+
+		@Override
+		public void onTextBatch(final List<LineEntry> lineEntries) {
+			batches.add(lineEntries);
+		}
+	}
+
+	@Test
+	void testInvalidParams() {
+		final var oneMs = Duration.ofMillis(1);
+		final var negative = Duration.ofMillis(-1);
+		assertThrows(IllegalArgumentException.class, () -> new Batches(0, oneMs));
+		assertThrows(IllegalArgumentException.class, () -> new Batches(1, negative));
+		assertThrows(NullPointerException.class, () -> new Batches(1, null));
+	}
+
+	@Test
+	void testDefaults() {
+		final var batches = new Batches();
+		assertEquals(CapturedStdOutErrTextBatch.DEFAULT_MAX_BATCH_SIZE, batches.getMaxBatchSize());
+		assertEquals(CapturedStdOutErrTextBatch.DEFAULT_MAX_BATCH_DELAY.toNanos(), batches.getMaxBatchDelayNanos());
+	}
+
+	@Test
+	void testOnText() {
+		final var batches = new Batches();
+		final var lineEntry = new LineEntry(0, "line", false, null);
+		batches.onText(lineEntry);
+		assertEquals(1, batches.batches.size());
+		assertEquals(1, batches.batches.get(0).size());
+		assertSame(lineEntry, batches.batches.get(0).get(0));
+	}
+
+}
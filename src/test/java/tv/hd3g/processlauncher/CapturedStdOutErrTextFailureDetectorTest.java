@@ -0,0 +1,135 @@
+/*
+ * This file is part of processlauncher.
+ *
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation; either version 3 of the License, or
+ * any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU Lesser General Public License for more details.
+ *
+ * Copyright (C) hdsdi3g for hd3g.tv 2019
+ *
+ */
+package tv.hd3g.processlauncher;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.regex.Pattern;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mockito;
+
+class CapturedStdOutErrTextFailureDetectorTest {
+
+	private CapturedStdOutErrTextFailureDetector detector;
+
+	@BeforeEach
+	void init() {
+		detector = new CapturedStdOutErrTextFailureDetector(CapturedStreams.BOTH_STDOUT_STDERR, false)
+		        .addLiteral("no space", "No space left on device")
+		        .addLiteral("invalid data", "Invalid data found")
+		        .addRegex("conversion failed", Pattern.compile("^Conversion failed!$"))
+		        .addRegex("error code", "Error while \\w+ \\(code (-?\\d+)\\)");
+	}
+
+	@Test
+	void testInvalidParams() {
+		assertThrows(NullPointerException.class, () -> new CapturedStdOutErrTextFailureDetector(null, true));
+		assertThrows(NullPointerException.class, () -> detector.addLiteral(null, "a"));
+		assertThrows(NullPointerException.class, () -> detector.addLiteral("a", null));
+		assertThrows(IllegalArgumentException.class, () -> detector.addLiteral("a", ""));
+		assertThrows(NullPointerException.class, () -> detector.addRegex("a", (String) null));
+		assertThrows(NullPointerException.class, () -> detector.addRegex("a", (Pattern) null));
+	}
+
+	@Test
+	void testDefaults() {
+		final var defaultDetector = new CapturedStdOutErrTextFailureDetector();
+		assertTrue(defaultDetector.isKillOnMatch());
+		assertFalse(detector.isKillOnMatch());
+		defaultDetector.onText(new LineEntry(0, "No space left on device", false, null));
+		assertFalse(defaultDetector.hasMatch());
+	}
+
+	@Test
+	void testNoMatch() {
+		detector.onText(new LineEntry(0, "frame=  100 fps=25", true, null));
+		detector.onText(new LineEntry(0, "Conversion failed! (not at the end)", true, null));
+		assertFalse(detector.hasMatch());
+		assertTrue(detector.getFirstMatch().isEmpty());
+		assertTrue(detector.getMatches().isEmpty());
+	}
+
+	@Test
+	void testLiteralMatch() {
+		final var lineEntry = new LineEntry(0, "out.mp4: No space left on device", true, null);
+		detector.onText(lineEntry);
+		assertTrue(detector.hasMatch());
+		final var match = detector.getFirstMatch().get();
+		assertEquals("no space", match.getRuleName());
+		assertEquals("No space left on device", match.getPattern());
+		assertFalse(match.isRegex());
+		assertSame(lineEntry, match.getLineEntry());
+	}
+
+	@Test
+	void testRegexMatch() {
+		detector.onText(new LineEntry(0, "Error while decoding (code -22)", false, null));
+		detector.onText(new LineEntry(0, "Conversion failed!", true, null));
+		final var matches = detector.getMatches();
+		assertEquals(2, matches.size());
+		assertEquals("error code", matches.get(0).getRuleName());
+		assertTrue(matches.get(0).isRegex());
+		assertEquals("conversion failed", matches.get(1).getRuleName());
+		assertEquals("^Conversion failed!$", matches.get(1).getPattern());
+	}
+
+	@Test
+	void testLiteralsBeforeRegex() {
+		detector.onText(new LineEntry(0, "Error while writing (code -28): No space left on device", true, null));
+		assertEquals(1, detector.getMatches().size());
+		assertEquals("no space", detector.getFirstMatch().get().getRuleName());
+	}
+
+	@Test
+	void testFirstMatchByRule() {
+		final var first = new LineEntry(0, "Invalid data found", true, null);
+		detector.onText(first);
+		detector.onText(new LineEntry(0, "Invalid data found, again", true, null));
+		assertEquals(1, detector.getMatches().size());
+		assertSame(first, detector.getFirstMatch().get().getLineEntry());
+	}
+
+	@Test
+	void testKillOnce() {
+		final var source = Mockito.mock(ProcesslauncherLifecycle.class);
+		Mockito.when(source.isRunning()).thenReturn(true);
+		Mockito.when(source.isKilled()).thenReturn(false, true);
+		final var killDetector = new CapturedStdOutErrTextFailureDetector()
+		        .addLiteral("invalid data", "Invalid data found");
+		for (var pos = 0; pos < 10; pos++) {
+			killDetector.onText(new LineEntry(0, "Invalid data found", true, source));
+		}
+		Mockito.verify(source, Mockito.times(1)).kill();
+		assertEquals(1, killDetector.getMatches().size());
+	}
+
+	@Test
+	void testAddLiteralAfterStart() {
+		detector.onText(new LineEntry(0, "Killed", true, null));
+		assertFalse(detector.hasMatch());
+		detector.addLiteral("killed", "Killed");
+		detector.onText(new LineEntry(0, "Killed", true, null));
+		assertEquals("killed", detector.getFirstMatch().get().getRuleName());
+	}
+
+}
@@ -0,0 +1,96 @@
+/*
+ * This file is part of processlauncher.
+ *
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation; either version 3 of the License, or
+ * any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU Lesser General Public License for more details.
+ *
+ * Copyright (C) hdsdi3g for hd3g.tv 2019
+ *
+ */
+package tv.hd3g.processlauncher;
+
+import static org.apache.logging.log4j.Level.DEBUG;
+import static org.apache.logging.log4j.Level.INFO;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoMoreInteractions;
+import static org.mockito.Mockito.when;
+
+import org.apache.logging.log4j.Level;
+import org.apache.logging.log4j.Logger;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mockito;
+
+class CapturedStdOutErrTextLoggerTest {
+
+	private Logger log;
+	private ProcesslauncherLifecycle source;
+	private CapturedStdOutErrTextLogger logger;
+
+	@BeforeEach
+	void init() {
+		log = Mockito.mock(Logger.class);
+		when(log.isEnabled(INFO)).thenReturn(true);
+		when(log.isEnabled(DEBUG)).thenReturn(false);
+
+		final var launcher = Mockito.mock(Processlauncher.class);
+		when(launcher.getExecutableName()).thenReturn("exec");
+		source = Mockito.mock(ProcesslauncherLifecycle.class);
+		when(source.getLauncher()).thenReturn(launcher);
+
+		logger = new CapturedStdOutErrTextLogger(log, le -> {
+			if (le.getLine().startsWith("debug")) {
+				return DEBUG;
+			} else if (le.getLine().startsWith("none")) {
+				return null;
+			}
+			return INFO;
+		});
+	}
+
+	@Test
+	void testInvalidParams() {
+		assertThrows(NullPointerException.class, () -> new CapturedStdOutErrTextLogger(null, le -> INFO));
+		assertThrows(NullPointerException.class, () -> new CapturedStdOutErrTextLogger(log, null));
+		assertSame(log, logger.getLogger());
+	}
+
+	@Test
+	void testOnText() {
+		logger.onText(new LineEntry(0, "out line", false, source));
+		logger.onText(new LineEntry(0, "err line", true, source));
+		logger.onText(new LineEntry(0, "debug line", false, source));
+		logger.onText(new LineEntry(0, "none line", false, source));
+
+		verify(log, times(1)).log(INFO, "{} ✅ {}", "exec", "out line");
+		verify(log, times(1)).log(INFO, "{} ❌ {}", "exec", "err line");
+		verify(log, times(1)).isEnabled(INFO);
+		verify(log, times(1)).isEnabled(DEBUG);
+		verifyNoMoreInteractions(log);
+	}
+
+	@Test
+	void testIsEnabledCache() {
+		for (var pos = 0; pos < 10; pos++) {
+			assertTrue(logger.isEnabled(INFO));
+			assertFalse(logger.isEnabled(DEBUG));
+		}
+		assertFalse(logger.isEnabled(Level.TRACE));
+		verify(log, times(1)).isEnabled(INFO);
+		verify(log, times(1)).isEnabled(DEBUG);
+		verify(log, times(1)).isEnabled(Level.TRACE);
+	}
+
+}
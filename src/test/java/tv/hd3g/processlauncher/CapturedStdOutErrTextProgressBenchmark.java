@@ -0,0 +1,79 @@
+/*
+ * This file is part of processlauncher.
+ *
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation; either version 3 of the License, or
+ * any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU Lesser General Public License for more details.
+ *
+ * Copyright (C) hdsdi3g for hd3g.tv 2019
+ *
+ */
+package tv.hd3g.processlauncher;
+
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.regex.Pattern;
+
+/**
+ * Not a test: compare CapturedStdOutErrTextProgress with a regex by key, on ffmpeg stats lines.
+ */
+public class CapturedStdOutErrTextProgressBenchmark {
+
+	private static final int LINES = 2_000_000;
+	private static final int ROUNDS = 3;
+
+	private static final Pattern FRAME = Pattern.compile("frame=\\s*(\\d+)");
+	private static final Pattern FPS = Pattern.compile("fps=\\s*([\\d.]+)");
+	private static final Pattern TIME = Pattern.compile("time=\\s*(\\d+):(\\d+):([\\d.]+)");
+	private static final Pattern SPEED = Pattern.compile("speed=\\s*([\\d.]+)x");
+
+	public static void main(final String[] args) {
+		final var lines = new LineEntry[1000];
+		for (var pos = 0; pos < lines.length; pos++) {
+			lines[pos] = new LineEntry(0, "frame=" + String.format("%5d", pos) + " fps= 25 q=28.0 size=  " + pos * 3
+			                              + "kB time=00:00:" + String.format("%02d", pos % 60)
+			                              + ".00 bitrate= 524.3kbits/s speed=1.01x", true, null);
+		}
+
+		for (var round = 0; round < ROUNDS; round++) {
+			final var sum = new AtomicLong();
+			var start = System.nanoTime();
+			for (var pos = 0; pos < LINES; pos++) {
+				final var line = lines[pos % lines.length].getLine();
+				var m = FRAME.matcher(line);
+				final var frame = m.find() ? Long.parseLong(m.group(1)) : -1;
+				m = FPS.matcher(line);
+				final var fps = m.find() ? Double.parseDouble(m.group(1)) : Double.NaN;
+				m = TIME.matcher(line);
+				final var time = m.find() ? Duration.ofHours(Long.parseLong(m.group(1)))
+				        .plusMinutes(Long.parseLong(m.group(2)))
+				        .plusNanos(Math.round(Double.parseDouble(m.group(3)) * 1_000_000_000d)) : Duration.ZERO;
+				m = SPEED.matcher(line);
+				final var speed = m.find() ? Double.parseDouble(m.group(1)) : Double.NaN;
+				sum.addAndGet(frame + (long) fps + time.toMillis() + (long) speed);
+			}
+			report("Regex", start);
+
+			final var progress = new CapturedStdOutErrTextProgress(CapturedStreams.BOTH_STDOUT_STDERR,
+			        Duration.ZERO, s -> sum.addAndGet(s.getFrame().getAsLong()));
+			start = System.nanoTime();
+			for (var pos = 0; pos < LINES; pos++) {
+				progress.onText(lines[pos % lines.length]);
+			}
+			report("CapturedStdOutErrTextProgress (a snapshot by line)", start);
+			System.out.println("(" + sum.get() + ")");// NOSONAR
+		}
+	}
+
+	private static void report(final String name, final long start) {
+		final var duration = System.nanoTime() - start;
+		System.out.println(name + ": " + LINES * 1_000_000_000L / duration / 1000 + "k lines/sec");// NOSONAR
+	}
+
+}
@@ -0,0 +1,151 @@
+/*
+ * This file is part of processlauncher.
+ *
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation; either version 3 of the License, or
+ * any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU Lesser General Public License for more details.
+ *
+ * Copyright (C) hdsdi3g for hd3g.tv 2019
+ *
+ */
+package tv.hd3g.processlauncher;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+class CapturedStdOutErrTextProgressTest {
+
+	private List<ProgressSnapshot> snapshots;
+	private CapturedStdOutErrTextProgress progress;
+
+	@BeforeEach
+	void init() {
+		snapshots = new ArrayList<>();
+		progress = new CapturedStdOutErrTextProgress(CapturedStreams.BOTH_STDOUT_STDERR, Duration.ZERO,
+		        snapshots::add);
+	}
+
+	private void onText(final String... lines) {
+		for (final var line : lines) {
+			progress.onText(new LineEntry(0, line, false, null));
+		}
+	}
+
+	@Test
+	void testInvalidParams() {
+		final var streams = CapturedStreams.BOTH_STDOUT_STDERR;
+		final var oneMs = Duration.ofMillis(1);
+		final var negative = Duration.ofMillis(-1);
+		assertThrows(NullPointerException.class, () -> new CapturedStdOutErrTextProgress(null));
+		assertThrows(NullPointerException.class, () -> new CapturedStdOutErrTextProgress(null, oneMs, s -> {
+		}));
+		assertThrows(NullPointerException.class, () -> new CapturedStdOutErrTextProgress(streams, null, s -> {
+		}));
+		assertThrows(IllegalArgumentException.class, () -> new CapturedStdOutErrTextProgress(streams, negative,
+		        s -> {
+		        }));
+	}
+
+	@Test
+	void testProgressBlocks() {
+		onText("frame=50", "fps=25.00", "stream_0_0_q=28.0", "bitrate=N/A", "out_time_us=2000000",
+		        "out_time=00:00:02.000000", "speed=1.5x");
+		assertTrue(snapshots.isEmpty());
+		assertTrue(progress.getLastSnapshot().isEmpty());
+
+		onText("progress=continue");
+		assertEquals(1, snapshots.size());
+		final var snapshot = snapshots.get(0);
+		assertEquals(50, snapshot.getFrame().getAsLong());
+		assertEquals(25d, snapshot.getFps().getAsDouble());
+		assertEquals(Duration.ofSeconds(2), snapshot.getOutTime().get());
+		assertEquals(1.5d, snapshot.getSpeed().getAsDouble());
+		assertTrue(snapshot.getPercent().isEmpty());
+		assertFalse(snapshot.isEnd());
+		assertEquals("progress=continue", snapshot.getLineEntry().getLine());
+		assertSame(snapshot, progress.getLastSnapshot().get());
+
+		onText("frame=100", "out_time_us=4000000", "progress=end");
+		assertEquals(2, snapshots.size());
+		assertEquals(100, snapshots.get(1).getFrame().getAsLong());
+		assertEquals(Duration.ofSeconds(4), snapshots.get(1).getOutTime().get());
+		assertEquals(25d, snapshots.get(1).getFps().getAsDouble());
+		assertTrue(snapshots.get(1).isEnd());
+	}
+
+	@Test
+	void testStatsLines() {
+		onText("  Duration: 00:00:10.00, start: 0.000000, bitrate: 1205 kb/s",
+		        "    Stream #0:0(und): Video: h264 (High), yuv420p, 1920x1080, 25 fps");
+		assertTrue(snapshots.isEmpty());
+
+		onText("frame=  100 fps= 25 q=28.0 size=     256kB time=00:00:04.00 bitrate= 524.3kbits/s speed=1.01x");
+		assertEquals(1, snapshots.size());
+		final var snapshot = snapshots.get(0);
+		assertEquals(100, snapshot.getFrame().getAsLong());
+		assertEquals(25d, snapshot.getFps().getAsDouble());
+		assertEquals(Duration.ofSeconds(4), snapshot.getOutTime().get());
+		assertEquals(1.01d, snapshot.getSpeed().getAsDouble(), 0.000001d);
+		assertEquals(40d, snapshot.getPercent().getAsDouble(), 0.000001d);
+	}
+
+	@Test
+	void testSetMediaDuration() {
+		progress.setMediaDuration(Duration.ofSeconds(8));
+		onText("out_time=00:00:02.000000", "progress=continue", "out_time=00:00:09.000000", "progress=continue");
+		assertEquals(25d, snapshots.get(0).getPercent().getAsDouble(), 0.000001d);
+		assertEquals(100d, snapshots.get(1).getPercent().getAsDouble(), 0.000001d);
+	}
+
+	@Test
+	void testPercent() {
+		onText("percent=12.5", "Progress: 50%", "progress: 75%");
+		assertEquals(2, snapshots.size());
+		assertEquals(12.5d, snapshots.get(0).getPercent().getAsDouble());
+		assertEquals(75d, snapshots.get(1).getPercent().getAsDouble());
+		assertTrue(snapshots.get(1).getFrame().isEmpty());
+		assertTrue(snapshots.get(1).getFps().isEmpty());
+		assertTrue(snapshots.get(1).getOutTime().isEmpty());
+		assertTrue(snapshots.get(1).getSpeed().isEmpty());
+	}
+
+	@Test
+	void testThrottle() {
+		progress = new CapturedStdOutErrTextProgress(CapturedStreams.BOTH_STDOUT_STDERR, Duration.ofHours(1),
+		        snapshots::add);
+		onText("frame=1", "progress=continue", "frame=2", "progress=continue", "frame=3", "progress=continue");
+		assertEquals(1, snapshots.size());
+		assertEquals(1, snapshots.get(0).getFrame().getAsLong());
+		assertSame(snapshots.get(0), progress.getLastSnapshot().get());
+
+		onText("progress=end");
+		assertEquals(2, snapshots.size());
+		assertTrue(snapshots.get(1).isEnd());
+	}
+
+	@Test
+	void testStreams() {
+		progress = new CapturedStdOutErrTextProgress(CapturedStreams.ONLY_STDOUT, Duration.ZERO, snapshots::add);
+		progress.onText(new LineEntry(0, "progress=continue", true, null));
+		assertTrue(snapshots.isEmpty());
+		progress.onText(new LineEntry(0, "progress=continue", false, null));
+		assertEquals(1, snapshots.size());
+	}
+
+}
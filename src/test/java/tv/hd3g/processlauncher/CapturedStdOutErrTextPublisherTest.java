@@ -0,0 +1,264 @@
+/*
+ * This file is part of processlauncher.
+ *
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation; either version 3 of the License, or
+ * any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU Lesser General Public License for more details.
+ *
+ * Copyright (C) hdsdi3g for hd3g.tv 2019
+ *
+ */
+package tv.hd3g.processlauncher;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Flow.Subscriber;
+import java.util.concurrent.Flow.Subscription;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+class CapturedStdOutErrTextPublisherTest {
+
+	static class LinesSubscriber implements Subscriber<LineEntry> {
+		final List<LineEntry> lines = new ArrayList<>();
+		final CountDownLatch end = new CountDownLatch(1);
+		volatile Subscription subscription;
+		volatile Throwable error;
+		volatile boolean completed;
+
+		@Override
+		public void onSubscribe(final Subscription subscription) {
+			this.subscription = subscription;
+		}
+
+		@Override
+		public void onNext(final LineEntry item) {
+			synchronized (lines) {
+				lines.add(item);
+				lines.notifyAll();
+			}
+		}
+
+		@Override
+		public void onError(final Throwable throwable) {
+			error = throwable;
+			end.countDown();
+		}
+
+		@Override
+		public void onComplete() {
+			completed = true;
+			end.countDown();
+		}
+
+		int size() {
+			synchronized (lines) {
+				return lines.size();
+			}
+		}
+
+		/**
+		 * @return false if the timeout expires before get count lines
+		 */
+		boolean awaitSize(final int count, final long timeout, final TimeUnit unit) throws InterruptedException {
+			final var deadline = System.nanoTime() + unit.toNanos(timeout);
+			synchronized (lines) {
+				while (lines.size() < count) {
+					final var remaining = deadline - System.nanoTime();
+					if (remaining <= 0) {
+						return false;
+					}
+					TimeUnit.NANOSECONDS.timedWait(lines, remaining);
+				}
+				return true;
+			}
+		}
+	}
+
+	private CapturedStdOutErrTextPublisher publisher;
+	private LinesSubscriber subscriber;
+
+	@BeforeEach
+	void init() {
+		publisher = new CapturedStdOutErrTextPublisher(2);
+		subscriber = new LinesSubscriber();
+	}
+
+	private Thread pushInThread(final LineEntry... lineEntries) {
+		final var t = new Thread(() -> {
+			for (final var lineEntry : lineEntries) {
+				publisher.onText(lineEntry);
+			}
+		});
+		t.setDaemon(true);
+		t.start();
+		return t;
+	}
+
+	@Test
+	void testInvalidParams() {
+		assertThrows(IllegalArgumentException.class, () -> new CapturedStdOutErrTextPublisher(0));
+		assertThrows(IllegalArgumentException.class, () -> new CapturedStdOutErrTextPublisher(3));
+		assertThrows(NullPointerException.class, () -> publisher.subscribe(null));
+		assertNull(publisher.getSource());
+	}
+
+	@Test
+	void testDemand() throws InterruptedException {
+		publisher.subscribe(subscriber);
+		final var line0 = new LineEntry(0, "0", false, null);
+		final var line1 = new LineEntry(0, "1", false, null);
+		final var line2 = new LineEntry(0, "2", false, null);
+		final var pusher = pushInThread(line0, line1, line2);
+
+		pusher.join(100);
+		assertTrue(pusher.isAlive());
+		assertEquals(0, subscriber.size());
+
+		subscriber.subscription.request(2);
+		pusher.join(100);
+		assertTrue(pusher.isAlive());
+		assertEquals(2, subscriber.size());
+
+		subscriber.subscription.request(1);
+		pusher.join(1000);
+		assertFalse(pusher.isAlive());
+		assertEquals(3, subscriber.size());
+		assertSame(line0, subscriber.lines.get(0));
+		assertSame(line1, subscriber.lines.get(1));
+		assertSame(line2, subscriber.lines.get(2));
+	}
+
+	@Test
+	void testWaitSubscriber() throws InterruptedException {
+		final var line = new LineEntry(0, "line", false, null);
+		final var pusher = pushInThread(line);
+		pusher.join(100);
+		assertTrue(pusher.isAlive());
+
+		publisher.subscribe(subscriber);
+		subscriber.subscription.request(Long.MAX_VALUE);
+		subscriber.subscription.request(Long.MAX_VALUE);
+		pusher.join(1000);
+		assertFalse(pusher.isAlive());
+		assertSame(line, subscriber.lines.get(0));
+	}
+
+	@Test
+	void testComplete() {
+		publisher.subscribe(subscriber);
+		publisher.onStreamClosed(false, null);
+		assertEquals(1, subscriber.end.getCount());
+		publisher.onStreamClosed(true, null);
+		assertEquals(0, subscriber.end.getCount());
+		assertTrue(subscriber.completed);
+		assertNull(subscriber.error);
+	}
+
+	@Test
+	void testNoTextAfterComplete() throws InterruptedException {
+		publisher.subscribe(subscriber);
+		subscriber.subscription.request(Long.MAX_VALUE);
+		publisher.onStreamClosed(false, null);
+		publisher.onStreamClosed(true, null);
+		publisher.onStreamClosed(true, null);
+		final var pusher = pushInThread(new LineEntry(0, "late", false, null));
+		pusher.join(1000);
+		assertFalse(pusher.isAlive());
+		assertEquals(0, subscriber.size());
+		assertTrue(subscriber.completed);
+	}
+
+	@Test
+	void testCompleteBeforeSubscribe() {
+		final var oneStreamPublisher = new CapturedStdOutErrTextPublisher(1);
+		oneStreamPublisher.onStreamClosed(true, null);
+		oneStreamPublisher.subscribe(subscriber);
+		assertTrue(subscriber.completed);
+	}
+
+	@Test
+	void testError() {
+		final var error = new IOException("Can't read");
+		publisher.subscribe(subscriber);
+		publisher.onStreamClosed(false, error);
+		publisher.onStreamClosed(true, null);
+		assertFalse(subscriber.completed);
+		assertSame(error, subscriber.error);
+	}
+
+	@Test
+	void testInvalidRequest() {
+		publisher.subscribe(subscriber);
+		subscriber.subscription.request(0);
+		assertTrue(subscriber.error instanceof IllegalArgumentException);
+
+		publisher.onText(new LineEntry(0, "dropped", false, null));
+		publisher.onStreamClosed(false, null);
+		publisher.onStreamClosed(true, null);
+		assertEquals(0, subscriber.size());
+		assertFalse(subscriber.completed);
+	}
+
+	@Test
+	void testCancel() throws InterruptedException {
+		publisher.subscribe(subscriber);
+		final var pusher = pushInThread(new LineEntry(0, "line", false, null));
+		pusher.join(100);
+		assertTrue(pusher.isAlive());
+
+		subscriber.subscription.cancel();
+		pusher.join(1000);
+		assertFalse(pusher.isAlive());
+		assertEquals(0, subscriber.size());
+
+		publisher.onStreamClosed(false, null);
+		publisher.onStreamClosed(true, null);
+		assertEquals(1, subscriber.end.getCount());
+	}
+
+	@Test
+	void testSecondSubscriber() throws InterruptedException {
+		publisher.subscribe(subscriber);
+		final var second = new LinesSubscriber();
+		publisher.subscribe(second);
+		assertTrue(second.end.await(1, TimeUnit.SECONDS));
+		assertTrue(second.error instanceof IllegalStateException);
+		assertNull(subscriber.error);
+	}
+
+	@Test
+	void testFailedSubscriber() {
+		final var failed = new LinesSubscriber() {
+			@Override
+			public void onNext(final LineEntry item) {
+				throw new IllegalStateException("Fail");
+			}
+		};
+		publisher.subscribe(failed);
+		failed.subscription.request(10);
+		publisher.onText(new LineEntry(0, "line", false, null));
+		publisher.onText(new LineEntry(0, "line", false, null));
+		publisher.onStreamClosed(false, null);
+		publisher.onStreamClosed(true, null);
+		assertFalse(failed.completed);
+	}
+
+}
@@ -17,6 +17,7 @@
 package tv.hd3g.processlauncher;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 
 import java.util.Arrays;
@@ -98,4 +99,71 @@ class CapturedStdOutErrTextRetentionTest {
 		assertEquals("Out 0,Err 0,Out 1,Err 1,,,Out 3,Err 3", capText.getStdouterr(true, ","));
 		assertEquals("Out 0,Err 0,Out 1,Err 1,Out 3,Err 3", capText.getStdouterr(false, ","));
 	}
+
+	@Test
+	void testLimits() {
+		final var limited = new CapturedStdOutErrTextRetention(CapturedStreams.BOTH_STDOUT_STDERR,
+		        LineRetentionLimits.keepFirstAndLast(1, 2));
+		capText.getStdouterrLines(true).forEach(line -> limited.onText(createLineEntry(line, line.startsWith("Err"))));
+		assertEquals("Out 0,Err 0,Err 1,,Out 3,Err 3", limited.getStdouterr(true, ","));
+		assertEquals("Out 0,,Out 3", limited.getStdout(true, ","));
+		assertEquals("Err 0,Err 1,Err 3", limited.getStderr(true, ","));
+		assertEquals(2, limited.getDroppedLinesCount());
+		assertEquals(0, capText.getDroppedLinesCount());
+	}
+
+	@Test
+	void testLinesCount() {
+		assertEquals(4, capText.getStdoutLinesCount(true));
+		assertEquals(3, capText.getStdoutLinesCount(false));
+		assertEquals(4, capText.getStderrLinesCount(true));
+		assertEquals(3, capText.getStderrLinesCount(false));
+	}
+
+	@Test
+	void testJoinedTextCache() {
+		final var stdout = capText.getStdout(true, ",");
+		assertSame(stdout, capText.getStdout(true, ","));
+		assertEquals("Out 0|Out 1||Out 3", capText.getStdout(true, "|"));
+		final var stdouterr = capText.getStdouterr(false, ",");
+		assertSame(stdouterr, capText.getStdouterr(false, ","));
+
+		capText.onText(createLineEntry("Out 4", false));
+		assertEquals("Out 0,Out 1,,Out 3,Out 4", capText.getStdout(true, ","));
+		assertEquals("Out 0,Err 0,Out 1,Err 1,Out 3,Err 3,Out 4", capText.getStdouterr(false, ","));
+	}
+
+	@Test
+	void testSpillToDisk() {
+		final var spilled = new CapturedStdOutErrTextRetention(CapturedStreams.BOTH_STDOUT_STDERR, 2, null);
+		capText.getStdouterrLines(true).forEach(line -> spilled.onText(createLineEntry(line, line.startsWith("Err"))));
+		assertEquals(capText.getStdouterr(true, ","), spilled.getStdouterr(true, ","));
+		assertEquals("Out 0,Out 1,Out 3", spilled.getStdout(false, ","));
+		assertEquals("Err 0,Err 1,Err 3", spilled.getStderr(false, ","));
+
+		spilled.close();
+		assertEquals("Out 3", spilled.getStdout(false, ","));
+		assertEquals("Err 1,Err 3", spilled.getStderr(true, ","));
+		assertEquals(4, spilled.getDroppedLinesCount());
+	}
+
+	@Test
+	void testCompressed() {
+		final var compressed = CapturedStdOutErrTextRetention.createCompressed(CapturedStreams.BOTH_STDOUT_STDERR, 64);
+		capText.getStdouterrLines(true).forEach(line -> compressed.onText(createLineEntry(line, line.startsWith(
+		        "Err"))));
+		assertEquals(capText.getStdouterr(true, ","), compressed.getStdouterr(true, ","));
+		assertEquals("Out 0,Out 1,Out 3", compressed.getStdout(false, ","));
+		assertEquals("Err 0,Err 1,Err 3", compressed.getStderr(false, ","));
+	}
+
+	@Test
+	void testCompact() {
+		final var compact = CapturedStdOutErrTextRetention.createCompact(CapturedStreams.BOTH_STDOUT_STDERR);
+		capText.getStdouterrLines(true).forEach(line -> compact.onText(createLineEntry(line, line.startsWith(
+		        "Err"))));
+		assertEquals(capText.getStdouterr(true, ","), compact.getStdouterr(true, ","));
+		assertEquals("Out 0,Out 1,Out 3", compact.getStdout(false, ","));
+		assertEquals("Err 0,Err 1,Err 3", compact.getStderr(false, ","));
+	}
 }
@@ -0,0 +1,95 @@
+/*
+ * This file is part of processlauncher.
+ *
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation; either version 3 of the License, or
+ * any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU Lesser General Public License for more details.
+ *
+ * Copyright (C) hdsdi3g for hd3g.tv 2019
+ *
+ */
+package tv.hd3g.processlauncher;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.PrintStream;
+import java.time.Duration;
+import java.util.function.Function;
+
+import tv.hd3g.processlauncher.cmdline.CommandLine;
+import tv.hd3g.processlauncher.cmdline.ExecutableFinder;
+import tv.hd3g.processlauncher.cmdline.Parameters;
+import tv.hd3g.processlauncher.demo.DemoExecFastOutput;
+
+/**
+ * Not a test. Lines/sec of CapturedStdOutErrToPrintStream on a fast-emitting process, to a file, compared with the
+ * previous implementation (4 prints and a flush by line, prefix computed by line).
+ * Run with: java -cp target/classes:target/test-classes tv.hd3g.processlauncher.CapturedStdOutErrToPrintStreamBenchmark
+ */
+public class CapturedStdOutErrToPrintStreamBenchmark {// NOSONAR
+
+	private static final int LINES = 1_000_000;
+
+	/**
+	 * The previous onText implementation.
+	 */
+	private static class LegacyPrintStream extends CapturedStdOutErrText {
+		private final PrintStream out;
+
+		LegacyPrintStream(final PrintStream out) {
+			this.out = out;
+		}
+
+		@Override
+		void onText(final LineEntry lineEntry) {
+			final var source = lineEntry.getSource();
+			out.print(source.getExecNameWithoutExt());
+			out.print(source.getPID().map(pid -> "#" + pid).orElse(""));
+			out.print(CapturedStdOutErrToPrintStream.STDOUT_SEPARATOR);
+			out.println(lineEntry.getLine());
+			out.flush();
+		}
+	}
+
+	public static void main(final String[] args) throws IOException {
+		final var executableFinder = new ExecutableFinder();
+		final var outFile = File.createTempFile("printstream-bench", ".txt");
+		outFile.deleteOnExit();
+
+		for (var round = 0; round < 2; round++) {
+			run("Legacy, by line", executableFinder, outFile, LegacyPrintStream::new);
+			run("By line", executableFinder, outFile, out -> new CapturedStdOutErrToPrintStream(out, out));
+			run("Batch 256/5ms", executableFinder, outFile, out -> new CapturedStdOutErrToPrintStream(out, out,
+			        256, Duration.ofMillis(5)));
+		}
+	}
+
+	private static void run(final String name,
+	                        final ExecutableFinder executableFinder,
+	                        final File outFile,
+	                        final Function<PrintStream, CapturedStdOutErrText> observerMaker) throws IOException {
+		try (var out = new PrintStream(new FileOutputStream(outFile))) {
+			final var parameters = Parameters.of("-cp", System.getProperty("java.class.path"),
+			        DemoExecFastOutput.class.getName(), String.valueOf(LINES));
+			final var builder = new ProcesslauncherBuilder(new CommandLine("java", parameters, executableFinder));
+			final var observer = observerMaker.apply(out);
+			builder.getSetCaptureStandardOutputAsOutputText(CapturedStreams.ONLY_STDOUT).addObserver(observer);
+
+			final var start = System.nanoTime();
+			builder.start().waitForEnd();
+			observer.waitForClosedStreams();
+			final var duration = System.nanoTime() - start;
+
+			System.out.println(name + ": " + LINES * 1_000_000_000L / duration + " lines/sec, "// NOSONAR
+			                   + outFile.length() / 1024 / 1024 + " MB written");
+		}
+	}
+
+}
@@ -21,6 +21,8 @@ import static org.junit.jupiter.api.Assertions.assertTrue;
 
 import java.io.ByteArrayOutputStream;
 import java.io.PrintStream;
+import java.time.Duration;
+import java.util.List;
 import java.util.Optional;
 import java.util.Random;
 import java.util.function.Predicate;
@@ -80,6 +82,73 @@ class CapturedStdOutErrToPrintStreamTest {
 		assertEquals(0, errStreamContent.size());
 	}
 
+	@Test
+	void testOnText() {
+		Mockito.when(source.getExecNameWithoutExt()).thenReturn(execName);
+		capture.onText(new LineEntry(System.currentTimeMillis(), "out", false, source));
+		capture.onText(new LineEntry(System.currentTimeMillis(), "err", true, source));
+		final var lineSep = System.lineSeparator();
+		assertEquals(execName + "#" + pid + CapturedStdOutErrToPrintStream.STDOUT_SEPARATOR + "out" + lineSep,
+		        outStreamContent.toString());
+		assertEquals(execName + "#" + pid + CapturedStdOutErrToPrintStream.STDERR_SEPARATOR + "err" + lineSep,
+		        errStreamContent.toString());
+
+		Mockito.verify(source, Mockito.times(1)).getPID();
+		Mockito.verify(source, Mockito.times(1)).getExecNameWithoutExt();
+	}
+
+	@Test
+	void testOnTextBatch() {
+		Mockito.when(source.getExecNameWithoutExt()).thenReturn(execName);
+		final var outStream = new CountingPrintStream(outStreamContent);
+		final var errStream = new CountingPrintStream(errStreamContent);
+		capture = new CapturedStdOutErrToPrintStream(outStream, errStream, 10, Duration.ofMillis(10));
+		assertEquals(10, capture.getMaxBatchSize());
+
+		capture.onTextBatch(List.of(
+		        new LineEntry(System.currentTimeMillis(), "out1", false, source),
+		        new LineEntry(System.currentTimeMillis(), "err1", true, source),
+		        new LineEntry(System.currentTimeMillis(), "out2", false, source)));
+
+		final var prefix = execName + "#" + pid;
+		final var lineSep = System.lineSeparator();
+		assertEquals(prefix + CapturedStdOutErrToPrintStream.STDOUT_SEPARATOR + "out1" + lineSep
+		             + prefix + CapturedStdOutErrToPrintStream.STDOUT_SEPARATOR + "out2" + lineSep,
+		        outStreamContent.toString());
+		assertEquals(prefix + CapturedStdOutErrToPrintStream.STDERR_SEPARATOR + "err1" + lineSep,
+		        errStreamContent.toString());
+
+		assertEquals(1, outStream.prints);
+		assertEquals(1, outStream.flushes);
+		assertEquals(1, errStream.prints);
+		assertEquals(1, errStream.flushes);
+		Mockito.verify(source, Mockito.times(1)).getPID();
+	}
+
+	/**
+	 * Count print and flush calls, and really write to the backing stream.
+	 */
+	private static class CountingPrintStream extends PrintStream {
+		int prints;
+		int flushes;
+
+		CountingPrintStream(final ByteArrayOutputStream out) {
+			super(out);
+		}
+
+		@Override
+		public void print(final Object obj) {
+			prints++;
+			super.print(obj);
+		}
+
+		@Override
+		public void flush() {
+			flushes++;
+			super.flush();
+		}
+	}
+
 	@Test
 	void testOnProcessCloseStreamExecOk() {
 		Mockito.when(source.isCorrectlyDone()).thenReturn(true);
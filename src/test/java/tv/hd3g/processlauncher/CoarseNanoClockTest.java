@@ -0,0 +1,36 @@
+/*
+ * This file is part of processlauncher.
+ *
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation; either version 3 of the License, or
+ * any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU Lesser General Public License for more details.
+ *
+ * Copyright (C) hdsdi3g for hd3g.tv 2019
+ *
+ */
+package tv.hd3g.processlauncher;
+
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.concurrent.TimeUnit;
+
+import org.junit.jupiter.api.Test;
+
+class CoarseNanoClockTest {
+
+	@Test
+	void testNanoTime() throws InterruptedException {
+		final var before = CoarseNanoClock.nanoTime();
+		Thread.sleep(20);
+		final var after = CoarseNanoClock.nanoTime();
+		assertTrue(after - before >= TimeUnit.MILLISECONDS.toNanos(10));
+		assertTrue(System.nanoTime() - after < TimeUnit.SECONDS.toNanos(1));
+	}
+
+}
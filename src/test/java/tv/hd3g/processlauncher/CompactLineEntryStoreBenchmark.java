@@ -0,0 +1,60 @@
+/*
+ * This file is part of processlauncher.
+ *
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation; either version 3 of the License, or
+ * any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU Lesser General Public License for more details.
+ *
+ * Copyright (C) hdsdi3g for hd3g.tv 2019
+ *
+ */
+package tv.hd3g.processlauncher;
+
+import java.util.function.Supplier;
+import java.util.stream.IntStream;
+
+/**
+ * Not a test: compare heap used by LineEntryRingBuffer (a LineEntry and a String by line), CompactLineEntryStore and
+ * DeflatedLineEntryStore.
+ * Run with a large heap, like -Xmx2g.
+ */
+public class CompactLineEntryStoreBenchmark {
+
+	private static final int LINES = 2_000_000;
+
+	public static void main(final String[] args) {
+		System.out.println("Lines: " + LINES);// NOSONAR
+		measure("LineEntryRingBuffer", () -> new LineEntryRingBuffer(LineRetentionLimits.UNLIMITED));
+		measure("CompactLineEntryStore", CompactLineEntryStore::new);
+		measure("DeflatedLineEntryStore", DeflatedLineEntryStore::new);
+	}
+
+	private static long usedHeap() {
+		final var runtime = Runtime.getRuntime();
+		for (var pos = 0; pos < 5; pos++) {
+			System.gc();// NOSONAR
+		}
+		return runtime.totalMemory() - runtime.freeMemory();
+	}
+
+	private static void measure(final String name, final Supplier<LineEntryStore> storeSupplier) {
+		final var before = usedHeap();
+		final var store = storeSupplier.get();
+		final var start = System.nanoTime();
+		IntStream.range(0, LINES).forEach(i -> store.add(new LineEntry(System.currentTimeMillis(),
+		        "frame=" + i + " fps=25 q=28.0 size=" + i * 3 + "kB time=00:00:00.00 bitrate=1024.0kbits/s",
+		        false, null), i));
+		final var duration = System.nanoTime() - start;
+		final var used = usedHeap() - before;
+		System.out.println(name + ": " + used / 1024 / 1024 + " MB, "// NOSONAR
+		                   + used / LINES + " bytes/line, added in " + duration / 1_000_000 + " ms"
+		                   + " (" + store.size() + " lines)");
+	}
+
+}
@@ -0,0 +1,118 @@
+/*
+ * This file is part of processlauncher.
+ *
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation; either version 3 of the License, or
+ * any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU Lesser General Public License for more details.
+ *
+ * Copyright (C) hdsdi3g for hd3g.tv 2019
+ *
+ */
+package tv.hd3g.processlauncher;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.List;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+import org.junit.jupiter.api.Test;
+import org.mockito.Mockito;
+
+class CompactLineEntryStoreTest {
+
+	@Test
+	void testAddAndRead() {
+		final var store = new CompactLineEntryStore();
+		final var lines = List.of("ASCII line", "", "Latin-1 éàç", "UTF-8 ✅❌ 日本", "end");
+		for (var pos = 0; pos < lines.size(); pos++) {
+			store.add(new LineEntry(pos * 10L, lines.get(pos), pos % 2 == 0, null), pos * 2L);
+		}
+
+		assertEquals(lines, store.stream().map(LineEntry::getLine).collect(Collectors.toList()));
+		assertEquals(List.of(0L, 10L, 20L, 30L, 40L), store.stream().map(LineEntry::getDate)
+		        .collect(Collectors.toList()));
+		assertEquals(List.of(true, false, true, false, true), store.stream().map(LineEntry::isStdErr)
+		        .collect(Collectors.toList()));
+		assertEquals(List.of(0L, 2L, 4L, 6L, 8L), store.sequencedStream().map(s -> s.sequence)
+		        .collect(Collectors.toList()));
+
+		assertEquals(5, store.size());
+		assertEquals(1, store.getEmptyLines());
+		assertEquals(lines.stream().mapToLong(String::length).sum(), store.getBytes());
+		assertEquals(0, store.getDroppedLines());
+	}
+
+	@Test
+	void testArenas() {
+		final var store = new CompactLineEntryStore();
+		final var bigLine = "x".repeat(CompactLineEntryStore.ARENA_SIZE * 2);
+		final var lines = IntStream.range(0, 100_000).mapToObj(i -> "Line " + i).collect(Collectors.toList());
+		lines.add(50_000, bigLine);
+		lines.forEach(line -> store.add(new LineEntry(0, line, false, null), 0));
+
+		assertEquals(lines, store.stream().map(LineEntry::getLine).collect(Collectors.toList()));
+		assertTrue(store.getArenasBytes() >= bigLine.length() + CompactLineEntryStore.ARENA_SIZE);
+	}
+
+	@Test
+	void testSmallArenas() {
+		final var store = new CompactLineEntryStore();
+		store.add(new LineEntry(0, "One line", false, null), 0);
+		assertEquals(CompactLineEntryStore.MIN_ARENA_SIZE, store.getArenasBytes());
+
+		final var line = "x".repeat(1000);
+		IntStream.range(0, 11).forEach(i -> store.add(new LineEntry(0, line, false, null), i));
+		assertEquals(CompactLineEntryStore.MIN_ARENA_SIZE * 3L, store.getArenasBytes());
+	}
+
+	@Test
+	void testSources() {
+		final var source0 = Mockito.mock(ProcesslauncherLifecycle.class);
+		final var source1 = Mockito.mock(ProcesslauncherLifecycle.class);
+		final var store = new CompactLineEntryStore();
+		store.add(new LineEntry(0, "0", false, source0), 0);
+		store.add(new LineEntry(0, "1", false, source0), 1);
+		final var snapshot = store.stream();
+		store.add(new LineEntry(0, "2", false, source1), 2);
+		IntStream.range(3, 40).forEach(i -> store.add(new LineEntry(0, "" + i, false, source0), i));
+
+		assertEquals(List.of(source0, source0), snapshot.map(LineEntry::getSource).collect(Collectors.toList()));
+		final var sources = store.stream().map(LineEntry::getSource).collect(Collectors.toList());
+		assertEquals(40, sources.size());
+		assertEquals(source1, sources.get(2));
+		assertEquals(39, sources.stream().filter(source0::equals).count());
+	}
+
+	@Test
+	void testMonotonic() {
+		final var source = Mockito.mock(ProcesslauncherLifecycle.class);
+		Mockito.when(source.getLocalStartDate()).thenReturn(10_000L);
+		final var store = new CompactLineEntryStore();
+		store.add(new MonotonicLineEntry(1_234_567_890L, "monotonic", false, source), 0);
+
+		final var lineEntry = store.stream().findFirst().get();
+		assertEquals("monotonic", lineEntry.getLine());
+		assertEquals(1_234_567_890L, lineEntry.getTimeAgoNanos());
+		assertEquals(1234L, lineEntry.getTimeAgo());
+		assertEquals(11_234L, lineEntry.getDate());
+	}
+
+	@Test
+	void testStreamSnapshot() {
+		final var store = new CompactLineEntryStore();
+		IntStream.range(0, 200).forEach(i -> store.add(new LineEntry(0, "Line " + i, false, null), i));
+		final var stream = store.stream();
+		IntStream.range(200, 1000).forEach(i -> store.add(new LineEntry(0, "Line " + i, false, null), i));
+		assertEquals(200, stream.count());
+		assertEquals(1000, store.stream().count());
+	}
+
+}
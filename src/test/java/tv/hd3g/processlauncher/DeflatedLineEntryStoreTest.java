@@ -0,0 +1,117 @@
+/*
+ * This file is part of processlauncher.
+ *
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation; either version 3 of the License, or
+ * any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU Lesser General Public License for more details.
+ *
+ * Copyright (C) hdsdi3g for hd3g.tv 2019
+ *
+ */
+package tv.hd3g.processlauncher;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.List;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+import org.junit.jupiter.api.Test;
+
+class DeflatedLineEntryStoreTest {
+
+	@Test
+	void testInvalidParams() {
+		assertThrows(IllegalArgumentException.class, () -> new DeflatedLineEntryStore(8));
+	}
+
+	@Test
+	void testAddAndRead() {
+		final var store = new DeflatedLineEntryStore(64);
+		final var lines = List.of("ASCII line", "", "Latin-1 éàç", "UTF-8 ✅❌ 日本", "end");
+		for (var pos = 0; pos < lines.size(); pos++) {
+			store.add(new LineEntry(pos * 10L, lines.get(pos), pos % 2 == 0, null), pos * 2L);
+		}
+		assertTrue(store.getCompressedBlocksCount() > 0);
+
+		assertEquals(lines, store.stream().map(LineEntry::getLine).collect(Collectors.toList()));
+		assertEquals(List.of(0L, 10L, 20L, 30L, 40L), store.stream().map(LineEntry::getDate)
+		        .collect(Collectors.toList()));
+		assertEquals(List.of(true, false, true, false, true), store.stream().map(LineEntry::isStdErr)
+		        .collect(Collectors.toList()));
+		assertEquals(List.of(0L, 2L, 4L, 6L, 8L), store.sequencedStream().map(s -> s.sequence)
+		        .collect(Collectors.toList()));
+
+		assertEquals(5, store.size());
+		assertEquals(1, store.getEmptyLines());
+		assertEquals(lines.stream().mapToLong(String::length).sum(), store.getBytes());
+		assertEquals(0, store.getDroppedLines());
+	}
+
+	@Test
+	void testBlocks() {
+		final var store = new DeflatedLineEntryStore();
+		final var bigLine = "x".repeat(DeflatedLineEntryStore.DEFAULT_BLOCK_SIZE * 2);
+		final var lines = IntStream.range(0, 100_000)
+		        .mapToObj(i -> "frame=" + i + " fps=25 q=28.0 size=" + i * 3 + "kB time=00:00:00.00 speed=1x")
+		        .collect(Collectors.toList());
+		lines.add(50_000, bigLine);
+		lines.forEach(line -> store.add(new LineEntry(0, line, false, null), 0));
+
+		assertEquals(lines, store.stream().map(LineEntry::getLine).collect(Collectors.toList()));
+		assertTrue(store.getCompressedBlocksCount() > 10);
+		assertTrue(store.getCompressedBytes() * 5 < store.getBytes());
+	}
+
+	@Test
+	void testStreamSnapshot() {
+		final var store = new DeflatedLineEntryStore(1024);
+		IntStream.range(0, 200).forEach(i -> store.add(new LineEntry(0, "Line " + i, false, null), i));
+		final var stream = store.stream();
+		IntStream.range(200, 1000).forEach(i -> store.add(new LineEntry(0, "Line " + i, false, null), i));
+		assertEquals(200, stream.count());
+		assertEquals(1000, store.stream().count());
+	}
+
+	@Test
+	void testLazyInflate() {
+		final var store = new DeflatedLineEntryStore(1024);
+		IntStream.range(0, 10_000).forEach(i -> store.add(new LineEntry(0, "Line " + i, false, null), i));
+		assertEquals("Line 0", store.stream().findFirst().get().getLine());
+		assertEquals("Line 9999", store.stream().skip(9999).findFirst().get().getLine());
+	}
+
+	@Test
+	void testEmpty() {
+		final var store = new DeflatedLineEntryStore();
+		assertEquals(0, store.stream().count());
+		assertEquals(0, store.size());
+		store.close();
+		assertEquals(0, store.getCompressedBlocksCount());
+	}
+
+	@Test
+	void testCloseAndAdd() {
+		final var store = new DeflatedLineEntryStore(64);
+		IntStream.range(0, 100).forEach(i -> store.add(new LineEntry(0, "Line " + i, false, null), i));
+		final var blocksCount = store.getCompressedBlocksCount();
+		assertTrue(blocksCount > 1);
+
+		store.close();
+		assertEquals(100, store.stream().count());
+		IntStream.range(100, 200).forEach(i -> store.add(new LineEntry(0, "Line " + i, false, null), i));
+		assertTrue(store.getCompressedBlocksCount() > blocksCount);
+		assertEquals(IntStream.range(0, 200).mapToObj(i -> "Line " + i).collect(Collectors.toList()),
+		        store.stream().map(LineEntry::getLine).collect(Collectors.toList()));
+		store.close();
+	}
+
+}
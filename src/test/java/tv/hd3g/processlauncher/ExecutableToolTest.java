@@ -21,6 +21,7 @@ import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertNotNull;
 import static org.junit.jupiter.api.Assertions.assertThrows;
 import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.anyString;
 import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.Mockito.atLeastOnce;
 import static org.mockito.Mockito.verify;
@@ -131,7 +132,7 @@ class ExecutableToolTest {
 		result.waitForEnd();
 
 		final var msgs = ArgumentCaptor.forClass(Object.class);
-		verify(log, atLeastOnce()).log(eq(ALL), msgs.capture());
+		verify(log, atLeastOnce()).log(eq(ALL), anyString(), eq(execName), msgs.capture());
 		assertTrue(lines.size() > 0);
 		assertEquals(msgs.getAllValues().size(), lines.size());
 
@@ -0,0 +1,129 @@
+/*
+ * This file is part of processlauncher.
+ *
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation; either version 3 of the License, or
+ * any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU Lesser General Public License for more details.
+ *
+ * Copyright (C) hdsdi3g for hd3g.tv 2019
+ *
+ */
+package tv.hd3g.processlauncher;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+
+class KeyValueTokenizerTest {
+
+	private static List<String> tokenize(final String line) {
+		final var result = new ArrayList<String>();
+		final var count = KeyValueTokenizer.tokenize(line, (l, keyStart, keyEnd, valueStart, valueEnd) -> result.add(
+		        l.substring(keyStart, keyEnd) + "|" + l.substring(valueStart, valueEnd)));
+		assertEquals(result.size(), count);
+		return result;
+	}
+
+	@Test
+	void testProgressLines() {
+		assertEquals(List.of("frame|123"), tokenize("frame=123"));
+		assertEquals(List.of("out_time|00:00:05.120000"), tokenize("out_time=00:00:05.120000"));
+		assertEquals(List.of("progress|end"), tokenize("progress=end"));
+		assertEquals(List.of("bitrate|N/A"), tokenize("bitrate=N/A"));
+		assertEquals(List.of("empty|"), tokenize("empty="));
+	}
+
+	@Test
+	void testStatsLine() {
+		assertEquals(List.of("frame|100", "fps|25", "q|28.0", "size|256kB", "time|00:00:04.00",
+		        "bitrate|524.3kbits/s", "speed|1.01x"),
+		        tokenize("frame=  100 fps= 25 q=28.0 size=     256kB time=00:00:04.00 bitrate= 524.3kbits/s speed=1.01x"));
+	}
+
+	@Test
+	void testColonLine() {
+		assertEquals(List.of("Duration|00:01:00.00", "start|0.000000", "bitrate|1205 kb/s"),
+		        tokenize("  Duration: 00:01:00.00, start: 0.000000, bitrate: 1205 kb/s"));
+		assertEquals(List.of("Progress|45%"), tokenize("Progress: 45%"));
+		assertEquals(List.of("end|"), tokenize("end:"));
+	}
+
+	@Test
+	void testNotTokens() {
+		assertEquals(List.of(), tokenize(""));
+		assertEquals(List.of(), tokenize("   "));
+		assertEquals(List.of(), tokenize("Some text, without values"));
+		assertEquals(List.of("Video|h264"), tokenize("    Stream #0:0(und): Video: h264"));
+		assertEquals(List.of(), tokenize("http://host:80/path =value"));
+		assertEquals(List.of("'file.mov'|"), tokenize("Input #0, mov,mp4, from 'file.mov':"));
+	}
+
+	@Test
+	void testKeyIs() {
+		assertTrue(KeyValueTokenizer.keyIs("xframe=1", 1, 6, "frame"));
+		assertEquals(false, KeyValueTokenizer.keyIs("xframe=1", 1, 5, "frame"));
+		assertEquals(false, KeyValueTokenizer.keyIs("xframes=1", 1, 7, "frame"));
+	}
+
+	private static double parseDecimal(final String value) {
+		return KeyValueTokenizer.parseDecimal(value, 0, value.length());
+	}
+
+	@Test
+	void testParseDecimal() {
+		assertEquals(25d, parseDecimal("25"));
+		assertEquals(25.5d, parseDecimal("25.50"));
+		assertEquals(-1.5d, parseDecimal("-1.5"));
+		assertEquals(1.02d, parseDecimal("1.02x"), 0.000001d);
+		assertEquals(45d, parseDecimal("45%"));
+		assertEquals(0.5d, parseDecimal(".5"));
+		assertTrue(Double.isNaN(parseDecimal("N/A")));
+		assertTrue(Double.isNaN(parseDecimal("")));
+		assertTrue(Double.isNaN(parseDecimal("-")));
+		assertTrue(Double.isNaN(parseDecimal(".")));
+		assertTrue(Double.isNaN(parseDecimal("1.2.3")));
+		assertTrue(Double.isNaN(parseDecimal("256kB")));
+	}
+
+	private static long parsePositiveLong(final String value) {
+		return KeyValueTokenizer.parsePositiveLong(value, 0, value.length());
+	}
+
+	@Test
+	void testParsePositiveLong() {
+		assertEquals(0, parsePositiveLong("0"));
+		assertEquals(5120000, parsePositiveLong("5120000"));
+		assertEquals(-1, parsePositiveLong(""));
+		assertEquals(-1, parsePositiveLong("-1"));
+		assertEquals(-1, parsePositiveLong("N/A"));
+		assertEquals(-1, parsePositiveLong("1234567890123456789"));
+	}
+
+	private static long parseTimeNanos(final String value) {
+		return KeyValueTokenizer.parseTimeNanos(value, 0, value.length());
+	}
+
+	@Test
+	void testParseTimeNanos() {
+		assertEquals(5_120_000_000L, parseTimeNanos("00:00:05.120000"));
+		assertEquals(3_723_500_000_000L, parseTimeNanos("01:02:03.50"));
+		assertEquals(360_000_000_000_000L, parseTimeNanos("100:00:00"));
+		assertEquals(-500_000_000L, parseTimeNanos("-00:00:00.50"));
+		assertEquals(Long.MIN_VALUE, parseTimeNanos("N/A"));
+		assertEquals(Long.MIN_VALUE, parseTimeNanos("00:05"));
+		assertEquals(Long.MIN_VALUE, parseTimeNanos("00:00:05x"));
+		assertEquals(Long.MIN_VALUE, parseTimeNanos("aa:00:05"));
+		assertEquals(Long.MIN_VALUE, parseTimeNanos(""));
+	}
+
+}
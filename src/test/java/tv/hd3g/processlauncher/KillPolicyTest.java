@@ -0,0 +1,118 @@
+/*
+ * This file is part of processlauncher.
+ *
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation; either version 3 of the License, or
+ * any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU Lesser General Public License for more details.
+ *
+ * Copyright (C) hdsdi3g for hd3g.tv 2019
+ *
+ */
+package tv.hd3g.processlauncher;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import org.hamcrest.MatcherAssert;
+import org.hamcrest.Matchers;
+import org.junit.jupiter.api.Test;
+
+import tv.hd3g.processlauncher.cmdline.CommandLine;
+import tv.hd3g.processlauncher.cmdline.ExecutableFinder;
+import tv.hd3g.processlauncher.cmdline.Parameters;
+import tv.hd3g.processlauncher.demo.DemoExecEmpty;
+import tv.hd3g.processlauncher.demo.DemoExecLongSleep;
+import tv.hd3g.processlauncher.demo.DemoExecSlowShutdown;
+
+class KillPolicyTest {
+
+	private final ExecutableFinder executableFinder;
+	private final KillPolicy killPolicy;
+
+	KillPolicyTest() throws IOException {
+		executableFinder = new ExecutableFinder();
+		killPolicy = new KillPolicy(Duration.ofMillis(300), Duration.ofSeconds(10));
+	}
+
+	private ProcesslauncherBuilder prepareBuilder(final Class<?> execClass) throws IOException {
+		final var parameters = Parameters.of("-cp", System.getProperty("java.class.path"), execClass.getName());
+		return new ProcesslauncherBuilder(new CommandLine("java", parameters, executableFinder));
+	}
+
+	@Test
+	void testPolicy() {
+		assertEquals(Duration.ofMillis(300), killPolicy.getGracePeriod());
+		assertEquals(Duration.ofSeconds(10), killPolicy.getForcedKillTimeout());
+		assertTrue(KillPolicy.DEFAULT.getGracePeriod().isZero());
+		assertEquals(Duration.ofSeconds(5), KillPolicy.GRACEFUL.getGracePeriod());
+		assertTrue(new KillPolicy(Duration.ZERO, Duration.ZERO).getGracePeriod().isZero());
+		assertThrows(IllegalArgumentException.class, () -> new KillPolicy(Duration.ofMillis(-1), Duration.ZERO));
+		assertThrows(IllegalArgumentException.class, () -> new KillPolicy(Duration.ZERO, Duration.ofMillis(-1)));
+		assertThrows(NullPointerException.class, () -> new KillPolicy(null, Duration.ZERO));
+	}
+
+	@Test
+	void testReport() {
+		final var report = new KillReport(Map.of(1L, KillOutcome.CANT_KILL));
+		assertEquals(KillOutcome.CANT_KILL, report.getOutcome(1L).get());
+		assertTrue(report.getOutcome(2L).isEmpty());
+		assertEquals(List.of(1L), report.getCantKillPIDs());
+		assertFalse(report.isDone());
+		assertTrue(new KillReport(Map.of(1L, KillOutcome.FORCED)).isDone());
+	}
+
+	@Test
+	void testKillTreeAlreadyEnded() throws Exception {
+		final var p = prepareBuilder(DemoExecEmpty.class).start().waitForEnd();
+		final var report = killPolicy.killTree(p.getProcess().toHandle()).get(10, TimeUnit.SECONDS);
+		assertEquals(Map.of(p.getProcess().pid(), KillOutcome.ALREADY_ENDED), report.getOutcomes());
+	}
+
+	@Test
+	void testKillTreeTerminated() throws Exception {
+		final var p = prepareBuilder(DemoExecLongSleep.class).start();
+		final var report = killPolicy.killTree(p.getProcess().toHandle()).get(10, TimeUnit.SECONDS);
+		assertEquals(Map.of(p.getProcess().pid(), KillOutcome.TERMINATED), report.getOutcomes());
+		assertFalse(p.isRunning());
+	}
+
+	@Test
+	void testKillTreeDefault() throws Exception {
+		final var p = prepareBuilder(DemoExecLongSleep.class).start();
+		final var report = KillPolicy.DEFAULT.killTree(p.getProcess().toHandle());
+		assertTrue(report.isDone());
+		assertEquals(Map.of(p.getProcess().pid(), KillOutcome.TERMINATED), report.get().getOutcomes());
+		p.waitForEnd();
+		assertFalse(p.isRunning());
+	}
+
+	@Test
+	void testKillTreeForced() throws Exception {
+		final var pb = prepareBuilder(DemoExecSlowShutdown.class);
+		pb.getSetCaptureStandardOutputAsOutputText(CapturedStreams.ONLY_STDOUT).addPublisher();
+		final var p = pb.start();
+		assertEquals(DemoExecSlowShutdown.READY, p.getLineIterator().next().getLine());
+
+		final var startTime = System.currentTimeMillis();
+		final var report = killPolicy.killTree(p.getProcess().toHandle());
+		assertFalse(report.isDone());
+		assertEquals(Map.of(p.getProcess().pid(), KillOutcome.FORCED), report.get(10, TimeUnit.SECONDS).getOutcomes());
+		MatcherAssert.assertThat(System.currentTimeMillis() - startTime, Matchers.greaterThanOrEqualTo(300L));
+		assertFalse(p.isRunning());
+	}
+
+}
@@ -0,0 +1,155 @@
+/*
+ * This file is part of processlauncher.
+ *
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation; either version 3 of the License, or
+ * any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU Lesser General Public License for more details.
+ *
+ * Copyright (C) hdsdi3g for hd3g.tv 2019
+ *
+ */
+package tv.hd3g.processlauncher;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.IOException;
+import java.util.NoSuchElementException;
+import java.util.concurrent.Flow.Subscription;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.stream.Collectors;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+class LineEntryIteratorTest {
+
+	private CapturedStdOutErrTextPublisher publisher;
+
+	@BeforeEach
+	void init() {
+		publisher = new CapturedStdOutErrTextPublisher(1);
+	}
+
+	private Thread pushInThread(final int count, final Throwable error) {
+		final var t = new Thread(() -> {
+			for (var pos = 0; pos < count; pos++) {
+				publisher.onText(new LineEntry(0, String.valueOf(pos), false, null));
+			}
+			publisher.onStreamClosed(false, error);
+		});
+		t.setDaemon(true);
+		t.start();
+		return t;
+	}
+
+	@Test
+	void testInvalidParams() {
+		assertThrows(IllegalArgumentException.class, () -> publisher.iterator(0));
+	}
+
+	@Test
+	void testIterate() throws InterruptedException {
+		final var iterator = publisher.iterator(4);
+		final var pusher = pushInThread(1000, null);
+		for (var pos = 0; pos < 1000; pos++) {
+			assertTrue(iterator.hasNext());
+			assertEquals(String.valueOf(pos), iterator.next().getLine());
+		}
+		assertFalse(iterator.hasNext());
+		assertFalse(iterator.hasNext());
+		assertThrows(NoSuchElementException.class, iterator::next);
+		pusher.join(1000);
+		assertFalse(pusher.isAlive());
+	}
+
+	@Test
+	void testBackpressure() throws InterruptedException {
+		final var iterator = publisher.iterator(4);
+		final var pusher = pushInThread(10, null);
+		pusher.join(100);
+		assertTrue(pusher.isAlive());
+		assertEquals("0", iterator.next().getLine());
+		iterator.close();
+		pusher.join(1000);
+		assertFalse(pusher.isAlive());
+		assertFalse(iterator.hasNext());
+	}
+
+	@Test
+	void testError() {
+		final var error = new IOException("Can't read");
+		final var iterator = publisher.iterator();
+		pushInThread(1, error);
+		assertTrue(iterator.hasNext());
+		iterator.next();
+		final var e = assertThrows(ProcessLifeCycleException.class, iterator::hasNext);
+		assertSame(error, e.getCause());
+		assertFalse(iterator.hasNext());
+	}
+
+	@Test
+	void testCancelAtEnd() {
+		final var cancelled = new AtomicBoolean(false);
+		final var iterator = new LineEntryIterator(subscriber -> {
+			subscriber.onSubscribe(new Subscription() {
+
+				@Override
+				public void request(final long n) {
+					// Nothing to publish
+				}
+
+				@Override
+				public void cancel() {
+					cancelled.set(true);
+				}
+			});
+			subscriber.onComplete();
+		}, 4);
+		assertFalse(cancelled.get());
+		assertFalse(iterator.hasNext());
+		assertTrue(cancelled.get());
+	}
+
+	@Test
+	void testInterrupted() {
+		final var iterator = publisher.iterator();
+		Thread.currentThread().interrupt();
+		try {
+			final var e = assertThrows(ProcessLifeCycleException.class, iterator::hasNext);
+			assertTrue(e.getCause() instanceof InterruptedException);
+			assertTrue(Thread.currentThread().isInterrupted());
+			assertFalse(iterator.hasNext());
+		} finally {
+			Thread.interrupted();
+		}
+	}
+
+	@Test
+	void testStream() {
+		pushInThread(100, null);
+		try (var stream = publisher.stream()) {
+			assertEquals(4950, stream.mapToInt(le -> Integer.parseInt(le.getLine())).sum());
+		}
+	}
+
+	@Test
+	void testStreamClose() throws InterruptedException {
+		final var pusher = pushInThread(10_000, null);
+		try (var stream = publisher.stream()) {
+			assertEquals("0 1 2", stream.limit(3).map(LineEntry::getLine).collect(Collectors.joining(" ")));
+		}
+		pusher.join(1000);
+		assertFalse(pusher.isAlive());
+	}
+
+}
@@ -0,0 +1,127 @@
+/*
+ * This file is part of processlauncher.
+ *
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation; either version 3 of the License, or
+ * any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU Lesser General Public License for more details.
+ *
+ * Copyright (C) hdsdi3g for hd3g.tv 2019
+ *
+ */
+package tv.hd3g.processlauncher;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.util.List;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+import org.junit.jupiter.api.Test;
+
+class LineEntryRingBufferTest {
+
+	private static List<String> addAll(final LineEntryRingBuffer buffer, final int count) {
+		IntStream.range(0, count).forEach(i -> buffer.add(new LineEntry(i, String.valueOf(i), false, null), i));
+		return buffer.toList().stream().map(LineEntry::getLine).collect(Collectors.toUnmodifiableList());
+	}
+
+	private static List<String> range(final int from, final int to) {
+		return IntStream.range(from, to).mapToObj(String::valueOf).collect(Collectors.toList());
+	}
+
+	@Test
+	void testUnlimited() {
+		final var buffer = new LineEntryRingBuffer(LineRetentionLimits.UNLIMITED);
+		assertEquals(range(0, 1000), addAll(buffer, 1000));
+		assertEquals(0, buffer.getDroppedLines());
+		assertEquals(1000, buffer.size());
+	}
+
+	@Test
+	void testKeepFirst() {
+		final var buffer = new LineEntryRingBuffer(LineRetentionLimits.keepFirst(100));
+		assertEquals(range(0, 100), addAll(buffer, 1000));
+		assertEquals(900, buffer.getDroppedLines());
+	}
+
+	@Test
+	void testKeepLast() {
+		final var buffer = new LineEntryRingBuffer(LineRetentionLimits.keepLast(100));
+		assertEquals(range(900, 1000), addAll(buffer, 1000));
+		assertEquals(900, buffer.getDroppedLines());
+		assertEquals(100, buffer.size());
+	}
+
+	@Test
+	void testKeepFirstAndLast() {
+		final var buffer = new LineEntryRingBuffer(LineRetentionLimits.keepFirstAndLast(10, 100));
+		final var expected = range(0, 10);
+		expected.addAll(range(900, 1000));
+		assertEquals(expected, addAll(buffer, 1000));
+		assertEquals(890, buffer.getDroppedLines());
+	}
+
+	@Test
+	void testKeepFirstAndLast_notFull() {
+		final var buffer = new LineEntryRingBuffer(LineRetentionLimits.keepFirstAndLast(10, 100));
+		assertEquals(range(0, 50), addAll(buffer, 50));
+		assertEquals(0, buffer.getDroppedLines());
+	}
+
+	@Test
+	void testMaxBytes() {
+		final var buffer = new LineEntryRingBuffer(LineRetentionLimits.keepLast(1000).withMaxBytes(30));
+		/**
+		 * 990..999 = 10 lines of 3 chars
+		 */
+		assertEquals(range(990, 1000), addAll(buffer, 1000));
+		assertEquals(30, buffer.getBytes());
+		assertEquals(990, buffer.getDroppedLines());
+	}
+
+	@Test
+	void testMaxBytesFirstAndLast() {
+		final var buffer = new LineEntryRingBuffer(LineRetentionLimits.keepFirstAndLast(1000, 1000).withMaxBytes(20));
+		/**
+		 * 0..9 = 10 chars for the first lines (the half), then 997..999 = 9 chars
+		 */
+		final var expected = range(0, 10);
+		expected.addAll(range(997, 1000));
+		assertEquals(expected, addAll(buffer, 1000));
+		assertEquals(987, buffer.getDroppedLines());
+	}
+
+	@Test
+	void testTooBigLine() {
+		final var buffer = new LineEntryRingBuffer(LineRetentionLimits.keepLast(10).withMaxBytes(2));
+		buffer.add(new LineEntry(0, "123", false, null), 0);
+		assertEquals(0, buffer.size());
+		assertEquals(1, buffer.getDroppedLines());
+	}
+
+	@Test
+	void testCountersAndSequences() {
+		final var buffer = new LineEntryRingBuffer(LineRetentionLimits.keepFirstAndLast(2, 2));
+		buffer.add(new LineEntry(0, "", false, null), 10);
+		buffer.add(new LineEntry(0, "a", false, null), 11);
+		buffer.add(new LineEntry(0, "", false, null), 12);
+		buffer.add(new LineEntry(0, "bc", false, null), 13);
+		assertEquals(2, buffer.getEmptyLines());
+		assertEquals(3, buffer.getBytes());
+		buffer.add(new LineEntry(0, "def", false, null), 14);
+		assertEquals(1, buffer.getEmptyLines());
+		assertEquals(6, buffer.getBytes());
+		assertEquals(4, buffer.size());
+		assertEquals(List.of(10L, 11L, 13L, 14L), buffer.sequencedStream()
+		        .map(s -> s.sequence).collect(Collectors.toList()));
+		assertEquals(List.of("", "a", "bc", "def"), buffer.sequencedStream()
+		        .map(s -> s.lineEntry.getLine()).collect(Collectors.toList()));
+	}
+
+}
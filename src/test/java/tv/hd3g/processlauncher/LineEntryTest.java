@@ -71,6 +71,12 @@ class LineEntryTest {
 		Mockito.verify(source, Mockito.times(1)).getStartDate();
 	}
 
+	@Test
+	void testGetTimeAgoNanos() {
+		assertEquals(10_000_000_000L, lineEntry.getTimeAgoNanos());
+		Mockito.verify(source, Mockito.times(1)).getStartDate();
+	}
+
 	@Test
 	void testGetDate() {
 		assertEquals(date, lineEntry.getDate());
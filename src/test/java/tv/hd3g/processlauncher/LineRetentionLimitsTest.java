@@ -0,0 +1,44 @@
+/*
+ * This file is part of processlauncher.
+ *
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation; either version 3 of the License, or
+ * any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU Lesser General Public License for more details.
+ *
+ * Copyright (C) hdsdi3g for hd3g.tv 2019
+ *
+ */
+package tv.hd3g.processlauncher;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import org.junit.jupiter.api.Test;
+
+class LineRetentionLimitsTest {
+
+	@Test
+	void testInvalid() {
+		assertThrows(IllegalArgumentException.class, () -> LineRetentionLimits.keepFirst(-1));
+		assertThrows(IllegalArgumentException.class, () -> LineRetentionLimits.keepLast(-1));
+		assertThrows(IllegalArgumentException.class, () -> LineRetentionLimits.keepLast(1).withMaxBytes(0));
+	}
+
+	@Test
+	void testGetters() {
+		final var limits = LineRetentionLimits.keepFirstAndLast(1, 2).withMaxBytes(10);
+		assertEquals(1, limits.getFirstLines());
+		assertEquals(2, limits.getLastLines());
+		assertEquals(10, limits.getMaxBytes());
+		assertEquals(5, limits.getFirstLinesMaxBytes());
+		assertEquals(10, LineRetentionLimits.keepFirst(1).withMaxBytes(10).getFirstLinesMaxBytes());
+		assertEquals("first=1, last=2, maxBytes=10", limits.toString());
+	}
+
+}
@@ -0,0 +1,61 @@
+/*
+ * This file is part of processlauncher.
+ *
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation; either version 3 of the License, or
+ * any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU Lesser General Public License for more details.
+ *
+ * Copyright (C) hdsdi3g for hd3g.tv 2019
+ *
+ */
+package tv.hd3g.processlauncher;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoMoreInteractions;
+import static org.mockito.Mockito.when;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+
+class MonotonicLineEntryTest {
+
+	@Mock
+	ProcesslauncherLifecycle source;
+
+	MonotonicLineEntry lineEntry;
+
+	@BeforeEach
+	void init() throws Exception {
+		MockitoAnnotations.openMocks(this).close();
+		lineEntry = new MonotonicLineEntry(1_500_000_000L, "line", false, source);
+	}
+
+	@AfterEach
+	void end() {
+		verifyNoMoreInteractions(source);
+	}
+
+	@Test
+	void testGetTimeAgo() {
+		assertEquals(1500L, lineEntry.getTimeAgo());
+		assertEquals(1_500_000_000L, lineEntry.getTimeAgoNanos());
+	}
+
+	@Test
+	void testGetDate() {
+		when(source.getLocalStartDate()).thenReturn(10_000L);
+		assertEquals(11_500L, lineEntry.getDate());
+		verify(source).getLocalStartDate();
+	}
+
+}
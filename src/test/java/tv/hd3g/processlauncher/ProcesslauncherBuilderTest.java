@@ -24,8 +24,12 @@ import static org.junit.jupiter.api.Assertions.assertTrue;
 import java.io.File;
 import java.io.FileNotFoundException;
 import java.io.IOException;
+import java.lang.ProcessBuilder.Redirect;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
 import java.util.Arrays;
 import java.util.HashMap;
+import java.util.concurrent.Executor;
 import java.util.stream.Collectors;
 
 import org.junit.jupiter.api.Assertions;
@@ -171,6 +175,78 @@ class ProcesslauncherBuilderTest {
 		assertEquals(pb.getFullCommandLine(), processb.command().stream().collect(Collectors.joining(" ")));
 	}
 
+	@Test
+	void testRedirectToFile() {
+		assertTrue(pb.getRedirectStdOut().isEmpty());
+		assertTrue(pb.getRedirectStdErr().isEmpty());
+		assertEquals(Redirect.PIPE, pb.makeProcessBuilder().redirectOutput());
+
+		final var outFile = new File("out.txt");
+		final var errFile = new File("err.txt");
+		pb.setRedirectStdOutToFile(outFile, false);
+		pb.setRedirectStdErrToFile(errFile, true);
+		assertEquals(Redirect.to(outFile), pb.getRedirectStdOut().get());
+		assertEquals(Redirect.appendTo(errFile), pb.getRedirectStdErr().get());
+
+		final var processb = pb.makeProcessBuilder();
+		assertEquals(Redirect.to(outFile), processb.redirectOutput());
+		assertEquals(Redirect.appendTo(errFile), processb.redirectError());
+
+		pb.setRedirectStdOutToFile(null, false);
+		assertTrue(pb.getRedirectStdOut().isEmpty());
+	}
+
+	@Test
+	void testRedirectedFilesTailPollInterval() {
+		assertTrue(pb.getRedirectedFilesTailPollInterval().isEmpty());
+		pb.setRedirectedFilesTailPollInterval(Duration.ofMillis(10));
+		assertEquals(Duration.ofMillis(10), pb.getRedirectedFilesTailPollInterval().get());
+		Assertions.assertThrows(IllegalArgumentException.class,
+		        () -> pb.setRedirectedFilesTailPollInterval(Duration.ZERO));
+		pb.setRedirectedFilesTailPollInterval(null);
+		assertTrue(pb.getRedirectedFilesTailPollInterval().isEmpty());
+	}
+
+	@Test
+	void testSetOutputCharset() {
+		assertTrue(pb.getOutputCharset().isEmpty());
+		pb.setOutputCharset(StandardCharsets.ISO_8859_1);
+		assertEquals(StandardCharsets.ISO_8859_1, pb.getOutputCharset().get());
+		assertEquals(StandardCharsets.ISO_8859_1, pb.toProcesslauncher().getOutputCharset().get());
+	}
+
+	@Test
+	void testSetLineTimestampMode() {
+		assertTrue(pb.getLineTimestampMode().isEmpty());
+		pb.setLineTimestampMode(LineTimestampMode.MONOTONIC);
+		assertEquals(LineTimestampMode.MONOTONIC, pb.getLineTimestampMode().get());
+		assertEquals(LineTimestampMode.MONOTONIC, pb.toProcesslauncher().getLineTimestampMode().get());
+	}
+
+	@Test
+	void testSetEndExecutionCallbackExecutor() {
+		assertTrue(pb.getEndExecutionCallbackExecutor().isEmpty());
+		final Executor executor = Runnable::run;
+		pb.setEndExecutionCallbackExecutor(executor);
+		assertEquals(executor, pb.getEndExecutionCallbackExecutor().get());
+		assertEquals(executor, pb.toProcesslauncher().getEndExecutionCallbackExecutor().get());
+		pb.setVirtualThreadEndExecutionCallback();
+		assertEquals(ProcesslauncherExecutors.getVirtualThreadPerTaskExecutor(), pb.getEndExecutionCallbackExecutor());
+		pb.setEndExecutionCallbackExecutor(null);
+		assertTrue(pb.getEndExecutionCallbackExecutor().isEmpty());
+	}
+
+	@Test
+	void testSetKillPolicy() {
+		assertTrue(pb.getKillPolicy().isEmpty());
+		final var killPolicy = new KillPolicy(Duration.ZERO, Duration.ZERO);
+		pb.setKillPolicy(killPolicy);
+		assertEquals(killPolicy, pb.getKillPolicy().get());
+		assertEquals(killPolicy, pb.toProcesslauncher().getKillPolicy().get());
+		pb.setKillPolicy(null);
+		assertTrue(pb.getKillPolicy().isEmpty());
+	}
+
 	@Test
 	void testGetFullCommandLine() {
 		assertEquals(ProcesslauncherBuilder.addQuotesIfSpaces.apply(execFile.getAbsolutePath()) + " p", pb
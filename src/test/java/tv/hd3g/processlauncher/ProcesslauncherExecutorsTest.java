@@ -0,0 +1,49 @@
+/*
+ * This file is part of processlauncher.
+ *
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation; either version 3 of the License, or
+ * any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU Lesser General Public License for more details.
+ *
+ * Copyright (C) hdsdi3g for hd3g.tv 2019
+ *
+ */
+package tv.hd3g.processlauncher;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.jupiter.api.Test;
+
+class ProcesslauncherExecutorsTest {
+
+	@Test
+	void testGetVirtualThreadExecutor() throws Exception {
+		final var executor = ProcesslauncherExecutors.getVirtualThreadExecutor();
+		assertSame(executor, ProcesslauncherExecutors.getVirtualThreadExecutor());
+
+		final var thread = CompletableFuture.supplyAsync(Thread::currentThread, executor).get(10, TimeUnit.SECONDS);
+		assertTrue(thread.isDaemon());
+		assertFalse(thread.getName().startsWith("Executable stream watcher"));
+	}
+
+	@Test
+	void testGetVirtualThreadPerTaskExecutor() {
+		final var executor = ProcesslauncherExecutors.getVirtualThreadPerTaskExecutor();
+		assertEquals(executor, ProcesslauncherExecutors.getVirtualThreadPerTaskExecutor());
+		assertEquals(Runtime.version().feature() >= 21, executor.isPresent());
+		executor.ifPresent(e -> assertSame(e, ProcesslauncherExecutors.getVirtualThreadExecutor()));
+	}
+
+}
@@ -0,0 +1,119 @@
+/*
+ * This file is part of processlauncher.
+ *
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation; either version 3 of the License, or
+ * any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU Lesser General Public License for more details.
+ *
+ * Copyright (C) hdsdi3g for hd3g.tv 2019
+ *
+ */
+package tv.hd3g.processlauncher;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.jupiter.api.Test;
+
+import tv.hd3g.processlauncher.cmdline.CommandLine;
+import tv.hd3g.processlauncher.cmdline.ExecutableFinder;
+import tv.hd3g.processlauncher.cmdline.Parameters;
+import tv.hd3g.processlauncher.demo.DemoExecEmpty;
+import tv.hd3g.processlauncher.demo.DemoExecExitCode;
+
+class ProcesslauncherJobGraphTest {
+
+	private final ExecutableFinder executableFinder;
+	private final ProcesslauncherJobGraph graph;
+
+	ProcesslauncherJobGraphTest() throws IOException {
+		executableFinder = new ExecutableFinder();
+		graph = new ProcesslauncherJobGraph(Executors.newCachedThreadPool());
+	}
+
+	private ProcesslauncherBuilder prepareBuilder(final Class<?> execClass, final String... args) throws IOException {
+		final var parameters = Parameters.of("-cp", System.getProperty("java.class.path"), execClass.getName());
+		parameters.addParameters(args);
+		return new ProcesslauncherBuilder(new CommandLine("java", parameters, executableFinder));
+	}
+
+	@Test
+	void testAddJob() throws IOException {
+		final var builder = prepareBuilder(DemoExecEmpty.class);
+		graph.addJob("probe", builder)
+		        .addJob("transcode", builder, "probe")
+		        .addJob("package", builder, "probe", "transcode");
+
+		assertEquals(List.of("probe", "transcode", "package"), List.copyOf(graph.getJobNames()));
+		assertTrue(graph.getDependsOn("probe").isEmpty());
+		assertEquals(List.of("probe", "transcode"), graph.getDependsOn("package"));
+		assertThrows(IllegalArgumentException.class, () -> graph.getDependsOn("nope"));
+		assertThrows(IllegalArgumentException.class, () -> graph.addJob("probe", builder));
+		assertThrows(IllegalArgumentException.class, () -> graph.addJob("other", builder, "nope"));
+		assertThrows(NullPointerException.class, () -> graph.addJob(null, builder));
+		assertThrows(NullPointerException.class, () -> graph.addJob("other", null));
+	}
+
+	private ProcesslauncherBuilder prepareTracedBuilder(final String name,
+	                                                    final Queue<String> events) throws IOException {
+		return prepareBuilder(DemoExecEmpty.class).addExecutionCallbacker(new ExecutionCallbacker() {
+			@Override
+			public void postStartupExecution(final ProcesslauncherLifecycle processlauncherLifecycle) {
+				events.add("start " + name);
+			}
+
+			@Override
+			public void onEndExecution(final ProcesslauncherLifecycle processlauncherLifecycle) {
+				events.add("end " + name);
+			}
+		});
+	}
+
+	@Test
+	void testStart() throws Exception {
+		final var events = new ConcurrentLinkedQueue<String>();
+		graph.addJob("probe", prepareTracedBuilder("probe", events))
+		        .addJob("transcode", prepareTracedBuilder("transcode", events), "probe")
+		        .addJob("package", prepareTracedBuilder("package", events), "transcode");
+		final var results = graph.start();
+		assertEquals(List.of("probe", "transcode", "package"), List.copyOf(results.keySet()));
+
+		assertTrue(results.get("package").get(30, TimeUnit.SECONDS).isCorrectlyDone());
+		assertTrue(results.get("transcode").get().isCorrectlyDone());
+		assertTrue(results.get("probe").get().isCorrectlyDone());
+		assertEquals(List.of("start probe", "end probe",
+		        "start transcode", "end transcode",
+		        "start package", "end package"), List.copyOf(events));
+	}
+
+	@Test
+	void testStartUpstreamFail() throws Exception {
+		graph.addJob("probe", prepareBuilder(DemoExecExitCode.class, "1"))
+		        .addJob("other", prepareBuilder(DemoExecEmpty.class))
+		        .addJob("transcode", prepareBuilder(DemoExecEmpty.class), "probe", "other");
+		final var results = graph.start();
+
+		final var e = assertThrows(ExecutionException.class, () -> results.get("transcode").get(30, TimeUnit.SECONDS));
+		assertTrue(e.getCause() instanceof InvalidExecution);
+		assertTrue(results.get("probe").isCompletedExceptionally());
+		assertTrue(results.get("other").get().isCorrectlyDone());
+		assertFalse(results.get("transcode").isCancelled());
+	}
+
+}
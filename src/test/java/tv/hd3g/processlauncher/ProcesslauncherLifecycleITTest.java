@@ -19,16 +19,28 @@ package tv.hd3g.processlauncher;
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertFalse;
 import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 
+import java.io.ByteArrayOutputStream;
 import java.io.File;
 import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.nio.channels.Channels;
+import java.nio.file.Files;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
 import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
 import java.util.concurrent.LinkedBlockingQueue;
 import java.util.concurrent.ScheduledThreadPoolExecutor;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.function.Function;
+import java.util.stream.Collectors;
 
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
@@ -41,7 +53,10 @@ import org.junit.jupiter.api.Test;
 import tv.hd3g.processlauncher.cmdline.CommandLine;
 import tv.hd3g.processlauncher.cmdline.ExecutableFinder;
 import tv.hd3g.processlauncher.cmdline.Parameters;
+import tv.hd3g.processlauncher.demo.DemoExecBinaryOut;
 import tv.hd3g.processlauncher.demo.DemoExecExitCode;
+import tv.hd3g.processlauncher.demo.DemoExecFatalError;
+import tv.hd3g.processlauncher.demo.DemoExecFastOutput;
 import tv.hd3g.processlauncher.demo.DemoExecIOText;
 import tv.hd3g.processlauncher.demo.DemoExecInteractive;
 import tv.hd3g.processlauncher.demo.DemoExecLongSleep;
@@ -88,6 +103,253 @@ public class ProcesslauncherLifecycleITTest {// NOSONAR
 		assertEquals(EndStatus.CORRECTLY_DONE, result.getEndStatus());
 	}
 
+	@Test
+	void testSimpleExecVirtualThreadStreamParser() throws IOException {
+		final var pb = prepareBuilder(DemoExecSimple.class);
+		pb.getSetCaptureStandardOutputAsOutputText(CapturedStreams.BOTH_STDOUT_STDERR)
+		        .setVirtualThreadStreamParser()
+		        .addObserver(textRetention);
+		final var result = pb.start().waitForEnd();
+		textRetention.waitForClosedStreams();
+		assertFalse(textRetention.isStreamsWatchIsStillAlive());
+		assertEquals(DemoExecSimple.expected, textRetention.getStdouterr(true, ""));
+		assertEquals(EndStatus.CORRECTLY_DONE, result.getEndStatus());
+	}
+
+	@Test
+	void testSimpleExecStreamReaderPool() throws IOException {
+		final var pool = new StreamReaderPool(1);
+		final var retentions = new ArrayList<CapturedStdOutErrTextRetention>();
+		final var lifecycles = new ArrayList<ProcesslauncherLifecycle>();
+		for (var pos = 0; pos < 4; pos++) {
+			final var pb = prepareBuilder(DemoExecSimple.class);
+			final var retention = new CapturedStdOutErrTextRetention();
+			final var capture = pool.createCaptureStandardOutput(CapturedStreams.BOTH_STDOUT_STDERR);
+			capture.addObserver(retention);
+			pb.setCaptureStandardOutput(capture);
+			retentions.add(retention);
+			lifecycles.add(pb.start());
+		}
+
+		lifecycles.forEach(ProcesslauncherLifecycle::waitForEnd);
+		retentions.forEach(retention -> {
+			retention.waitForClosedStreams();
+			assertFalse(retention.isStreamsWatchIsStillAlive());
+			assertEquals(DemoExecSimple.expected, retention.getStdouterr(true, ""));
+		});
+		lifecycles.forEach(result -> assertEquals(EndStatus.CORRECTLY_DONE, result.getEndStatus()));
+		assertEquals(0, pool.getWatchedStreamsCount());
+		pool.close();
+	}
+
+	@Test
+	void testSimpleExecBatchObserver() throws IOException {
+		final var lines = new ArrayList<String>();
+		final var batchObserver = new CapturedStdOutErrTextBatch() {
+
+			@Override
+			public void onTextBatch(final List<LineEntry> lineEntries) {
+				synchronized (lines) {
+					lineEntries.forEach(le -> lines.add(le.getLine()));
+				}
+			}
+		};
+		final var pb = prepareBuilder(DemoExecSimple.class);
+		pb.getSetCaptureStandardOutputAsOutputText(CapturedStreams.BOTH_STDOUT_STDERR).addObserver(batchObserver);
+		final var result = pb.start().waitForEnd();
+		batchObserver.waitForClosedStreams();
+		assertEquals(EndStatus.CORRECTLY_DONE, result.getEndStatus());
+		assertEquals(List.of(DemoExecSimple.expected), lines);
+	}
+
+	@Test
+	void testAsyncObserver() throws IOException {
+		final var pb = prepareBuilder(DemoExecSimple.class);
+		final var async = pb.getSetCaptureStandardOutputAsOutputText(CapturedStreams.BOTH_STDOUT_STDERR)
+		        .addAsyncObserver(textRetention, 1, ObserverOverflowPolicy.BLOCK);
+		final var result = pb.start().waitForEnd();
+		async.waitForClosedStreams();
+		assertEquals(EndStatus.CORRECTLY_DONE, result.getEndStatus());
+		assertEquals(DemoExecSimple.expected, textRetention.getStdouterr(true, ""));
+		assertEquals(0, async.getLag());
+		assertEquals(0, async.getDroppedLinesCount());
+	}
+
+	@Test
+	void testMonotonicTimestamps() throws IOException {
+		final var lines = new ArrayList<LineEntry>();
+		final var pb = prepareBuilder(DemoExecSimple.class).setLineTimestampMode(LineTimestampMode.COARSE_MONOTONIC);
+		final var capture = pb.getSetCaptureStandardOutputAsOutputText(CapturedStreams.BOTH_STDOUT_STDERR);
+		final var observer = new CapturedStdOutErrText() {
+
+			@Override
+			void onText(final LineEntry lineEntry) {
+				synchronized (lines) {
+					lines.add(lineEntry);
+				}
+			}
+		};
+		capture.addObserver(observer);
+		final var result = pb.start().waitForEnd();
+		observer.waitForClosedStreams();
+
+		assertEquals(1, lines.size());
+		final var lineEntry = lines.get(0);
+		assertEquals(DemoExecSimple.expected, lineEntry.getLine());
+		assertTrue(lineEntry.getTimeAgoNanos() >= 0);
+		assertTrue(lineEntry.getTimeAgoNanos() <= System.nanoTime() - result.getStartNanoTime());
+		assertTrue(lineEntry.getDate() <= System.currentTimeMillis());
+		assertEquals(lineEntry.getTimeAgo(), lineEntry.getDate() - result.getLocalStartDate());
+	}
+
+	@Test
+	void testPublisher() throws Exception {
+		final var lineCount = 100_000;
+		final var parameters = Parameters.of("-cp", System.getProperty("java.class.path"),
+		        DemoExecFastOutput.class.getName(), String.valueOf(lineCount));
+		final var pb = new ProcesslauncherBuilder(new CommandLine("java", parameters, executableFinder));
+		final var publisher = pb.getSetCaptureStandardOutputAsOutputText(CapturedStreams.BOTH_STDOUT_STDERR)
+		        .addPublisher();
+		final var result = pb.start();
+		assertSame(publisher, result.getLinePublisher().get());
+
+		final var subscriber = new CapturedStdOutErrTextPublisherTest.LinesSubscriber();
+		publisher.subscribe(subscriber);
+		subscriber.subscription.request(10);
+		assertTrue(subscriber.awaitSize(10, 10, TimeUnit.SECONDS));
+		assertTrue(result.isRunning());
+		assertEquals(10, subscriber.size());
+
+		subscriber.subscription.request(Long.MAX_VALUE);
+		assertTrue(subscriber.end.await(30, TimeUnit.SECONDS));
+		assertTrue(subscriber.completed);
+		assertEquals(lineCount, subscriber.size());
+		assertEquals("frame=" + (lineCount - 1), subscriber.lines.get(lineCount - 1).getLine().split(" ")[0]);
+		assertEquals(EndStatus.CORRECTLY_DONE, result.waitForEnd().getEndStatus());
+	}
+
+	@Test
+	void testPublisherBuilderReuse() throws Exception {
+		final var pb = prepareBuilder(DemoExecSimple.class);
+		final var csot = pb.getSetCaptureStandardOutputAsOutputText(CapturedStreams.BOTH_STDOUT_STDERR);
+		final var firstPublisher = csot.addPublisher();
+		final var first = pb.start();
+		final var subscriber = new CapturedStdOutErrTextPublisherTest.LinesSubscriber();
+		firstPublisher.subscribe(subscriber);
+		subscriber.subscription.request(1);
+		assertTrue(subscriber.end.await(10, TimeUnit.SECONDS));
+		first.onEnd().get(10, TimeUnit.SECONDS);
+
+		final var second = pb.start();
+		assertSame(second, second.onEnd().get(10, TimeUnit.SECONDS));
+		assertTrue(second.getLinePublisher().isEmpty());
+		assertSame(firstPublisher, first.getLinePublisher().get());
+		assertEquals(1, subscriber.size());
+		assertTrue(subscriber.completed);
+
+		final var thirdPublisher = csot.addPublisher();
+		final var third = pb.start();
+		assertSame(thirdPublisher, third.getLinePublisher().get());
+		try (var lines = third.getLineStream()) {
+			assertEquals(List.of(DemoExecSimple.expected),
+			        lines.map(LineEntry::getLine).collect(Collectors.toUnmodifiableList()));
+		}
+		assertEquals(1, subscriber.size());
+	}
+
+	@Test
+	void testLineStream() throws Exception {
+		final var lineCount = 100_000;
+		final var parameters = Parameters.of("-cp", System.getProperty("java.class.path"),
+		        DemoExecFastOutput.class.getName(), String.valueOf(lineCount));
+		final var pb = new ProcesslauncherBuilder(new CommandLine("java", parameters, executableFinder));
+		pb.getSetCaptureStandardOutputAsOutputText(CapturedStreams.BOTH_STDOUT_STDERR).addPublisher();
+		final var result = pb.start();
+
+		try (var lines = result.getLineStream()) {
+			assertEquals(lineCount, lines.filter(le -> le.getLine().startsWith("frame=")).count());
+		}
+		assertEquals(EndStatus.CORRECTLY_DONE, result.waitForEnd().getEndStatus());
+	}
+
+	@Test
+	void testLineIteratorWithoutPublisher() throws Exception {
+		final var result = prepareBuilder(DemoExecSimple.class).start().waitForEnd();
+		Assertions.assertThrows(IllegalStateException.class, result::getLineIterator);
+	}
+
+	@Test
+	void testBinaryOutput() throws IOException {
+		final var sink = new ByteArrayOutputStream();
+		final var capture = new CaptureStandardOutputBytes(CapturedStreams.ONLY_STDOUT);
+		capture.addStdOutSink(Channels.newChannel(sink));
+		final var pb = prepareBuilder(DemoExecBinaryOut.class);
+		pb.setCaptureStandardOutput(capture);
+
+		final var result = pb.start().waitForEnd();
+		capture.waitForClosedStreams();
+		assertEquals(EndStatus.CORRECTLY_DONE, result.getEndStatus());
+
+		final var content = sink.toByteArray();
+		assertEquals(DemoExecBinaryOut.SIZE, content.length);
+		for (var pos = 0; pos < content.length; pos++) {
+			assertEquals(DemoExecBinaryOut.get(pos), content[pos]);
+		}
+	}
+
+	@Test
+	void testRedirectToFile() throws IOException {
+		final var outFile = File.createTempFile("processlauncher-out", ".txt");
+		final var errFile = File.createTempFile("processlauncher-err", ".txt");
+		try {
+			final var parameters = Parameters.of("-cp", System.getProperty("java.class.path"),
+			        DemoExecIOText.class.getName());
+			parameters.addParameters(DemoExecIOText.expectedIn);
+			final var ept = new ProcesslauncherBuilder(new CommandLine("java", parameters, executableFinder));
+			ept.setExecCodeMustBeZero(false);
+			ept.setEnvironmentVar(DemoExecIOText.ENV_KEY, DemoExecIOText.ENV_VALUE);
+			ept.setRedirectStdOutToFile(outFile, false);
+			ept.setRedirectStdErrToFile(errFile, false);
+
+			final var p = captureTextAndStart(ept).waitForEnd();
+			textRetention.waitForClosedStreams();
+			assertEquals(DemoExecIOText.exitOk, (int) p.getExitCode());
+			assertEquals("", textRetention.getStdouterr(false, ""));
+			assertEquals(DemoExecIOText.expectedOut, Files.readString(outFile.toPath()).trim());
+			assertEquals(DemoExecIOText.expectedErr, Files.readString(errFile.toPath()).trim());
+		} finally {
+			Files.delete(outFile.toPath());
+			Files.delete(errFile.toPath());
+		}
+	}
+
+	@Test
+	void testRedirectToFileWithTail() throws IOException {
+		final var outFile = File.createTempFile("processlauncher-out", ".txt");
+		try {
+			Files.writeString(outFile.toPath(), "Previous content\n");
+
+			final var parameters = Parameters.of("-cp", System.getProperty("java.class.path"),
+			        DemoExecIOText.class.getName());
+			parameters.addParameters(DemoExecIOText.expectedIn);
+			final var ept = new ProcesslauncherBuilder(new CommandLine("java", parameters, executableFinder));
+			ept.setExecCodeMustBeZero(false);
+			ept.setEnvironmentVar(DemoExecIOText.ENV_KEY, DemoExecIOText.ENV_VALUE);
+			ept.setRedirectStdOutToFile(outFile, true);
+			ept.setRedirectedFilesTailPollInterval(Duration.ofMillis(5));
+
+			final var p = captureTextAndStart(ept).waitForEnd();
+			textRetention.waitForClosedStreams();
+			assertEquals(DemoExecIOText.exitOk, (int) p.getExitCode());
+			assertEquals(DemoExecIOText.expectedOut, textRetention.getStdout(false, ""));
+			assertEquals(DemoExecIOText.expectedErr, textRetention.getStderr(false, ""));
+			assertEquals("Previous content\n" + DemoExecIOText.expectedOut,
+			        Files.readString(outFile.toPath()).trim());
+		} finally {
+			Files.delete(outFile.toPath());
+		}
+	}
+
 	@Test
 	void testWorkingDirectory() throws IOException, InterruptedException, ExecutionException {
 		final var ept = prepareBuilder(DemoExecWorkingdir.class);
@@ -129,6 +391,114 @@ public class ProcesslauncherLifecycleITTest {// NOSONAR
 		assertTrue(isAlive.get());
 	}
 
+	@Test
+	void testOnEnd() throws Exception {
+		final var ept = prepareBuilder(DemoExecSimple.class);
+		final var onEndExecutions = new LinkedBlockingQueue<ProcesslauncherLifecycle>();
+		ept.addExecutionCallbacker(new ExecutionCallbacker() {
+			@Override
+			public void onEndExecution(final ProcesslauncherLifecycle processlauncherLifecycle) {
+				onEndExecutions.add(processlauncherLifecycle);
+			}
+		});
+
+		final var p = captureTextAndStart(ept);
+		final var onEnd = p.onEnd();
+		assertSame(p, onEnd.get(10, TimeUnit.SECONDS));
+		assertTrue(onEnd.isDone());
+		assertSame(p, onEndExecutions.poll());
+		assertTrue(p.getEndDate() > 0);
+		assertFalse(textRetention.isStreamsWatchIsStillAlive());
+		assertEquals(DemoExecSimple.expected, textRetention.getStdouterr(true, ""));
+	}
+
+	@Test
+	void testStartAsync() throws Exception {
+		final var pb = prepareBuilder(DemoExecSimple.class);
+		pb.getSetCaptureStandardOutputAsOutputText(CapturedStreams.BOTH_STDOUT_STDERR).addObserver(textRetention);
+		final var p = pb.startAsync()
+		        .thenCompose(ProcesslauncherLifecycle::onEnd)
+		        .get(10, TimeUnit.SECONDS);
+		assertTrue(p.isCorrectlyDone());
+		assertEquals(DemoExecSimple.expected, textRetention.getStdouterr(true, ""));
+	}
+
+	@Test
+	void testStartAsyncCantStart() throws Exception {
+		final var pb = prepareBuilder(DemoExecSimple.class);
+		pb.setExternalProcessStartup(processBuilder -> {
+			throw new IOException("Can't start");
+		});
+		final var e = assertThrows(ExecutionException.class, () -> pb.startAsync(Runnable::run).get());
+		assertTrue(e.getCause() instanceof ProcessLifeCycleException);
+	}
+
+	@Test
+	void testEndExecutionCallbackExecutor() throws Exception {
+		final var ept = prepareBuilder(DemoExecSimple.class);
+		final var executorThreads = new LinkedBlockingQueue<Thread>();
+		final var onEndExecutionThreads = new LinkedBlockingQueue<Thread>();
+		final var blockExecutor = new CountDownLatch(1);
+		final Executor blockedExecutor = r -> new Thread(() -> {
+			executorThreads.add(Thread.currentThread());
+			try {
+				blockExecutor.await();
+			} catch (final InterruptedException e) {// NOSONAR
+				throw new IllegalStateException(e);
+			}
+			r.run();
+		}).start();
+		ept.setEndExecutionCallbackExecutor(blockedExecutor);
+		ept.addExecutionCallbacker(new ExecutionCallbacker() {
+			@Override
+			public void onEndExecution(final ProcesslauncherLifecycle processlauncherLifecycle) {
+				onEndExecutionThreads.add(Thread.currentThread());
+			}
+		});
+
+		assertEquals(0, ProcesslauncherLifecycle.getEndExecCallbackQueueDepth(blockedExecutor));
+		final var p = ept.start();
+		final var executorThread = executorThreads.poll(10, TimeUnit.SECONDS);
+		assertNotNull(executorThread);
+		assertEquals(1, ProcesslauncherLifecycle.getEndExecCallbackQueueDepth(blockedExecutor));
+		assertFalse(p.onEnd().isDone());
+
+		blockExecutor.countDown();
+		p.onEnd().get(10, TimeUnit.SECONDS);
+		assertSame(executorThread, onEndExecutionThreads.poll());
+		assertEquals(0, ProcesslauncherLifecycle.getEndExecCallbackQueueDepth(blockedExecutor));
+		assertEquals(0, ProcesslauncherLifecycle.getEndExecCallbackQueueDepth(Runnable::run));
+	}
+
+	@Test
+	void testCheckExecutionFromEndCallback() throws Exception {
+		final var ept = prepareBuilder(DemoExecShortSleep.class);
+		final var checked = new AtomicBoolean(false);
+		ept.addExecutionCallbacker(new ExecutionCallbacker() {
+			@Override
+			public void onEndExecution(final ProcesslauncherLifecycle processlauncherLifecycle) {
+				processlauncherLifecycle.checkExecution();
+				checked.set(true);
+			}
+		});
+		final var p = ept.start();
+		p.onEnd().get(10, TimeUnit.SECONDS);
+		assertTrue(checked.get());
+		p.checkExecutionAfterEnd();
+	}
+
+	@Test
+	void testWaitForEndWithoutSpin() throws Exception {
+		final var threadMXBean = ManagementFactory.getThreadMXBean();
+		final var p = prepareBuilder(DemoExecShortSleep.class).start();
+		final var cpuTimeBefore = threadMXBean.getCurrentThreadCpuTime();
+		assertEquals(0, (int) p.getExitCode());
+		p.waitForEnd();
+		p.checkExecution();
+		final var cpuTime = threadMXBean.getCurrentThreadCpuTime() - cpuTimeBefore;
+		MatcherAssert.assertThat(cpuTime, Matchers.lessThan(TimeUnit.MILLISECONDS.toNanos(100)));
+	}
+
 	@Test
 	void testResultValues() throws Exception {
 		final var parameters = Parameters.of("-cp", System.getProperty("java.class.path"),
@@ -196,6 +566,47 @@ public class ProcesslauncherLifecycleITTest {// NOSONAR
 		assertFalse(result.isRunning());
 	}
 
+	@Test
+	void testKillAsync() throws Exception {
+		final var result = prepareBuilder(DemoExecSubProcess.class).start();
+		Thread.sleep(DemoExecLongSleep.MAX_DURATION * 4);// NOSONAR
+		final var descendants = result.getProcess().descendants().count();
+
+		final var report = result.killAsync(new KillPolicy(Duration.ofSeconds(5), Duration.ofSeconds(5)))
+		        .get(15, TimeUnit.SECONDS);
+		assertTrue(report.isDone());
+		MatcherAssert.assertThat((long) report.getOutcomes().size(), Matchers.greaterThanOrEqualTo(descendants + 1));
+		assertEquals(result.getProcess().pid(), (long) report.getOutcomes().keySet().stream().reduce((l, r) -> r).get());
+		assertTrue(report.getOutcomes().values().stream().allMatch(o -> o != KillOutcome.CANT_KILL));
+
+		result.waitForEnd();
+		assertTrue(result.isKilled());
+		assertEquals(KillOutcome.ALREADY_ENDED, result.killAsync().get().getOutcome(result.getProcess().pid()).get());
+	}
+
+	@Test
+	void testFailureDetectorKill() throws Exception {
+		final var detector = new CapturedStdOutErrTextFailureDetector()
+		        .addLiteral("no space", "No space left on device")
+		        .addLiteral("invalid data", "Invalid data found")
+		        .addRegex("conversion failed", "^Conversion failed!$");
+		final var pb = prepareBuilder(DemoExecFatalError.class);
+		pb.getSetCaptureStandardOutputAsOutputText(CapturedStreams.BOTH_STDOUT_STDERR).addObserver(detector);
+
+		final var startTime = System.currentTimeMillis();
+		final var result = pb.start().waitForEnd();
+		detector.waitForClosedStreams();
+
+		MatcherAssert.assertThat(System.currentTimeMillis() - startTime,
+		        Matchers.lessThan(DemoExecFatalError.MAX_DURATION));
+		assertEquals(EndStatus.KILLED, result.getEndStatus());
+		assertEquals(1, detector.getMatches().size());
+		final var match = detector.getFirstMatch().get();
+		assertEquals("invalid data", match.getRuleName());
+		assertEquals(DemoExecFatalError.FATAL_MESSAGE, match.getLineEntry().getLine());
+		assertTrue(match.getLineEntry().isStdErr());
+	}
+
 	@Test
 	void testKillSubProcess() throws Exception {
 		final var ept = prepareBuilder(DemoExecSubProcess.class);
@@ -21,7 +21,10 @@ import static org.junit.jupiter.api.Assertions.assertFalse;
 import static org.junit.jupiter.api.Assertions.assertNotNull;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 
+import java.io.ByteArrayInputStream;
 import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
 import java.util.concurrent.TimeUnit;
 
 import org.hamcrest.MatcherAssert;
@@ -86,4 +89,48 @@ class ProcesslauncherLifecycleTest {
 		p.waitForEnd();
 		p.checkExecution();
 	}
+
+	@Test
+	void testKillWithoutProcessHandle() throws Exception {
+		final var endedProcess = new Process() {
+
+			@Override
+			public OutputStream getOutputStream() {
+				return OutputStream.nullOutputStream();
+			}
+
+			@Override
+			public InputStream getInputStream() {
+				return new ByteArrayInputStream(new byte[0]);
+			}
+
+			@Override
+			public InputStream getErrorStream() {
+				return new ByteArrayInputStream(new byte[0]);
+			}
+
+			@Override
+			public int waitFor() {
+				return 0;
+			}
+
+			@Override
+			public int exitValue() {
+				return 0;
+			}
+
+			@Override
+			public void destroy() {
+				/**
+				 * Already ended
+				 */
+			}
+		};
+		processlauncherBuilder.setExternalProcessStartup(pBuilder -> endedProcess);
+		final var external = new ProcesslauncherLifecycle(new Processlauncher(processlauncherBuilder));
+		assertTrue(external.getPID().isEmpty());
+		assertTrue(external.killAsync().get(10, TimeUnit.SECONDS).getOutcomes().isEmpty());
+		external.kill();
+		assertFalse(external.isKilled());
+	}
 }
@@ -0,0 +1,127 @@
+/*
+ * This file is part of processlauncher.
+ *
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation; either version 3 of the License, or
+ * any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU Lesser General Public License for more details.
+ *
+ * Copyright (C) hdsdi3g for hd3g.tv 2019
+ *
+ */
+package tv.hd3g.processlauncher;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import tv.hd3g.processlauncher.cmdline.CommandLine;
+import tv.hd3g.processlauncher.cmdline.ExecutableFinder;
+import tv.hd3g.processlauncher.cmdline.Parameters;
+import tv.hd3g.processlauncher.demo.DemoExecExitCode;
+import tv.hd3g.processlauncher.demo.DemoExecLongSleep;
+import tv.hd3g.processlauncher.demo.DemoExecPipeLowerCase;
+import tv.hd3g.processlauncher.demo.DemoExecSimple;
+
+class ProcesslauncherPipelineTest {
+
+	private final ExecutableFinder executableFinder;
+	private CapturedStdOutErrTextRetention stdOut;
+	private CapturedStdOutErrTextRetention stdErr;
+
+	ProcesslauncherPipelineTest() throws IOException {
+		executableFinder = new ExecutableFinder();
+	}
+
+	@BeforeEach
+	void setUp() {
+		stdOut = new CapturedStdOutErrTextRetention(CapturedStreams.ONLY_STDOUT);
+		stdErr = new CapturedStdOutErrTextRetention(CapturedStreams.ONLY_STDERR);
+	}
+
+	private ProcesslauncherBuilder prepareBuilder(final Class<?> execClass, final String... args) throws IOException {
+		final var parameters = Parameters.of("-cp", System.getProperty("java.class.path"), execClass.getName());
+		parameters.addParameters(args);
+		return new ProcesslauncherBuilder(new CommandLine("java", parameters, executableFinder));
+	}
+
+	@Test
+	void testStages() throws IOException {
+		final var first = prepareBuilder(DemoExecSimple.class);
+		final var last = prepareBuilder(DemoExecPipeLowerCase.class);
+		final var pipeline = new ProcesslauncherPipeline(first).addStage(last);
+		assertEquals(List.of(first, last), pipeline.getStages());
+		assertEquals(first.getFullCommandLine() + " | " + last.getFullCommandLine(), pipeline.getFullCommandLine());
+		assertEquals(pipeline.getFullCommandLine(), pipeline.toString());
+
+		final var external = prepareBuilder(DemoExecSimple.class).setExternalProcessStartup(ProcessBuilder::start);
+		assertThrows(IllegalArgumentException.class, () -> pipeline.addStage(external));
+		assertThrows(IllegalStateException.class, () -> new ProcesslauncherPipeline().start());
+	}
+
+	@Test
+	void testStart() throws IOException {
+		final var first = prepareBuilder(DemoExecSimple.class);
+		final var middle = prepareBuilder(DemoExecPipeLowerCase.class);
+		middle.getSetCaptureStandardOutputAsOutputText(CapturedStreams.ONLY_STDERR).addObserver(stdErr);
+		final var last = prepareBuilder(DemoExecPipeLowerCase.class);
+		last.getSetCaptureStandardOutputAsOutputText(CapturedStreams.BOTH_STDOUT_STDERR).addObserver(stdOut);
+
+		final var result = new ProcesslauncherPipeline(first, middle, last).start().checkExecutionAfterEnd();
+		assertEquals(3, result.getStages().size());
+		assertSame(result.getStages().get(0), result.getFirst());
+		assertSame(result.getStages().get(2), result.getLast());
+		assertTrue(result.isCorrectlyDone());
+		assertFalse(result.isRunning());
+		assertEquals(DemoExecSimple.expected.toLowerCase(), stdOut.getStdout(false, ""));
+		assertEquals(DemoExecPipeLowerCase.LINES_COUNT + 1, stdErr.getStderr(false, ""));
+	}
+
+	@Test
+	void testStartBadRedirect() throws IOException {
+		final var file = File.createTempFile("processlauncher", ".txt");
+		file.deleteOnExit();
+		final var first = prepareBuilder(DemoExecSimple.class).setRedirectStdOutToFile(file, false);
+		final var pipeline = new ProcesslauncherPipeline(first, prepareBuilder(DemoExecPipeLowerCase.class));
+		assertThrows(IllegalArgumentException.class, pipeline::start);
+	}
+
+	@Test
+	void testStageError() throws IOException {
+		final var result = new ProcesslauncherPipeline(
+		        prepareBuilder(DemoExecExitCode.class, "2"),
+		        prepareBuilder(DemoExecPipeLowerCase.class)).start();
+		assertThrows(InvalidExecution.class, result::checkExecution);
+		assertFalse(result.isCorrectlyDone());
+		assertEquals(2, (int) result.getFirst().getExitCode());
+		assertTrue(result.getLast().isCorrectlyDone());
+	}
+
+	@Test
+	void testKill() throws Exception {
+		final var result = new ProcesslauncherPipeline(
+		        prepareBuilder(DemoExecLongSleep.class),
+		        prepareBuilder(DemoExecPipeLowerCase.class)).start();
+		assertTrue(result.isRunning());
+		result.kill();
+		assertSame(result, result.onEnd().get(10, TimeUnit.SECONDS));
+		assertFalse(result.isRunning());
+		assertTrue(result.getStages().stream().allMatch(ProcesslauncherLifecycle::isKilled));
+	}
+
+}
@@ -0,0 +1,182 @@
+/*
+ * This file is part of processlauncher.
+ *
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation; either version 3 of the License, or
+ * any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU Lesser General Public License for more details.
+ *
+ * Copyright (C) hdsdi3g for hd3g.tv 2019
+ *
+ */
+package tv.hd3g.processlauncher;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+
+import org.hamcrest.MatcherAssert;
+import org.hamcrest.Matchers;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mockito;
+
+import tv.hd3g.processlauncher.cmdline.CommandLine;
+import tv.hd3g.processlauncher.cmdline.ExecutableFinder;
+import tv.hd3g.processlauncher.cmdline.Parameters;
+import tv.hd3g.processlauncher.demo.DemoExecLongSleep;
+import tv.hd3g.processlauncher.demo.DemoExecSlowShutdown;
+
+class ProcesslauncherRegistryTest {
+
+	private ProcesslauncherLifecycle older;
+	private ProcesslauncherLifecycle newer;
+
+	@BeforeEach
+	void setUp() throws IOException, InterruptedException {
+		final var parameters = Parameters.of("-cp", System.getProperty("java.class.path"),
+		        DemoExecLongSleep.class.getName());
+		final var builder = new ProcesslauncherBuilder(new CommandLine("java", parameters, new ExecutableFinder()));
+		older = builder.start();
+		Thread.sleep(50);// NOSONAR
+		newer = builder.start();
+	}
+
+	@AfterEach
+	void tearDown() {
+		older.kill();
+		newer.kill();
+	}
+
+	private boolean isTested(final ProcesslauncherLifecycle lifecycle) {
+		return lifecycle == older || lifecycle == newer;
+	}
+
+	@Test
+	void testGetRunning() {
+		assertEquals(List.of(older, newer), ProcesslauncherRegistry.getRunning(this::isTested));
+		assertTrue(ProcesslauncherRegistry.getRunning().containsAll(List.of(older, newer)));
+		assertTrue(ProcesslauncherRegistry.getRunningCount() >= 2);
+		assertThrows(NullPointerException.class, () -> ProcesslauncherRegistry.getRunning(null));
+	}
+
+	@Test
+	void testGetRunningByExecName() {
+		assertTrue(ProcesslauncherRegistry.getRunningByExecName(older.getExecNameWithoutExt())
+		        .containsAll(List.of(older, newer)));
+		assertTrue(ProcesslauncherRegistry.getRunningByExecName("nope").isEmpty());
+	}
+
+	@Test
+	void testGetRunningOlderThan() {
+		final var olderThan = ProcesslauncherRegistry.getRunningOlderThan(Duration.ofMillis(40));
+		assertTrue(olderThan.contains(older));
+		assertFalse(ProcesslauncherRegistry.getRunningOlderThan(Duration.ofHours(1)).contains(older));
+	}
+
+	@Test
+	void testKill() throws Exception {
+		assertEquals(List.of(older, newer), ProcesslauncherRegistry.kill(this::isTested));
+		older.onEnd().get(10, TimeUnit.SECONDS);
+		newer.onEnd().get(10, TimeUnit.SECONDS);
+		assertTrue(older.isKilled());
+		assertTrue(newer.isKilled());
+		assertTrue(ProcesslauncherRegistry.getRunning(this::isTested).isEmpty());
+		assertFalse(ProcesslauncherRegistry.getRunning().contains(older));
+	}
+
+	@Test
+	void testKillWithErrors() throws Exception {
+		final var failing = Mockito.mock(ProcesslauncherLifecycle.class);
+		Mockito.when(failing.isRunning()).thenReturn(true);
+		Mockito.when(failing.getStartNanoTime()).thenReturn(older.getStartNanoTime() - 1);
+		Mockito.when(failing.killAsync()).thenThrow(new ProcessLifeCycleException("Test"));
+		ProcesslauncherRegistry.register(failing);
+		try {
+			final var e = assertThrows(ProcessLifeCycleException.class,
+			        () -> ProcesslauncherRegistry.kill(l -> l == failing || isTested(l)));
+			assertEquals("Test", e.getCause().getMessage());
+			older.onEnd().get(10, TimeUnit.SECONDS);
+			newer.onEnd().get(10, TimeUnit.SECONDS);
+			assertTrue(older.isKilled());
+			assertTrue(newer.isKilled());
+		} finally {
+			ProcesslauncherRegistry.unregister(failing);
+		}
+	}
+
+	@Test
+	void testKillAllAtShutdownWithErrors() throws Exception {
+		final var failing = Mockito.mock(ProcesslauncherLifecycle.class);
+		Mockito.when(failing.killAtShutdown()).thenThrow(new ProcessLifeCycleException("Test"));
+		ProcesslauncherRegistry.register(failing);
+		try {
+			ProcesslauncherRegistry.killAllAtShutdown();
+			older.onEnd().get(10, TimeUnit.SECONDS);
+			newer.onEnd().get(10, TimeUnit.SECONDS);
+			assertFalse(older.isRunning());
+			assertFalse(newer.isRunning());
+		} finally {
+			ProcesslauncherRegistry.unregister(failing);
+		}
+	}
+
+	@Test
+	void testUnregisterWithRejectedEndCallback() throws Exception {
+		final var parameters = Parameters.of("-cp", System.getProperty("java.class.path"),
+		        DemoExecLongSleep.class.getName());
+		final var builder = new ProcesslauncherBuilder(new CommandLine("java", parameters, new ExecutableFinder()));
+		final Executor rejectExecutor = r -> {
+			throw new RejectedExecutionException("Test");
+		};
+		builder.setEndExecutionCallbackExecutor(rejectExecutor);
+		final var rejected = builder.start();
+		assertTrue(ProcesslauncherRegistry.getRunning().contains(rejected));
+		rejected.kill();
+		rejected.onEnd().get(10, TimeUnit.SECONDS);
+
+		final var timeout = System.currentTimeMillis() + 10_000;
+		while (ProcesslauncherRegistry.getRunning().contains(rejected) && System.currentTimeMillis() < timeout) {
+			Thread.sleep(10);// NOSONAR
+		}
+		assertFalse(ProcesslauncherRegistry.getRunning().contains(rejected));
+		assertEquals(0, ProcesslauncherLifecycle.getEndExecCallbackQueueDepth(rejectExecutor));
+	}
+
+	@Test
+	void testKillAllAtShutdownMaxWait() throws Exception {
+		final var parameters = Parameters.of("-cp", System.getProperty("java.class.path"),
+		        DemoExecSlowShutdown.class.getName());
+		final var builder = new ProcesslauncherBuilder(new CommandLine("java", parameters, new ExecutableFinder()));
+		builder.setKillPolicy(KillPolicy.GRACEFUL);
+		builder.getSetCaptureStandardOutputAsOutputText(CapturedStreams.ONLY_STDOUT).addPublisher();
+		final var slow = builder.start();
+		try {
+			assertEquals(DemoExecSlowShutdown.READY, slow.getLineIterator().next().getLine());
+
+			final var startTime = System.currentTimeMillis();
+			ProcesslauncherRegistry.killAllAtShutdown();
+			MatcherAssert.assertThat(System.currentTimeMillis() - startTime,
+			        Matchers.lessThan(ProcesslauncherRegistry.SHUTDOWN_KILL_MAX_WAIT.toMillis() + 1000L));
+			older.onEnd().get(10, TimeUnit.SECONDS);
+			assertFalse(older.isRunning());
+		} finally {
+			slow.getProcess().destroyForcibly();
+		}
+	}
+
+}
@@ -0,0 +1,81 @@
+/*
+ * This file is part of processlauncher.
+ *
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation; either version 3 of the License, or
+ * any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU Lesser General Public License for more details.
+ *
+ * Copyright (C) hdsdi3g for hd3g.tv 2019
+ *
+ */
+package tv.hd3g.processlauncher;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static java.nio.file.StandardOpenOption.APPEND;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.io.File;
+import java.io.IOException;
+import java.lang.ProcessBuilder.Redirect;
+import java.nio.file.Files;
+import java.time.Duration;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+class RedirectedFileTailInputStreamTest {
+
+	private File file;
+
+	@BeforeEach
+	void init() throws IOException {
+		file = File.createTempFile("processlauncher-tail", ".txt");
+	}
+
+	@AfterEach
+	void end() throws IOException {
+		Files.deleteIfExists(file.toPath());
+	}
+
+	@Test
+	void testGetTailStartPosition() throws IOException {
+		Files.writeString(file.toPath(), "0123");
+		assertEquals(4, RedirectedFileTailInputStream.getTailStartPosition(Redirect.appendTo(file)));
+		assertEquals(0, RedirectedFileTailInputStream.getTailStartPosition(Redirect.to(file)));
+		assertEquals(0, RedirectedFileTailInputStream.getTailStartPosition(Redirect.PIPE));
+	}
+
+	@Test
+	void testTail() throws Exception {
+		Files.writeString(file.toPath(), "Previous");
+		final var running = new AtomicBoolean(true);
+		final var scheduler = Executors.newSingleThreadScheduledExecutor();
+		scheduler.schedule(() -> {
+			Files.writeString(file.toPath(), "Line1\n", APPEND);
+			return null;
+		}, 20, TimeUnit.MILLISECONDS);
+		scheduler.schedule(() -> {
+			Files.writeString(file.toPath(), "Line2", APPEND);
+			running.set(false);
+			return null;
+		}, 40, TimeUnit.MILLISECONDS);
+
+		try (var tail = new RedirectedFileTailInputStream(file, 8, running::get, Duration.ofMillis(1))) {
+			assertEquals("Line1\nLine2", new String(tail.readAllBytes(), UTF_8));
+			assertEquals(0, tail.available());
+		} finally {
+			scheduler.shutdown();
+		}
+	}
+
+}
@@ -0,0 +1,161 @@
+/*
+ * This file is part of processlauncher.
+ *
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation; either version 3 of the License, or
+ * any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU Lesser General Public License for more details.
+ *
+ * Copyright (C) hdsdi3g for hd3g.tv 2019
+ *
+ */
+package tv.hd3g.processlauncher;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+import java.util.stream.LongStream;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+class SpillToDiskLineEntryStoreTest {
+
+	private File spillDirectory;
+
+	@BeforeEach
+	void init() throws IOException {
+		spillDirectory = Files.createTempDirectory("processlauncher-test").toFile();
+	}
+
+	@AfterEach
+	void end() {
+		/**
+		 * Segment files are opened with delete on close
+		 */
+		spillDirectory.deleteOnExit();
+	}
+
+	private static List<String> range(final int from, final int to) {
+		return IntStream.range(from, to).mapToObj(i -> "Line " + i).collect(Collectors.toList());
+	}
+
+	@Test
+	void testInvalidParams() {
+		assertThrows(IllegalArgumentException.class, () -> new SpillToDiskLineEntryStore(0, spillDirectory, 1));
+		assertThrows(IllegalArgumentException.class, () -> new SpillToDiskLineEntryStore(1, spillDirectory, 0));
+	}
+
+	@Test
+	void testInHeapOnly() {
+		final var store = new SpillToDiskLineEntryStore(10, spillDirectory, 1000);
+		range(0, 10).forEach(line -> store.add(new LineEntry(1, line, false, null), 0));
+		assertEquals(range(0, 10), store.stream().map(LineEntry::getLine).collect(Collectors.toList()));
+		assertEquals(0, store.getSpilledLines());
+		assertEquals(0, store.getSegmentsCount());
+	}
+
+	@Test
+	void testSpill() {
+		final var store = new SpillToDiskLineEntryStore(10, spillDirectory, 1000);
+		IntStream.range(0, 1000).forEach(i -> store.add(new LineEntry(i, "Line " + i, i % 3 == 0, null), i * 2L));
+
+		final var entries = store.stream().collect(Collectors.toList());
+		assertEquals(range(0, 1000), entries.stream().map(LineEntry::getLine).collect(Collectors.toList()));
+		IntStream.range(0, 1000).forEach(i -> {
+			assertEquals(i, entries.get(i).getDate());
+			assertEquals(i % 3 == 0, entries.get(i).isStdErr());
+		});
+
+		assertEquals(LongStream.range(0, 1000).map(i -> i * 2).boxed().collect(Collectors.toList()),
+		        store.sequencedStream().map(s -> s.sequence).collect(Collectors.toList()));
+		assertEquals(1000, store.size());
+		assertEquals(0, store.getEmptyLines());
+		assertEquals(entries.stream().mapToLong(le -> le.getLine().length()).sum(), store.getBytes());
+		assertEquals(990, store.getSpilledLines());
+		assertTrue(store.getSegmentsCount() > 1);
+		assertEquals(0, store.getDroppedLines());
+	}
+
+	@Test
+	void testStreamSnapshot() {
+		final var store = new SpillToDiskLineEntryStore(1, spillDirectory, 1000);
+		range(0, 10).forEach(line -> store.add(new LineEntry(1, line, false, null), 0));
+		final var stream = store.stream();
+		range(10, 20).forEach(line -> store.add(new LineEntry(1, line, false, null), 0));
+		assertEquals(range(0, 10), stream.map(LineEntry::getLine).collect(Collectors.toList()));
+		assertEquals(range(0, 20), store.stream().map(LineEntry::getLine).collect(Collectors.toList()));
+	}
+
+	@Test
+	void testBigLines() {
+		final var store = new SpillToDiskLineEntryStore(1, spillDirectory, 1000);
+		final var bigLine = "é".repeat(100_000);
+		store.add(new LineEntry(1, bigLine, false, null), 1);
+		store.add(new LineEntry(2, "small", false, null), 2);
+		store.add(new LineEntry(3, bigLine, true, null), 3);
+		store.add(new LineEntry(4, "last", false, null), 4);
+		assertEquals(List.of(bigLine, "small", bigLine, "last"),
+		        store.stream().map(LineEntry::getLine).collect(Collectors.toList()));
+		assertEquals(3, store.getSegmentsCount());
+	}
+
+	@Test
+	void testClose() {
+		final var store = new SpillToDiskLineEntryStore(10, spillDirectory, 1000);
+		range(0, 100).forEach(line -> store.add(new LineEntry(1, line, false, null), 0));
+		assertTrue(store.getSegmentsCount() > 0);
+
+		store.close();
+		assertEquals(0, store.getSegmentsCount());
+		assertEquals(range(90, 100), store.stream().map(LineEntry::getLine).collect(Collectors.toList()));
+		assertEquals(10, store.size());
+		assertEquals(90, store.getDroppedLines());
+		assertEquals(range(90, 100).stream().mapToLong(String::length).sum(), store.getBytes());
+
+		range(100, 120).forEach(line -> store.add(new LineEntry(1, line, false, null), 0));
+		assertEquals(range(90, 120), store.stream().map(LineEntry::getLine).collect(Collectors.toList()));
+	}
+
+	@Test
+	void testWriteError() {
+		final var store = new SpillToDiskLineEntryStore(1, spillDirectory, 1_000_000);
+		range(0, 10).forEach(line -> store.add(new LineEntry(1, line, false, null), 0));
+
+		/**
+		 * An interrupted write closes the channel: the segment can't be truncated, and is dropped
+		 */
+		Thread.currentThread().interrupt();
+		try {
+			store.add(new LineEntry(1, "x".repeat(100_000), false, null), 0);
+			store.add(new LineEntry(1, "after", false, null), 0);
+		} finally {
+			Thread.interrupted();
+		}
+		assertEquals(List.of("after"), store.stream().map(LineEntry::getLine).collect(Collectors.toList()));
+		assertEquals(1, store.size());
+		assertEquals(11, store.getDroppedLines());
+		assertEquals(0, store.getSegmentsCount());
+
+		range(0, 10).forEach(line -> store.add(new LineEntry(1, line, false, null), 0));
+		final var lines = new ArrayList<>(List.of("after"));
+		lines.addAll(range(0, 10));
+		assertEquals(lines, store.stream().map(LineEntry::getLine).collect(Collectors.toList()));
+		assertEquals(1, store.getSegmentsCount());
+	}
+
+}
@@ -0,0 +1,94 @@
+/*
+ * This file is part of processlauncher.
+ *
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation; either version 3 of the License, or
+ * any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU Lesser General Public License for more details.
+ *
+ * Copyright (C) hdsdi3g for hd3g.tv 2019
+ *
+ */
+package tv.hd3g.processlauncher;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+
+import java.io.BufferedReader;
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.Charset;
+
+/**
+ * Not a test. Compare StreamLineDecoder with the previous BufferedReader based StreamParser read loop.
+ * Run with: java -cp target/classes:target/test-classes tv.hd3g.processlauncher.StreamLineDecoderBenchmark
+ */
+public class StreamLineDecoderBenchmark {// NOSONAR
+
+	private static final int ROUNDS = 10;
+
+	private static long lineCount;
+
+	private static byte[] makeContent(final String line, final int count) {
+		final var sb = new StringBuilder();
+		for (var pos = 0; pos < count; pos++) {
+			sb.append(line).append(pos).append('\n');
+		}
+		return sb.toString().getBytes(UTF_8);
+	}
+
+	private static void bufferedReader(final InputStream in, final Charset charset) throws IOException {
+		final var reader = new BufferedReader(new InputStreamReader(in, charset));
+		String line;
+		while ((line = reader.readLine()) != null) {
+			lineCount += line.length();
+		}
+	}
+
+	private static void lineDecoder(final InputStream in, final Charset charset) throws IOException {
+		final var decoder = new StreamLineDecoder(charset, line -> lineCount += line.length());
+		final var buffer = new byte[8192];
+		int size;
+		while ((size = in.read(buffer)) != -1) {
+			decoder.decode(buffer, 0, size);
+		}
+		decoder.endOfStream();
+	}
+
+	@FunctionalInterface
+	private interface Reader {
+		void read(InputStream in, Charset charset) throws IOException;
+	}
+
+	private static double bench(final Reader reader, final byte[] content, final Charset charset) throws IOException {
+		var best = Long.MAX_VALUE;
+		for (var round = 0; round < ROUNDS; round++) {
+			final var start = System.nanoTime();
+			reader.read(new ByteArrayInputStream(content), charset);
+			best = Math.min(best, System.nanoTime() - start);
+		}
+		return content.length / (best / 1_000_000_000d) / 1024d / 1024d;
+	}
+
+	public static void main(final String[] args) throws IOException {
+		final var ascii = makeContent("frame= 1234 fps= 25 q=28.0 size=  1024kB time=00:00:41.00 bitrate=204.6kbits/s #",
+		        1_000_000);
+		final var utf8 = makeContent("Entrée n°", 1_000_000);
+
+		for (final var content : new byte[][] { ascii, utf8 }) {
+			final var label = content == ascii ? "ASCII" : "UTF-8";
+			System.out.printf("%s BufferedReader: %.1f MB/s%n", label, // NOSONAR
+			        bench(StreamLineDecoderBenchmark::bufferedReader, content, UTF_8));
+			System.out.printf("%s StreamLineDecoder: %.1f MB/s%n", label, // NOSONAR
+			        bench(StreamLineDecoderBenchmark::lineDecoder, content, UTF_8));
+		}
+		System.out.println("(" + lineCount + ")");// NOSONAR
+	}
+
+}
@@ -0,0 +1,88 @@
+/*
+ * This file is part of processlauncher.
+ *
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation; either version 3 of the License, or
+ * any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU Lesser General Public License for more details.
+ *
+ * Copyright (C) hdsdi3g for hd3g.tv 2019
+ *
+ */
+package tv.hd3g.processlauncher;
+
+import static java.nio.charset.StandardCharsets.ISO_8859_1;
+import static java.nio.charset.StandardCharsets.UTF_16;
+import static java.nio.charset.StandardCharsets.UTF_16LE;
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.nio.charset.Charset;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+
+class StreamLineDecoderTest {
+
+	private static final String TEXT = "Line 1\nLigne 2 éàè\r\n\rfrâme=  12 fps=25\rfrâme=  24 fps=25\r\n日本語\n\nLast";
+	private static final List<String> EXPECTED = List.of("Line 1", "Ligne 2 éàè", "", "frâme=  12 fps=25",
+	        "frâme=  24 fps=25", "日本語", "", "Last");
+
+	private static List<String> decode(final Charset charset, final byte[] content, final int chunkSize) {
+		final var lines = new ArrayList<String>();
+		final var decoder = new StreamLineDecoder(charset, lines::add);
+		for (var pos = 0; pos < content.length; pos += chunkSize) {
+			decoder.decode(content, pos, Math.min(chunkSize, content.length - pos));
+		}
+		decoder.endOfStream();
+		return lines;
+	}
+
+	@Test
+	void testUTF8() {
+		final var content = TEXT.getBytes(UTF_8);
+		for (var chunkSize = 1; chunkSize < 10; chunkSize++) {
+			assertEquals(EXPECTED, decode(UTF_8, content, chunkSize));
+		}
+		assertEquals(EXPECTED, decode(UTF_8, content, content.length));
+	}
+
+	@Test
+	void testLatin1() {
+		final var text = "Ligne 1 éàè\rLigne 2\r\n";
+		final var content = text.getBytes(ISO_8859_1);
+		for (var chunkSize = 1; chunkSize < 5; chunkSize++) {
+			assertEquals(List.of("Ligne 1 éàè", "Ligne 2"), decode(ISO_8859_1, content, chunkSize));
+		}
+	}
+
+	@Test
+	void testOtherAsciiCompatible() {
+		final var charset = Charset.forName("windows-1252");
+		final var content = "Ligne 1 €\nLigne 2".getBytes(charset);
+		assertEquals(List.of("Ligne 1 €", "Ligne 2"), decode(charset, content, 3));
+	}
+
+	@Test
+	void testUTF16() {
+		for (final var charset : List.of(UTF_16, UTF_16LE)) {
+			final var content = TEXT.getBytes(charset);
+			for (var chunkSize = 1; chunkSize < 10; chunkSize++) {
+				assertEquals(EXPECTED, decode(charset, content, chunkSize));
+			}
+		}
+	}
+
+	@Test
+	void testMalformed() {
+		final var content = new byte[] { 'A', (byte) 0xC3, '\n', 'B' };
+		assertEquals(List.of("A�", "B"), decode(UTF_8, content, 1));
+	}
+
+}
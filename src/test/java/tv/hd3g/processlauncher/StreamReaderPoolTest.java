@@ -0,0 +1,254 @@
+/*
+ * This file is part of processlauncher.
+ *
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation; either version 3 of the License, or
+ * any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU Lesser General Public License for more details.
+ *
+ * Copyright (C) hdsdi3g for hd3g.tv 2019
+ *
+ */
+package tv.hd3g.processlauncher;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.PipedInputStream;
+import java.io.PipedOutputStream;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+import org.junit.jupiter.api.Test;
+import org.mockito.Mockito;
+
+import tv.hd3g.processlauncher.cmdline.CommandLine;
+import tv.hd3g.processlauncher.cmdline.ExecutableFinder;
+import tv.hd3g.processlauncher.cmdline.Parameters;
+import tv.hd3g.processlauncher.demo.DemoExecSimple;
+
+class StreamReaderPoolTest {
+
+	@Test
+	void testInvalidParams() {
+		assertThrows(IllegalArgumentException.class, () -> new StreamReaderPool(0));
+		assertThrows(IllegalArgumentException.class, () -> new StreamReaderPool(1, Duration.ZERO));
+		assertThrows(IllegalArgumentException.class, () -> new StreamReaderPool(1, 0, Duration.ofMillis(1)));
+	}
+
+	@Test
+	void testCapture() throws Exception {
+		final var pool = new StreamReaderPool(1, Duration.ofMillis(1));
+		final var csot = pool.createCaptureStandardOutput(CapturedStreams.BOTH_STDOUT_STDERR);
+		assertEquals(pool, csot.getStreamReaderPool().get());
+
+		final List<LineEntry> capturedlines = new ArrayList<>();
+		final CapturedStdOutErrText csoeto = new CapturedStdOutErrText() {
+
+			@Override
+			public void onText(final LineEntry lineEntry) {
+				synchronized (capturedlines) {
+					capturedlines.add(lineEntry);
+				}
+			}
+
+		};
+		csot.addObserver(csoeto);
+
+		final var source = Mockito.mock(ProcesslauncherLifecycle.class);
+		final var launcher = Mockito.mock(Processlauncher.class);
+		Mockito.when(source.getLauncher()).thenReturn(launcher);
+		Mockito.when(source.isRunning()).thenReturn(false);
+		Mockito.when(launcher.getExecutableName()).thenReturn("some-exec");
+
+		final var textLinesStdOut = Arrays.asList("Line 1", "Line 2", "", "\tline 4");
+		final var stdOutClosed = csot.stdOutStreamConsumer(new ByteArrayInputStream(textLinesStdOut.stream()
+		        .collect(Collectors.joining("\n")).getBytes()), source);
+		final var textLinesStdErr = Arrays.asList("Line 5", "", "Line 7");
+		csot.stdErrStreamConsumer(new ByteArrayInputStream(textLinesStdErr.stream()
+		        .collect(Collectors.joining("\r\n")).getBytes()), source).get(10, TimeUnit.SECONDS);
+		stdOutClosed.get(10, TimeUnit.SECONDS);
+
+		csoeto.waitForClosedStreams();
+		assertFalse(csoeto.isStreamsWatchIsStillAlive());
+		assertEquals(0, pool.getWatchedStreamsCount());
+
+		assertEquals(textLinesStdOut, capturedlines.stream()
+		        .filter(le -> le.isStdErr() == false)
+		        .map(LineEntry::getLine)
+		        .collect(Collectors.toUnmodifiableList()));
+		assertEquals(textLinesStdErr, capturedlines.stream()
+		        .filter(LineEntry::isStdErr)
+		        .map(LineEntry::getLine)
+		        .collect(Collectors.toUnmodifiableList()));
+		pool.close();
+	}
+
+	/**
+	 * An ended process, with a stdout still open, like if a child process keeps it.
+	 */
+	private static class EndedProcess extends Process {
+		private final InputStream stdOut;
+
+		EndedProcess(final InputStream stdOut) {
+			this.stdOut = stdOut;
+		}
+
+		@Override
+		public OutputStream getOutputStream() {
+			return OutputStream.nullOutputStream();
+		}
+
+		@Override
+		public InputStream getInputStream() {
+			return stdOut;
+		}
+
+		@Override
+		public InputStream getErrorStream() {
+			return new ByteArrayInputStream(new byte[0]);
+		}
+
+		@Override
+		public int waitFor() {
+			return 0;
+		}
+
+		@Override
+		public int exitValue() {
+			return 0;
+		}
+
+		@Override
+		public void destroy() {
+			/**
+			 * Already ended
+			 */
+		}
+	}
+
+	private ProcesslauncherBuilder prepareBuilder(final Class<?> execClass) throws IOException {
+		final var parameters = Parameters.of("-cp", System.getProperty("java.class.path"), execClass.getName());
+		return new ProcesslauncherBuilder(new CommandLine("java", parameters, new ExecutableFinder()));
+	}
+
+	@Test
+	void testStillOpenStreamAfterEnd() throws IOException {
+		final var pool = new StreamReaderPool(1, Duration.ofMillis(1));
+
+		final var stillOpenStdOut = new PipedOutputStream();
+		final var endedProcess = new EndedProcess(new PipedInputStream(stillOpenStdOut));
+		final var endedRetention = new CapturedStdOutErrTextRetention();
+		final var endedCapture = pool.createCaptureStandardOutput(CapturedStreams.BOTH_STDOUT_STDERR);
+		endedCapture.addObserver(endedRetention);
+		final var endedBuilder = prepareBuilder(DemoExecSimple.class);
+		endedBuilder.setExternalProcessStartup(pBuilder -> endedProcess);
+		endedBuilder.setCaptureStandardOutput(endedCapture);
+		endedBuilder.start();
+
+		final var retention = new CapturedStdOutErrTextRetention();
+		final var capture = pool.createCaptureStandardOutput(CapturedStreams.BOTH_STDOUT_STDERR);
+		capture.addObserver(retention);
+		final var builder = prepareBuilder(DemoExecSimple.class);
+		builder.setCaptureStandardOutput(capture);
+		builder.start().waitForEnd();
+		retention.waitForClosedStreams(10_000);
+		assertFalse(retention.isStreamsWatchIsStillAlive());
+		assertEquals(DemoExecSimple.expected, retention.getStdouterr(true, ""));
+		assertTrue(endedRetention.isStreamsWatchIsStillAlive());
+
+		stillOpenStdOut.write("Last line".getBytes());
+		stillOpenStdOut.close();
+		endedRetention.waitForClosedStreams(10_000);
+		assertFalse(endedRetention.isStreamsWatchIsStillAlive());
+		assertEquals("Last line", endedRetention.getStdout(false, ""));
+		assertEquals(0, pool.getWatchedStreamsCount());
+		pool.close();
+	}
+
+	@Test
+	void testBoundedEndReaders() throws IOException {
+		final var pool = new StreamReaderPool(2, 1, Duration.ofMillis(1));
+		final var stillOpenStdOuts = new ArrayList<PipedOutputStream>();
+		final var retentions = new ArrayList<CapturedStdOutErrTextRetention>();
+		for (var pos = 0; pos < 3; pos++) {
+			final var stillOpenStdOut = new PipedOutputStream();
+			final var endedProcess = new EndedProcess(new PipedInputStream(stillOpenStdOut));
+			final var retention = new CapturedStdOutErrTextRetention();
+			final var capture = pool.createCaptureStandardOutput(CapturedStreams.BOTH_STDOUT_STDERR);
+			capture.addObserver(retention);
+			final var builder = prepareBuilder(DemoExecSimple.class);
+			builder.setExternalProcessStartup(pBuilder -> endedProcess);
+			builder.setCaptureStandardOutput(capture);
+			builder.start();
+			stillOpenStdOuts.add(stillOpenStdOut);
+			retentions.add(retention);
+		}
+
+		final var timeout = System.currentTimeMillis() + 1000;
+		while (pool.getEndReadersCount() == 0 && System.currentTimeMillis() < timeout) {
+			Thread.onSpinWait();
+		}
+		assertEquals(1, pool.getEndReadersCount());
+
+		for (var pos = 0; pos < 3; pos++) {
+			stillOpenStdOuts.get(pos).write(("Last line " + pos).getBytes());
+			stillOpenStdOuts.get(pos).close();
+		}
+		for (var pos = 0; pos < 3; pos++) {
+			retentions.get(pos).waitForClosedStreams(10_000);
+			assertEquals("Last line " + pos, retentions.get(pos).getStdout(false, ""));
+		}
+		assertEquals(1, pool.getEndReadersCount());
+		assertEquals(0, pool.getWatchedStreamsCount());
+		pool.close();
+	}
+
+	@Test
+	void testClose() throws IOException {
+		final var pool = new StreamReaderPool(2, Duration.ofMillis(1));
+		assertFalse(pool.isClosed());
+		assertTrue(Thread.getAllStackTraces().keySet().stream()
+		        .filter(t -> t.getName().startsWith("Executable stream reader pool #"))
+		        .allMatch(Thread::isDaemon));
+
+		final var stillOpenStdOut = new PipedOutputStream();
+		final var retention = new CapturedStdOutErrTextRetention();
+		final var capture = pool.createCaptureStandardOutput(CapturedStreams.BOTH_STDOUT_STDERR);
+		capture.addObserver(retention);
+		final var builder = prepareBuilder(DemoExecSimple.class);
+		builder.setExternalProcessStartup(pBuilder -> new EndedProcess(new PipedInputStream(stillOpenStdOut)));
+		builder.setCaptureStandardOutput(capture);
+		builder.start();
+		assertTrue(retention.isStreamsWatchIsStillAlive());
+
+		pool.close();
+		assertTrue(pool.isClosed());
+		retention.waitForClosedStreams(10_000);
+		assertFalse(retention.isStreamsWatchIsStillAlive());
+		assertEquals(0, pool.getWatchedStreamsCount());
+		pool.close();
+
+		final var closedCapture = pool.createCaptureStandardOutput(CapturedStreams.BOTH_STDOUT_STDERR);
+		builder.setCaptureStandardOutput(closedCapture);
+		builder.setExternalProcessStartup(pBuilder -> new EndedProcess(new ByteArrayInputStream(new byte[0])));
+		assertThrows(IllegalStateException.class, builder::start);
+		stillOpenStdOut.close();
+	}
+
+}
@@ -0,0 +1,38 @@
+/*
+ * This file is part of processlauncher.
+ *
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation; either version 3 of the License, or
+ * any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU Lesser General Public License for more details.
+ *
+ * Copyright (C) hdsdi3g for hd3g.tv 2018
+ *
+ */
+package tv.hd3g.processlauncher.demo;
+
+import java.io.IOException;
+
+public class DemoExecBinaryOut {
+
+	public static final int SIZE = 1_000_000;
+
+	public static byte get(final int pos) {
+		return (byte) (pos * 7 % 251);
+	}
+
+	public static void main(final String[] args) throws IOException {
+		final var content = new byte[SIZE];
+		for (var pos = 0; pos < SIZE; pos++) {
+			content[pos] = get(pos);
+		}
+		System.out.write(content);
+		System.out.flush();
+	}
+
+}
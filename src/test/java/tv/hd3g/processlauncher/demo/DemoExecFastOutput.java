@@ -0,0 +1,41 @@
+/*
+ * This file is part of processlauncher.
+ *
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation; either version 3 of the License, or
+ * any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU Lesser General Public License for more details.
+ *
+ * Copyright (C) hdsdi3g for hd3g.tv 2019
+ *
+ */
+package tv.hd3g.processlauncher.demo;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+
+public class DemoExecFastOutput {
+
+	public static final int DEFAULT_LINE_COUNT = 1_000_000;
+
+	public static void main(final String[] args) throws IOException {
+		var count = DEFAULT_LINE_COUNT;
+		if (args.length > 0) {
+			count = Integer.parseInt(args[0]);
+		}
+		final var out = new BufferedWriter(new OutputStreamWriter(System.out), 0xFFFF);
+		for (var pos = 0; pos < count; pos++) {
+			out.write("frame=");
+			out.write(Integer.toString(pos));
+			out.write(" fps=250 q=28.0 size=1024kB time=00:00:10.00 bitrate=1024.0kbits/s speed=10x\n");
+		}
+		out.flush();
+	}
+
+}
@@ -0,0 +1,30 @@
+/*
+ * This file is part of processlauncher.
+ *
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation; either version 3 of the License, or
+ * any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU Lesser General Public License for more details.
+ *
+ * Copyright (C) hdsdi3g for hd3g.tv 2018
+ *
+ */
+package tv.hd3g.processlauncher.demo;
+
+public class DemoExecFatalError {
+
+	public static final String FATAL_MESSAGE = "input.mkv: Invalid data found when processing input";
+	public static final long MAX_DURATION = 5000;
+
+	public static void main(final String[] args) throws Exception {
+		System.out.println("Start");// NOSONAR
+		System.err.println(FATAL_MESSAGE);// NOSONAR
+		Thread.sleep(MAX_DURATION);// NOSONAR
+	}
+
+}
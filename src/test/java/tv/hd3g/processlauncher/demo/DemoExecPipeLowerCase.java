@@ -0,0 +1,38 @@
+/*
+ * This file is part of processlauncher.
+ *
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation; either version 3 of the License, or
+ * any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU Lesser General Public License for more details.
+ *
+ * Copyright (C) hdsdi3g for hd3g.tv 2019
+ *
+ */
+package tv.hd3g.processlauncher.demo;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+
+public class DemoExecPipeLowerCase {
+
+	public static final String LINES_COUNT = "Lines: ";
+
+	public static void main(final String[] args) throws IOException {
+		final var reader = new BufferedReader(new InputStreamReader(System.in));
+		var count = 0;
+		String line;
+		while ((line = reader.readLine()) != null) {
+			System.out.println(line.toLowerCase());
+			count++;
+		}
+		System.err.println(LINES_COUNT + count);
+	}
+
+}